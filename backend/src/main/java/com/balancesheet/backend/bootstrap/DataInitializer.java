@@ -11,6 +11,7 @@ import com.balancesheet.backend.repository.TransactionRepository;
 import com.balancesheet.backend.model.RecurringTransaction;
 import com.balancesheet.backend.repository.RecurringTransactionRepository;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -21,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 
 @Component
+@Order(1)
 @lombok.extern.slf4j.Slf4j
 public class DataInitializer implements CommandLineRunner {
 
@@ -0,0 +1,52 @@
+package com.balancesheet.backend.bootstrap;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the pooled id sequences past rows that were inserted while
+ * Transaction/JournalEntry/Payment still used IDENTITY columns.
+ * Runs during context startup, before the scheduler can post anything.
+ */
+@Component
+@lombok.extern.slf4j.Slf4j
+public class IdSequenceInitializer implements InitializingBean {
+
+        // Must match allocationSize on the @SequenceGenerator mappings
+        private static final int ALLOCATION_SIZE = 50;
+
+        private final JdbcTemplate jdbcTemplate;
+        private final EntityManagerFactory entityManagerFactory;
+
+        public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+                this.jdbcTemplate = jdbcTemplate;
+                this.entityManagerFactory = entityManagerFactory;
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+                Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                                .getJdbcServices().getDialect();
+                align(dialect, "transaction", "transaction_seq");
+                align(dialect, "journal_entry", "journal_entry_seq");
+                align(dialect, "payment", "payment_seq");
+        }
+
+        private void align(Dialect dialect, String table, String sequence) {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                Long next = jdbcTemplate.queryForObject(
+                                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+
+                // The pooled optimizer hands out (next - ALLOCATION_SIZE, next], so the whole
+                // block has to sit above the highest existing id.
+                if (next != null && maxId != null && maxId > 0 && next - ALLOCATION_SIZE < maxId + 1) {
+                        long restart = maxId + ALLOCATION_SIZE + 1;
+                        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart);
+                        log.info("Advanced {} to {} (max {}.id = {})", sequence, restart, table, maxId);
+                }
+        }
+}
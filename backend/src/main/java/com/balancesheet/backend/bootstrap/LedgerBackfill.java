@@ -0,0 +1,92 @@
+package com.balancesheet.backend.bootstrap;
+
+import com.balancesheet.backend.model.Company;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import com.balancesheet.backend.repository.JournalEntryRepository;
+import com.balancesheet.backend.service.AccountBalanceService;
+import com.balancesheet.backend.service.DailyBalanceService;
+import com.balancesheet.backend.service.LedgerColumnStore;
+import com.balancesheet.backend.service.ReceivablesService;
+import com.balancesheet.backend.service.StockService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the derived ledger tables, invoice payment fields, open receivables
+ * and opening stock movements for data that predates them (and for the demo
+ * data, which is seeded straight through the repositories).
+ * Runs after DataInitializer.
+ */
+@Component
+@Order(2)
+@lombok.extern.slf4j.Slf4j
+public class LedgerBackfill implements CommandLineRunner {
+
+        private final CompanyRepository companyRepository;
+        private final JournalEntryRepository journalEntryRepository;
+        private final InvoiceRepository invoiceRepository;
+        private final AccountBalanceService accountBalanceService;
+        private final DailyBalanceService dailyBalanceService;
+        private final LedgerColumnStore ledgerColumnStore;
+        private final ReceivablesService receivablesService;
+        private final StockService stockService;
+
+        public LedgerBackfill(CompanyRepository companyRepository, JournalEntryRepository journalEntryRepository,
+                        InvoiceRepository invoiceRepository, AccountBalanceService accountBalanceService,
+                        DailyBalanceService dailyBalanceService, LedgerColumnStore ledgerColumnStore,
+                        ReceivablesService receivablesService, StockService stockService) {
+                this.companyRepository = companyRepository;
+                this.journalEntryRepository = journalEntryRepository;
+                this.invoiceRepository = invoiceRepository;
+                this.accountBalanceService = accountBalanceService;
+                this.dailyBalanceService = dailyBalanceService;
+                this.ledgerColumnStore = ledgerColumnStore;
+                this.receivablesService = receivablesService;
+                this.stockService = stockService;
+        }
+
+        @Override
+        public void run(String... args) {
+                // The balance rebuilds below read these columns
+                int entries = journalEntryRepository.backfillCompanyAndPostingDate();
+                if (entries > 0) {
+                        log.info("Backfilled company and posting date on {} journal entries", entries);
+                }
+
+                int invoices = invoiceRepository.backfillPaymentTotals();
+                if (invoices > 0) {
+                        log.info("Backfilled amount paid and open balance on {} invoices", invoices);
+                }
+                int arAccounts = invoiceRepository.backfillArAccount();
+                if (arAccounts > 0) {
+                        log.info("Backfilled the AR account on {} invoices", arAccounts);
+                }
+
+                int products = stockService.backfillOpening();
+                if (products > 0) {
+                        log.info("Recorded opening stock movements for {} products", products);
+                }
+
+                for (Company company : companyRepository.findAll()) {
+                        // Per account rather than per company: postings accepted while the
+                        // application was starting must not make a company look done
+                        int balances = accountBalanceService.backfill(company.getId());
+                        if (balances > 0) {
+                                log.info("Built account balances for {} ({} accounts)", company.getName(), balances);
+                        }
+                        int daily = dailyBalanceService.backfill(company.getId());
+                        if (daily > 0) {
+                                log.info("Built daily balances for {} ({} accounts)", company.getName(), daily);
+                        }
+                        int items = receivablesService.backfill(company.getId());
+                        if (items > 0) {
+                                log.info("Built open receivables for {} ({} invoices)", company.getName(), items);
+                        }
+                        if (ledgerColumnStore.isEnabled()) {
+                                ledgerColumnStore.load(company.getId());
+                        }
+                }
+        }
+}
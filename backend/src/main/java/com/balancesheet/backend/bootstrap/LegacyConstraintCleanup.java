@@ -0,0 +1,53 @@
+package com.balancesheet.backend.bootstrap;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drops unique keys that the current mappings no longer declare. ddl-auto=update
+ * adds constraints but never removes them, so databases created by an older
+ * version would otherwise keep rejecting rows the application now allows.
+ * Runs during context startup, after Hibernate has updated the schema.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@lombok.extern.slf4j.Slf4j
+public class LegacyConstraintCleanup implements InitializingBean {
+
+        // Single-column unique keys on the given table and column
+        private static final String FIND_UNIQUE_KEYS = "SELECT tc.constraint_name "
+                        + "FROM information_schema.table_constraints tc "
+                        + "JOIN information_schema.key_column_usage kcu ON kcu.constraint_schema = tc.constraint_schema "
+                        + "AND kcu.constraint_name = tc.constraint_name "
+                        + "WHERE tc.constraint_type = 'UNIQUE' AND tc.table_schema = CURRENT_SCHEMA "
+                        + "AND lower(tc.table_name) = ? "
+                        + "GROUP BY tc.constraint_name "
+                        + "HAVING COUNT(*) = 1 AND MAX(lower(kcu.column_name)) = ?";
+
+        private final JdbcTemplate jdbcTemplate;
+
+        public LegacyConstraintCleanup(JdbcTemplate jdbcTemplate) {
+                this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+                // Invoice numbers became unique per company rather than globally
+                dropUniqueKey("invoice", "invoice_number");
+                // A remittance posts one transaction for several payments
+                dropUniqueKey("payment", "transaction_id");
+        }
+
+        int dropUniqueKey(String table, String column) {
+                List<String> names = jdbcTemplate.queryForList(FIND_UNIQUE_KEYS, String.class, table, column);
+                for (String name : names) {
+                        jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + name + "\"");
+                        log.info("Dropped legacy unique key {} on {}.{}", name, table, column);
+                }
+                return names.size();
+        }
+}
@@ -1,10 +1,16 @@
 package com.balancesheet.backend.controller;
 
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.dto.BatchTransactionRequest;
+import com.balancesheet.backend.dto.TransactionFeedPage;
+import com.balancesheet.backend.dto.TransactionFeedQuery;
 import com.balancesheet.backend.dto.TransactionRequest;
 import com.balancesheet.backend.model.Account;
 import com.balancesheet.backend.model.AccountType;
 import com.balancesheet.backend.model.Transaction;
 import com.balancesheet.backend.service.AccountingService;
+import com.balancesheet.backend.service.BatchPostingService;
+import com.balancesheet.backend.service.TransactionFeedService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
@@ -17,9 +23,14 @@ import java.util.Map;
 public class AccountingController {
 
     private final AccountingService accountingService;
+    private final BatchPostingService batchPostingService;
+    private final TransactionFeedService transactionFeedService;
 
-    public AccountingController(AccountingService accountingService) {
+    public AccountingController(AccountingService accountingService, BatchPostingService batchPostingService,
+            TransactionFeedService transactionFeedService) {
         this.accountingService = accountingService;
+        this.batchPostingService = batchPostingService;
+        this.transactionFeedService = transactionFeedService;
     }
 
     @PostMapping("/accounts")
@@ -41,6 +52,13 @@ public class AccountingController {
         return ResponseEntity.ok(accountingService.recordTransaction(request, companyId));
     }
 
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<BatchResult> recordTransactions(
+            @jakarta.validation.Valid @RequestBody BatchTransactionRequest request,
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
+        return ResponseEntity.ok(batchPostingService.recordTransactions(request.getTransactions(), companyId));
+    }
+
     @GetMapping("/transactions")
     public ResponseEntity<List<Transaction>> getAllTransactions(
             @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
@@ -48,6 +66,14 @@ public class AccountingController {
         return ResponseEntity.ok(accountingService.getAllTransactions(companyId, year));
     }
 
+    // Keyset-paginated, filterable alternative to GET /transactions
+    @GetMapping("/transactions/feed")
+    public ResponseEntity<TransactionFeedPage> getTransactionFeed(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            TransactionFeedQuery query) {
+        return ResponseEntity.ok(transactionFeedService.getFeed(companyId, query));
+    }
+
     @GetMapping("/financial-position")
     public ResponseEntity<Map<AccountType, BigDecimal>> getFinancialPosition(
             @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
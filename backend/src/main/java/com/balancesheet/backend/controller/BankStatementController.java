@@ -0,0 +1,38 @@
+package com.balancesheet.backend.controller;
+
+import com.balancesheet.backend.service.BankReconciliationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Statements are posted as the raw CSV or CAMT document
+@RestController
+@RequestMapping("/api/bank-statements")
+@CrossOrigin(origins = "http://localhost:5173", allowedHeaders = "*")
+public class BankStatementController {
+
+    private final BankReconciliationService bankReconciliationService;
+
+    public BankStatementController(BankReconciliationService bankReconciliationService) {
+        this.bankReconciliationService = bankReconciliationService;
+    }
+
+    @PostMapping("/match")
+    public ResponseEntity<Map<String, Object>> matchStatement(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestBody String statement) {
+        return ResponseEntity.ok(bankReconciliationService.match(companyId, statement));
+    }
+
+    // Records payments for the matched lines; suggestions are returned for review
+    @PostMapping("/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileStatement(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam Long cashAccountId,
+            @RequestParam(defaultValue = "Bank Transfer") String paymentMethod,
+            @RequestBody String statement) {
+        return ResponseEntity.ok(bankReconciliationService.reconcile(companyId, statement, cashAccountId,
+                paymentMethod));
+    }
+}
@@ -1,6 +1,7 @@
 package com.balancesheet.backend.controller;
 
 import com.balancesheet.backend.service.CashFlowService;
+import com.balancesheet.backend.service.CashForecastService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,15 +14,20 @@ import java.util.Map;
 public class CashFlowController {
 
     private final CashFlowService cashFlowService;
+    private final CashForecastService cashForecastService;
 
-    public CashFlowController(CashFlowService cashFlowService) {
+    public CashFlowController(CashFlowService cashFlowService, CashForecastService cashForecastService) {
         this.cashFlowService = cashFlowService;
+        this.cashForecastService = cashForecastService;
     }
 
     @GetMapping("/history")
     public ResponseEntity<List<Map<String, Object>>> getHistory(
-            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
-        return ResponseEntity.ok(cashFlowService.getCashBalanceHistory(companyId));
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "day") String bucket) {
+        return ResponseEntity.ok(cashFlowService.getCashBalanceHistory(companyId, days,
+                CashFlowService.HistoryBucket.parse(bucket)));
     }
 
     @GetMapping("/forecast")
@@ -29,4 +35,15 @@ public class CashFlowController {
             @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
         return ResponseEntity.ok(cashFlowService.getForecast(companyId));
     }
+
+    // Daily projected balance with optional Monte Carlo percentile bands
+    @GetMapping("/projection")
+    public ResponseEntity<Map<String, Object>> getProjection(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam(defaultValue = "90") int horizon,
+            @RequestParam(required = false) Integer lagDays,
+            @RequestParam(defaultValue = "0") int simulations,
+            @RequestParam(defaultValue = "42") long seed) {
+        return ResponseEntity.ok(cashForecastService.project(companyId, horizon, lagDays, simulations, seed));
+    }
 }
@@ -2,6 +2,7 @@ package com.balancesheet.backend.controller;
 
 import com.balancesheet.backend.model.Company;
 import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.service.InvoiceNumberAllocator;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,6 +28,10 @@ public class CompanyController {
         return companyRepository.findById(id)
                 .map(company -> {
                     company.setCurrency(companyDetails.getCurrency());
+                    if (companyDetails.getInvoiceNumberFormat() != null) {
+                        InvoiceNumberAllocator.validateFormat(companyDetails.getInvoiceNumberFormat());
+                    }
+                    company.setInvoiceNumberFormat(companyDetails.getInvoiceNumberFormat());
                     // Add other updatable fields here if needed
                     return ResponseEntity.ok(companyRepository.save(company));
                 })
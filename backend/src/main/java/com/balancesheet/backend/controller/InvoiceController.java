@@ -1,10 +1,15 @@
 package com.balancesheet.backend.controller;
 
+import com.balancesheet.backend.dto.BatchApproveRequest;
+import com.balancesheet.backend.dto.BatchInvoiceRequest;
+import com.balancesheet.backend.dto.BatchResult;
 import com.balancesheet.backend.model.Invoice;
+import com.balancesheet.backend.service.InvoiceBatchService;
 import com.balancesheet.backend.service.InvoiceService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -14,9 +19,11 @@ import java.util.Map;
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
+    private final InvoiceBatchService invoiceBatchService;
 
-    public InvoiceController(InvoiceService invoiceService) {
+    public InvoiceController(InvoiceService invoiceService, InvoiceBatchService invoiceBatchService) {
         this.invoiceService = invoiceService;
+        this.invoiceBatchService = invoiceBatchService;
     }
 
     @GetMapping
@@ -25,6 +32,15 @@ public class InvoiceController {
         return ResponseEntity.ok(invoiceService.getAllInvoices(companyId));
     }
 
+    // Gaps in the company's invoice numbering for the year
+    @GetMapping("/numbering")
+    public ResponseEntity<Map<String, Object>> getNumbering(
+            @RequestParam(required = false) Integer year,
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
+        return ResponseEntity.ok(invoiceService.getNumbering(companyId,
+                year != null ? year : LocalDate.now().getYear()));
+    }
+
     @PostMapping
     public ResponseEntity<Invoice> createInvoice(
             @RequestBody Invoice invoice,
@@ -45,4 +61,19 @@ public class InvoiceController {
 
         return ResponseEntity.ok(invoiceService.approveInvoice(id, companyId, arAccountId));
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> createInvoices(
+            @jakarta.validation.Valid @RequestBody BatchInvoiceRequest request,
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
+        return ResponseEntity.ok(invoiceBatchService.createInvoices(request.getInvoices(), companyId));
+    }
+
+    @PostMapping("/batch/approve")
+    public ResponseEntity<BatchResult> approveInvoices(
+            @jakarta.validation.Valid @RequestBody BatchApproveRequest request,
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
+        return ResponseEntity.ok(invoiceBatchService.approveInvoices(request.getInvoiceIds(), companyId,
+                request.getArAccountId()));
+    }
 }
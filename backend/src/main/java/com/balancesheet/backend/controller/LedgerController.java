@@ -0,0 +1,67 @@
+package com.balancesheet.backend.controller;
+
+import com.balancesheet.backend.dto.BalanceVerification;
+import com.balancesheet.backend.service.AccountBalanceService;
+import com.balancesheet.backend.service.DailyBalanceService;
+import com.balancesheet.backend.service.LedgerAggregates;
+import com.balancesheet.backend.service.ReportCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Maintenance endpoints for the derived ledger tables
+@RestController
+@RequestMapping("/api/ledger")
+@CrossOrigin(origins = "http://localhost:5173", allowedHeaders = "*")
+public class LedgerController {
+
+    private final AccountBalanceService accountBalanceService;
+    private final DailyBalanceService dailyBalanceService;
+    private final LedgerAggregates ledgerAggregates;
+    private final ReportCache reportCache;
+
+    public LedgerController(AccountBalanceService accountBalanceService, DailyBalanceService dailyBalanceService,
+            LedgerAggregates ledgerAggregates, ReportCache reportCache) {
+        this.accountBalanceService = accountBalanceService;
+        this.dailyBalanceService = dailyBalanceService;
+        this.ledgerAggregates = ledgerAggregates;
+        this.reportCache = reportCache;
+    }
+
+    // Recomputes balances from the journal and reports any drift
+    @GetMapping("/balances/verify")
+    public ResponseEntity<BalanceVerification> verifyBalances(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
+        return ResponseEntity.ok(accountBalanceService.verify(companyId, false));
+    }
+
+    // Same check, but overwrites drifted balances with the journal totals
+    @PostMapping("/balances/rebuild")
+    public ResponseEntity<BalanceVerification> rebuildBalances(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
+        return ResponseEntity.ok(accountBalanceService.verify(companyId, true));
+    }
+
+    // Recomputes the per-day movement rows behind the date-range reports
+    @PostMapping("/daily-balances/rebuild")
+    public ResponseEntity<java.util.Map<String, Object>> rebuildDailyBalances(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
+        int rows = dailyBalanceService.rebuild(companyId);
+        return ResponseEntity.ok(java.util.Map.of("companyId", companyId, "rows", rows));
+    }
+
+    // Runs the same yearly aggregate on the database and columnar engines; defaults to the current year
+    @GetMapping("/engines/compare")
+    public ResponseEntity<java.util.Map<String, Object>> compareEngines(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam(required = false) Integer year) {
+        java.time.LocalDate from = java.time.LocalDate.of(
+                year != null ? year : java.time.LocalDate.now().getYear(), 1, 1);
+        return ResponseEntity.ok(ledgerAggregates.compareEngines(companyId, from, from.plusYears(1)));
+    }
+
+    // Hit, miss and eviction counts of the report cache (also published as metrics)
+    @GetMapping("/report-cache")
+    public ResponseEntity<java.util.Map<String, Double>> getReportCacheStats() {
+        return ResponseEntity.ok(reportCache.stats());
+    }
+}
@@ -1,12 +1,18 @@
 package com.balancesheet.backend.controller;
 
+import com.balancesheet.backend.dto.BatchPaymentRequest;
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.dto.RemittanceRequest;
+import com.balancesheet.backend.model.Invoice;
 import com.balancesheet.backend.model.Payment;
+import com.balancesheet.backend.service.PaymentBatchService;
 import com.balancesheet.backend.service.PaymentService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,9 +21,11 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentBatchService paymentBatchService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, PaymentBatchService paymentBatchService) {
         this.paymentService = paymentService;
+        this.paymentBatchService = paymentBatchService;
     }
 
     @PostMapping
@@ -37,13 +45,30 @@ public class PaymentController {
         return ResponseEntity.ok(payment);
     }
 
+    // One payment settling several invoices, posted as a single transaction
+    @PostMapping("/remittance")
+    public ResponseEntity<List<Payment>> recordRemittance(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @jakarta.validation.Valid @RequestBody RemittanceRequest request) {
+        return ResponseEntity.ok(paymentService.recordRemittance(companyId, request));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> recordPayments(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @jakarta.validation.Valid @RequestBody BatchPaymentRequest request) {
+        return ResponseEntity.ok(paymentBatchService.recordPayments(companyId, request.getCashAccountId(),
+                request.getPayments()));
+    }
+
     @GetMapping("/invoice/{invoiceId}")
     public ResponseEntity<Map<String, Object>> getPaymentInfo(
             @PathVariable Long invoiceId) {
 
-        BigDecimal totalPaid = paymentService.getTotalPaidForInvoice(invoiceId);
+        Invoice invoice = paymentService.getInvoice(invoiceId);
         return ResponseEntity.ok(Map.of(
-                "totalPaid", totalPaid,
+                "totalPaid", invoice.getAmountPaid(),
+                "openBalance", invoice.getOpenBalance(),
                 "payments", paymentService.getPaymentsByInvoice(invoiceId)));
     }
 }
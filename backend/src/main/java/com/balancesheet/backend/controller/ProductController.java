@@ -1,11 +1,13 @@
 package com.balancesheet.backend.controller;
 
 import com.balancesheet.backend.model.Product;
+import com.balancesheet.backend.model.StockMovement;
 import com.balancesheet.backend.service.ProductService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -30,4 +32,24 @@ public class ProductController {
             @RequestBody Product product) {
         return ResponseEntity.ok(productService.createProduct(companyId, product));
     }
+
+    @PostMapping("/{id}/stock")
+    public ResponseEntity<Product> updateStock(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> request) { // "quantityChange" and an optional "note"
+        Object quantityChange = request.get("quantityChange");
+        if (quantityChange == null) {
+            throw new IllegalArgumentException("Quantity change is required");
+        }
+        return ResponseEntity.ok(productService.updateStock(companyId, id,
+                Integer.parseInt(quantityChange.toString()), (String) request.get("note")));
+    }
+
+    @GetMapping("/{id}/movements")
+    public ResponseEntity<List<StockMovement>> getMovements(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @PathVariable Long id) {
+        return ResponseEntity.ok(productService.getMovements(companyId, id));
+    }
 }
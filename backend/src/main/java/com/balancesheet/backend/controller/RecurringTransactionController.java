@@ -1,9 +1,13 @@
 package com.balancesheet.backend.controller;
 
 import com.balancesheet.backend.model.Account;
+import com.balancesheet.backend.model.RecurrenceFrequency;
 import com.balancesheet.backend.model.RecurringTransaction;
 import com.balancesheet.backend.repository.AccountRepository;
 import com.balancesheet.backend.repository.RecurringTransactionRepository;
+import com.balancesheet.backend.service.RecurringQueue;
+import com.balancesheet.backend.service.SchedulerService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,13 +23,18 @@ public class RecurringTransactionController {
     private final RecurringTransactionRepository repository;
     private final AccountRepository accountRepository;
     private final com.balancesheet.backend.repository.CompanyRepository companyRepository;
+    private final SchedulerService schedulerService;
+    private final RecurringQueue recurringQueue;
 
     public RecurringTransactionController(RecurringTransactionRepository repository,
             AccountRepository accountRepository,
-            com.balancesheet.backend.repository.CompanyRepository companyRepository) {
+            com.balancesheet.backend.repository.CompanyRepository companyRepository,
+            SchedulerService schedulerService, RecurringQueue recurringQueue) {
         this.repository = repository;
         this.accountRepository = accountRepository;
         this.companyRepository = companyRepository;
+        this.schedulerService = schedulerService;
+        this.recurringQueue = recurringQueue;
     }
 
     @GetMapping
@@ -34,6 +43,14 @@ public class RecurringTransactionController {
         return repository.findByCompanyId(companyId);
     }
 
+    // Dry run of the postings due up to the date (default today), including missed runs
+    @GetMapping("/due")
+    public List<Map<String, Object>> previewDue(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        return schedulerService.previewDue(companyId, asOf != null ? asOf : LocalDate.now());
+    }
+
     @PostMapping
     public ResponseEntity<RecurringTransaction> create(@RequestBody Map<String, Object> payload,
             @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
@@ -44,17 +61,28 @@ public class RecurringTransactionController {
         rt.setName((String) payload.get("name"));
         rt.setDescription((String) payload.get("description"));
         rt.setAmount(new java.math.BigDecimal(payload.get("amount").toString()));
-        rt.setDayOfMonth((Integer) payload.get("dayOfMonth"));
         rt.setCategory((String) payload.get("category"));
         rt.setCompany(company);
+        rt.setFrequency(RecurrenceFrequency.valueOf(
+                payload.getOrDefault("frequency", "MONTHLY").toString().toUpperCase(java.util.Locale.ROOT)));
 
-        // Initial next run date
-        LocalDate nextRun = LocalDate.now()
-                .withDayOfMonth(Math.min((Integer) payload.get("dayOfMonth"), LocalDate.now().lengthOfMonth()));
-        if (nextRun.isBefore(LocalDate.now())) {
-            nextRun = nextRun.plusMonths(1);
+        // Initial next run date: the given first run, else the next matching day (today for weekly items)
+        Integer dayOfMonth = payload.get("dayOfMonth") != null ? Integer.valueOf(payload.get("dayOfMonth").toString())
+                : null;
+        LocalDate nextRun;
+        if (payload.get("nextRunDate") != null) {
+            nextRun = LocalDate.parse(payload.get("nextRunDate").toString());
+        } else if (dayOfMonth == null || rt.getFrequency() == RecurrenceFrequency.WEEKLY) {
+            nextRun = LocalDate.now();
+        } else {
+            nextRun = LocalDate.now()
+                    .withDayOfMonth(Math.min(dayOfMonth, LocalDate.now().lengthOfMonth()));
+            if (nextRun.isBefore(LocalDate.now())) {
+                nextRun = nextRun.plusMonths(1);
+            }
         }
         rt.setNextRunDate(nextRun);
+        rt.setDayOfMonth(dayOfMonth != null ? dayOfMonth : nextRun.getDayOfMonth());
 
         Account dr = accountRepository.findById(Long.valueOf(payload.get("debitAccountId").toString())).orElseThrow();
         Account cr = accountRepository.findById(Long.valueOf(payload.get("creditAccountId").toString())).orElseThrow();
@@ -67,12 +95,15 @@ public class RecurringTransactionController {
         rt.setDebitAccount(dr);
         rt.setCreditAccount(cr);
 
-        return ResponseEntity.ok(repository.save(rt));
+        RecurringTransaction saved = repository.save(rt);
+        recurringQueue.schedule(saved.getId(), saved.getNextRunDate());
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         repository.deleteById(id);
+        recurringQueue.remove(id);
         return ResponseEntity.ok().build();
     }
 }
@@ -1,10 +1,17 @@
 package com.balancesheet.backend.controller;
 
 import com.balancesheet.backend.model.JournalEntry;
+import com.balancesheet.backend.service.GeneralLedgerService;
+import com.balancesheet.backend.service.ReceivablesService;
 import com.balancesheet.backend.service.ReportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -14,9 +21,14 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
+    private final GeneralLedgerService generalLedgerService;
+    private final ReceivablesService receivablesService;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, GeneralLedgerService generalLedgerService,
+            ReceivablesService receivablesService) {
         this.reportService = reportService;
+        this.generalLedgerService = generalLedgerService;
+        this.receivablesService = receivablesService;
     }
 
     @GetMapping("/pnl")
@@ -26,12 +38,34 @@ public class ReportController {
         return ResponseEntity.ok(reportService.getProfitAndLoss(companyId, year));
     }
 
+    // Monthly, quarterly, yearly or custom-length P&L trend with per-account lines
+    @GetMapping("/pnl/periods")
+    public ResponseEntity<Map<String, Object>> getProfitAndLossByPeriod(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam(defaultValue = "month") String interval,
+            @RequestParam(defaultValue = "0") int days,
+            @RequestParam(defaultValue = "12") int periods,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        return ResponseEntity.ok(reportService.getProfitAndLossByPeriod(companyId,
+                ReportService.PeriodInterval.parse(interval), days, periods, end != null ? end : LocalDate.now()));
+    }
+
     @GetMapping("/trial-balance")
     public ResponseEntity<List<Map<String, Object>>> getTrialBalance(
             @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId) {
         return ResponseEntity.ok(reportService.getTrialBalance(companyId));
     }
 
+    // Balances at the end of the day, with optional comparison day and delta
+    @GetMapping("/trial-balance/as-of")
+    public ResponseEntity<Map<String, Object>> getTrialBalanceAsOf(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate compareTo) {
+        return ResponseEntity.ok(reportService.getTrialBalanceAsOf(companyId, date != null ? date : LocalDate.now(),
+                compareTo));
+    }
+
     @GetMapping("/general-ledger/{accountId}")
     public ResponseEntity<List<JournalEntry>> getGeneralLedger(
             @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
@@ -39,4 +73,54 @@ public class ReportController {
             @RequestParam(defaultValue = "2024") int year) {
         return ResponseEntity.ok(reportService.getGeneralLedger(companyId, accountId, year));
     }
+
+    // Streams the ledger with running balances; from/to (inclusive) default to the given year
+    @GetMapping("/general-ledger/{accountId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamGeneralLedger(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "2024") int year,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "json") String format) {
+        GeneralLedgerService.Format outputFormat = GeneralLedgerService.Format.parse(format);
+        GeneralLedgerService.Ledger ledger = generalLedgerService.open(companyId, accountId,
+                from != null ? from : LocalDate.of(year, 1, 1),
+                to != null ? to.plusDays(1) : LocalDate.of(year + 1, 1, 1));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (outputFormat == GeneralLedgerService.Format.CSV) {
+            response.contentType(new MediaType("text", "csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"general-ledger-" + accountId + ".csv\"");
+        } else {
+            response.contentType(MediaType.APPLICATION_JSON);
+        }
+        return response.body(out -> generalLedgerService.write(ledger, outputFormat, out));
+    }
+
+    @GetMapping("/general-ledger/{accountId}/opening-balance")
+    public ResponseEntity<java.math.BigDecimal> getOpeningBalance(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "2024") int year) {
+        return ResponseEntity.ok(reportService.getOpeningBalance(companyId, accountId, year));
+    }
+
+    // Open receivables per customer by days past due
+    @GetMapping("/receivables/aging")
+    public ResponseEntity<Map<String, Object>> getReceivablesAging(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        return ResponseEntity.ok(receivablesService.getAging(companyId, asOf != null ? asOf : LocalDate.now()));
+    }
+
+    @GetMapping("/receivables/customers/{customerId}/open-items")
+    public ResponseEntity<List<Map<String, Object>>> getOpenItems(
+            @RequestHeader(value = "X-Company-ID", defaultValue = "1") Long companyId,
+            @PathVariable Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        return ResponseEntity.ok(receivablesService.getOpenItems(companyId, customerId,
+                asOf != null ? asOf : LocalDate.now()));
+    }
 }
@@ -0,0 +1,17 @@
+package com.balancesheet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceDrift {
+    private Long accountId;
+    private String accountName;
+    private BigDecimal stored; // null when the account had no balance row
+    private BigDecimal journal;
+    private BigDecimal difference; // journal - stored
+}
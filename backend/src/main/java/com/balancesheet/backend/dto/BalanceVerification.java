@@ -0,0 +1,20 @@
+package com.balancesheet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceVerification {
+    private Long companyId;
+    private int accountsChecked;
+    private List<BalanceDrift> drifts;
+    private boolean repaired;
+
+    public boolean isConsistent() {
+        return drifts.isEmpty();
+    }
+}
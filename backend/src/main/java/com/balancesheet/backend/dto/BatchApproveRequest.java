@@ -0,0 +1,15 @@
+package com.balancesheet.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchApproveRequest {
+    @NotEmpty(message = "Invoice IDs are required")
+    private List<Long> invoiceIds;
+
+    @NotNull(message = "AR Account ID is required")
+    private Long arAccountId;
+}
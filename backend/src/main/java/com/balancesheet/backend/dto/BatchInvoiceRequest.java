@@ -0,0 +1,13 @@
+package com.balancesheet.backend.dto;
+
+import com.balancesheet.backend.model.Invoice;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchInvoiceRequest {
+    // Invoices are checked one by one so a bad one is reported instead of rejecting the whole batch
+    @NotEmpty(message = "Invoices are required")
+    private List<Invoice> invoices;
+}
@@ -0,0 +1,28 @@
+package com.balancesheet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    public enum Status {
+        POSTED,
+        FAILED
+    }
+
+    private int index; // Position in the submitted list
+    private Status status;
+    private Long id; // Id of the created record when posted
+    private String error;
+
+    public static BatchItemResult posted(int index, Long id) {
+        return new BatchItemResult(index, Status.POSTED, id, null);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, Status.FAILED, null, error);
+    }
+}
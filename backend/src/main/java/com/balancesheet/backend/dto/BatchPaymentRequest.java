@@ -0,0 +1,16 @@
+package com.balancesheet.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchPaymentRequest {
+    @NotNull(message = "Cash Account ID is required")
+    private Long cashAccountId;
+
+    // Items are validated one by one so a bad payment is reported instead of rejecting the whole batch
+    @NotEmpty(message = "Payments are required")
+    private List<PaymentRequest> payments;
+}
@@ -0,0 +1,25 @@
+package com.balancesheet.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BatchResult {
+    private int total;
+    private int posted;
+    private int failed;
+    private long elapsedMillis;
+    private double itemsPerSecond;
+    private List<BatchItemResult> results;
+
+    public BatchResult(List<BatchItemResult> results, long elapsedNanos) {
+        this.results = results;
+        this.total = results.size();
+        this.posted = (int) results.stream().filter(r -> r.getStatus() == BatchItemResult.Status.POSTED).count();
+        this.failed = total - posted;
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.itemsPerSecond = elapsedNanos > 0 ? total * 1_000_000_000d / elapsedNanos : 0;
+    }
+}
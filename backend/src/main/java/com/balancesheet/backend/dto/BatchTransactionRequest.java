@@ -0,0 +1,12 @@
+package com.balancesheet.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchTransactionRequest {
+    // Items are validated one by one so a bad line is reported instead of rejecting the whole batch
+    @NotEmpty(message = "Transactions are required")
+    private List<TransactionRequest> transactions;
+}
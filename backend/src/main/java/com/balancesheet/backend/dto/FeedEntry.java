@@ -0,0 +1,15 @@
+package com.balancesheet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedEntry {
+    private Long accountId;
+    private String accountName;
+    private BigDecimal amount; // Positive = Debit, Negative = Credit
+}
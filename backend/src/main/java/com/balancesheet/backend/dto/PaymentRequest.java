@@ -0,0 +1,18 @@
+package com.balancesheet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRequest {
+    private Long invoiceId;
+    private BigDecimal amount;
+    private LocalDate paymentDate;
+    private String paymentMethod;
+    private String reference;
+}
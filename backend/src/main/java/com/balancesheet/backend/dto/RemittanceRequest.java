@@ -0,0 +1,39 @@
+package com.balancesheet.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// One incoming payment split across invoices
+@Data
+public class RemittanceRequest {
+    @NotNull(message = "Cash Account ID is required")
+    private Long cashAccountId;
+
+    @NotNull(message = "Payment date is required")
+    private LocalDate paymentDate;
+
+    private String paymentMethod;
+    private String reference;
+
+    @NotEmpty(message = "Allocations are required")
+    @Valid
+    private List<Allocation> allocations;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Allocation {
+        @NotNull(message = "Invoice ID is required")
+        private Long invoiceId;
+
+        @NotNull(message = "Amount is required")
+        private BigDecimal amount;
+    }
+}
@@ -0,0 +1,22 @@
+package com.balancesheet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Flat view of a transaction for list screens (no nested account or company)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionFeedItem {
+    private Long id;
+    private LocalDateTime date;
+    private String description;
+    private String currency;
+    private BigDecimal amount; // Total of the debit lines
+    private List<FeedEntry> entries = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.balancesheet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionFeedPage {
+    private List<TransactionFeedItem> items;
+    private String nextCursor; // Pass back as cursor to continue; null on the last page
+}
@@ -0,0 +1,23 @@
+package com.balancesheet.backend.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Optional filters of the transaction feed; all bounds are inclusive
+@Data
+public class TransactionFeedQuery {
+    private String cursor;
+    private Integer limit;
+    private Long accountId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private BigDecimal minAmount; // Compared with the transaction's debit total
+    private BigDecimal maxAmount;
+}
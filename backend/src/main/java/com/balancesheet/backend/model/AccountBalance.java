@@ -0,0 +1,40 @@
+package com.balancesheet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+
+// Running total of an account's journal entries, updated in the same
+// transaction as every posting so all-time reports read one row per account
+@Entity
+@Table(name = "account_balance", indexes = {
+        @Index(name = "idx_account_balance_company", columnList = "company_id")
+})
+@Data
+@NoArgsConstructor
+public class AccountBalance {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    // Read-only mapping so report queries can reach the account's name and type
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", insertable = false, updatable = false)
+    @JsonIgnore
+    private Account account;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    // Positive = Debit, Negative = Credit (same sign convention as JournalEntry)
+    @Column(nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    public AccountBalance(Long accountId, Long companyId, BigDecimal balance) {
+        this.accountId = accountId;
+        this.companyId = companyId;
+        this.balance = balance;
+    }
+}
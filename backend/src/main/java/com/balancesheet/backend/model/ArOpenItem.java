@@ -0,0 +1,66 @@
+package com.balancesheet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Receivables subledger: one row per posted invoice with money still owed,
+// maintained on approval and payment and removed once the invoice is paid.
+// Aging and open-item reports read this table instead of invoices and payments.
+@Entity
+@Table(name = "ar_open_item", indexes = {
+        @Index(name = "idx_ar_open_item_customer_due", columnList = "company_id, customer_id, due_date")
+})
+@Data
+@NoArgsConstructor
+public class ArOpenItem {
+    @Id
+    @Column(name = "invoice_id")
+    private Long invoiceId;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    // Read-only mapping so aging can group by customer name
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", insertable = false, updatable = false)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Customer customer;
+
+    @Column(name = "invoice_number", nullable = false)
+    private String invoiceNumber;
+
+    @Column(name = "invoice_date", nullable = false)
+    private LocalDate invoiceDate;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    // Invoice total and what is still open
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "open_amount", nullable = false)
+    private BigDecimal openAmount;
+
+    public ArOpenItem(Invoice invoice) {
+        this.invoiceId = invoice.getId();
+        this.companyId = invoice.getCompany().getId();
+        this.customerId = invoice.getCustomer().getId();
+        this.invoiceNumber = invoice.getInvoiceNumber();
+        this.invoiceDate = invoice.getDate();
+        this.dueDate = invoice.getDueDate();
+        this.amount = invoice.getTotalAmount();
+        this.openAmount = invoice.getOpenBalance();
+    }
+}
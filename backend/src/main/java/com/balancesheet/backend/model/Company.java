@@ -19,4 +19,13 @@ public class Company {
 
     @Column(nullable = false)
     private String currency = "USD";
+
+    // Invoice number pattern, e.g. INV-{year}-{seq:5}; null uses ledger.invoice-number.format
+    private String invoiceNumberFormat;
+
+    public Company(Long id, String name, String currency) {
+        this.id = id;
+        this.name = name;
+        this.currency = currency;
+    }
 }
@@ -0,0 +1,56 @@
+package com.balancesheet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Debit and credit movement of one account on one day. Maintained on posting so
+// date-range reports sum a few rows per account and day instead of raw entries.
+@Entity
+@Table(name = "daily_account_balance", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "account_id", "posting_day" })
+}, indexes = {
+        @Index(name = "idx_daily_balance_company_day", columnList = "company_id, posting_day")
+})
+@Data
+@NoArgsConstructor
+public class DailyAccountBalance {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_account_balance_seq")
+    @SequenceGenerator(name = "daily_account_balance_seq", sequenceName = "daily_account_balance_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    // Read-only mapping so report queries can group by account and type
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", insertable = false, updatable = false)
+    @JsonIgnore
+    private Account account;
+
+    @Column(name = "posting_day", nullable = false)
+    private LocalDate day;
+
+    // Sum of positive entry amounts
+    @Column(nullable = false)
+    private BigDecimal debit = BigDecimal.ZERO;
+
+    // Sum of negative entry amounts, stored as a positive number
+    @Column(nullable = false)
+    private BigDecimal credit = BigDecimal.ZERO;
+
+    public DailyAccountBalance(Long companyId, Long accountId, LocalDate day, BigDecimal debit, BigDecimal credit) {
+        this.companyId = companyId;
+        this.accountId = accountId;
+        this.day = day;
+        this.debit = debit;
+        this.credit = credit;
+    }
+}
@@ -10,6 +10,13 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "company_id", "invoice_number" })
+}, indexes = {
+        @Index(name = "idx_invoice_numbering", columnList = "company_id, number_year, number_sequence"),
+        // Open invoices of a company (status POSTED) with their open balance
+        @Index(name = "idx_invoice_company_status", columnList = "company_id, status, open_balance")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,9 +25,17 @@ public class Invoice {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(name = "invoice_number", nullable = false)
     private String invoiceNumber; // e.g., INV-2023-001
 
+    // Year and position in the company's numbering when the number was
+    // allocated; null for numbers entered by hand
+    @Column(name = "number_year")
+    private Integer numberYear;
+
+    @Column(name = "number_sequence")
+    private Long numberSequence;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
@@ -43,6 +58,18 @@ public class Invoice {
     // Total Amount (calculated or stored)
     private BigDecimal totalAmount;
 
+    // Sum of recorded payments and what is left to collect; maintained by
+    // PaymentService together with the status
+    @Column(name = "amount_paid")
+    private BigDecimal amountPaid = BigDecimal.ZERO;
+
+    @Column(name = "open_balance")
+    private BigDecimal openBalance;
+
+    // Concurrent payments on one invoice fail the later commit instead of losing an update
+    @Version
+    private Long version;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "company_id", nullable = false)
     private Company company;
@@ -51,4 +78,9 @@ public class Invoice {
     @OneToOne
     @JoinColumn(name = "transaction_id")
     private Transaction transaction;
+
+    // Receivable account debited when the invoice was posted; payments credit it
+    @ManyToOne
+    @JoinColumn(name = "ar_account_id")
+    private Account arAccount;
 }
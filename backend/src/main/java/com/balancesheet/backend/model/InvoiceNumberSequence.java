@@ -0,0 +1,34 @@
+package com.balancesheet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Next unreserved invoice number of one company in one year. Instances reserve
+// numbers from it in blocks and hand them out from memory.
+@Entity
+@Table(name = "invoice_number_sequence", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "company_id", "sequence_year" })
+})
+@Data
+@NoArgsConstructor
+public class InvoiceNumberSequence {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "sequence_year", nullable = false)
+    private Integer sequenceYear;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    public InvoiceNumberSequence(Long companyId, Integer sequenceYear, Long nextValue) {
+        this.companyId = companyId;
+        this.sequenceYear = sequenceYear;
+        this.nextValue = nextValue;
+    }
+}
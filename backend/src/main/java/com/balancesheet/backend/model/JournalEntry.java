@@ -5,15 +5,26 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
+@Table(indexes = {
+        // Company-wide aggregates over a date range
+        @Index(name = "idx_journal_entry_company_date", columnList = "company_id, posting_date"),
+        // Account ledgers over a date range
+        @Index(name = "idx_journal_entry_company_account_date", columnList = "company_id, account_id, posting_date"),
+        // Loading the entries of a set of transactions
+        @Index(name = "idx_journal_entry_transaction", columnList = "transaction_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class JournalEntry {
+    // Pooled sequence ids let Hibernate batch inserts (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "journal_entry_seq")
+    @SequenceGenerator(name = "journal_entry_seq", sequenceName = "journal_entry_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -28,4 +39,28 @@ public class JournalEntry {
     // Positive = Debit, Negative = Credit
     @Column(nullable = false)
     private BigDecimal amount;
+
+    // Copies of account.company and transaction.date so reports filter this table
+    // alone; filled in on persist, existing rows are backfilled at startup
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(name = "posting_date")
+    private LocalDate postingDate;
+
+    public JournalEntry(Long id, Transaction transaction, Account account, BigDecimal amount) {
+        this.id = id;
+        this.transaction = transaction;
+        this.account = account;
+        this.amount = amount;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void denormalize() {
+        companyId = account.getCompany().getId();
+        if (transaction != null) {
+            postingDate = transaction.getDate().toLocalDate();
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.balancesheet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Number of committed ledger changes of one company. Cached report results
+// are keyed by it, so every instance sees another one's postings.
+@Entity
+@Table(name = "ledger_version")
+@Data
+@NoArgsConstructor
+public class LedgerVersion {
+    @Id
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(nullable = false)
+    private long version;
+}
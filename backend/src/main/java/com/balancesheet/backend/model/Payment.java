@@ -12,8 +12,10 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Payment {
+    // Pooled sequence ids so a payment is inserted in the same flush as its posting
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+    @SequenceGenerator(name = "payment_seq", sequenceName = "payment_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -38,8 +40,9 @@ public class Payment {
     @JoinColumn(name = "company_id", nullable = false)
     private Company company;
 
-    // Link to the Journal Transaction created for this payment
-    @OneToOne
+    // Link to the Journal Transaction created for this payment; a remittance
+    // across several invoices shares one transaction between its payments
+    @ManyToOne
     @JoinColumn(name = "transaction_id")
     private Transaction transaction;
 }
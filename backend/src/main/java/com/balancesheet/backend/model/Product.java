@@ -26,7 +26,9 @@ public class Product {
 
     private BigDecimal costPrice;
 
-    @Column(nullable = false)
+    // Changed only through StockService, as an in-database increment; never
+    // written back from a loaded entity, which could undo concurrent movements
+    @Column(nullable = false, updatable = false)
     private int quantityOnHand = 0;
 
     @ManyToOne(optional = false)
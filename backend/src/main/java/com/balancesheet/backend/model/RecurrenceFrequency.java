@@ -0,0 +1,8 @@
+package com.balancesheet.backend.model;
+
+public enum RecurrenceFrequency {
+    WEEKLY,
+    MONTHLY,
+    QUARTERLY,
+    YEARLY
+}
@@ -8,6 +8,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        // Due items are claimed by next run date
+        @Index(name = "idx_recurring_next_run", columnList = "next_run_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,7 +40,7 @@ public class RecurringTransaction {
 
     // Scheduling
     @Column(nullable = false)
-    private int dayOfMonth; // 1-31
+    private int dayOfMonth; // 1-31; unused for weekly items
 
     @Column(nullable = false)
     private LocalDate nextRunDate;
@@ -51,4 +55,12 @@ public class RecurringTransaction {
     @ManyToOne(optional = false)
     @JoinColumn(name = "company_id", nullable = false)
     private Company company;
+
+    // Null on rows created before frequencies existed; those are monthly
+    @Enumerated(EnumType.STRING)
+    private RecurrenceFrequency frequency;
+
+    public RecurrenceFrequency getFrequency() {
+        return frequency != null ? frequency : RecurrenceFrequency.MONTHLY;
+    }
 }
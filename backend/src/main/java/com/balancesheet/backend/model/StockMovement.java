@@ -0,0 +1,56 @@
+package com.balancesheet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+// Append-only stock ledger: every change to a product's quantity on hand is a
+// row here, and the product's quantity is the sum of its movements
+@Entity
+@Table(name = "stock_movement", indexes = {
+        @Index(name = "idx_stock_movement_product", columnList = "product_id, id")
+})
+@Data
+@NoArgsConstructor
+public class StockMovement {
+    // Pooled sequence ids so a posting's movements go out as one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movement_seq")
+    @SequenceGenerator(name = "stock_movement_seq", sequenceName = "stock_movement_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockMovementType type;
+
+    // Signed change in units: negative when stock leaves
+    @Column(nullable = false)
+    private int quantity;
+
+    // Set for sales: the invoice whose posting took the stock
+    @Column(name = "invoice_id")
+    private Long invoiceId;
+
+    private String note;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public StockMovement(Long companyId, Long productId, StockMovementType type, int quantity, Long invoiceId,
+            String note) {
+        this.companyId = companyId;
+        this.productId = productId;
+        this.type = type;
+        this.quantity = quantity;
+        this.invoiceId = invoiceId;
+        this.note = note;
+        this.createdAt = LocalDateTime.now();
+    }
+}
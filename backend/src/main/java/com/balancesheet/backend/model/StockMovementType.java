@@ -0,0 +1,7 @@
+package com.balancesheet.backend.model;
+
+public enum StockMovementType {
+    OPENING,
+    ADJUSTMENT,
+    SALE
+}
@@ -9,12 +9,18 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
+@Table(indexes = {
+        // Company-scoped date ranges (year filters, feeds) seek on this
+        @Index(name = "idx_transaction_company_date", columnList = "company_id, date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
+    // Pooled sequence ids let Hibernate batch inserts (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,43 @@
+package com.balancesheet.backend.repository;
+
+import com.balancesheet.backend.model.AccountBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AccountBalanceRepository extends JpaRepository<AccountBalance, Long> {
+        // Rows are locked in account id order so concurrent postings cannot deadlock
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT b FROM AccountBalance b WHERE b.accountId IN :accountIds ORDER BY b.accountId")
+        List<AccountBalance> findAllForUpdate(Collection<Long> accountIds);
+
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT b FROM AccountBalance b WHERE b.companyId = :companyId ORDER BY b.accountId")
+        List<AccountBalance> findByCompanyIdForUpdate(Long companyId);
+
+        @Query("SELECT b.accountId FROM AccountBalance b WHERE b.accountId IN :accountIds")
+        List<Long> findExistingAccountIds(Collection<Long> accountIds);
+
+        @Query("SELECT a.id FROM Account a WHERE a.company.id = :companyId AND NOT EXISTS (SELECT 1 FROM AccountBalance b WHERE b.accountId = a.id)")
+        List<Long> findAccountIdsWithoutBalance(Long companyId);
+
+        // Creates the accounts' missing rows holding their committed journal total
+        @Modifying
+        @Query(value = "INSERT INTO account_balance (account_id, company_id, balance) "
+                        + "SELECT a.id, a.company_id, "
+                        + "COALESCE((SELECT SUM(e.amount) FROM journal_entry e WHERE e.account_id = a.id), 0) "
+                        + "FROM account a WHERE a.id IN :accountIds "
+                        + "AND NOT EXISTS (SELECT 1 FROM account_balance b WHERE b.account_id = a.id)", nativeQuery = true)
+        int insertMissing(Collection<Long> accountIds);
+
+        @Query("SELECT b.account.type, SUM(b.balance) FROM AccountBalance b WHERE b.companyId = :companyId GROUP BY b.account.type")
+        List<Object[]> sumByAccountType(Long companyId);
+
+        @Query("SELECT b.account, b.balance FROM AccountBalance b WHERE b.companyId = :companyId AND b.balance <> 0")
+        List<Object[]> findNonZeroBalances(Long companyId);
+}
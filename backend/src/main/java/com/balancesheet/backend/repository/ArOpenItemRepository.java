@@ -0,0 +1,65 @@
+package com.balancesheet.backend.repository;
+
+import com.balancesheet.backend.model.ArOpenItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface ArOpenItemRepository extends JpaRepository<ArOpenItem, Long> {
+    @Query("SELECT o FROM ArOpenItem o WHERE o.companyId = :companyId AND o.customerId = :customerId ORDER BY o.dueDate, o.invoiceId")
+    List<ArOpenItem> findOpenItems(Long companyId, Long customerId);
+
+    List<ArOpenItem> findByCompanyId(Long companyId);
+
+    // Rows: customer id, name, then the open amount not yet due, 1-30, 31-60,
+    // 61-90 and over 90 days past due. The bounds are the first due date of
+    // each bucket counting back from the report day.
+    @Query("SELECT o.customerId, c.name, "
+            + "SUM(CASE WHEN o.dueDate >= :current THEN o.openAmount ELSE 0 END), "
+            + "SUM(CASE WHEN o.dueDate < :current AND o.dueDate >= :days30 THEN o.openAmount ELSE 0 END), "
+            + "SUM(CASE WHEN o.dueDate < :days30 AND o.dueDate >= :days60 THEN o.openAmount ELSE 0 END), "
+            + "SUM(CASE WHEN o.dueDate < :days60 AND o.dueDate >= :days90 THEN o.openAmount ELSE 0 END), "
+            + "SUM(CASE WHEN o.dueDate < :days90 THEN o.openAmount ELSE 0 END) "
+            + "FROM ArOpenItem o JOIN o.customer c WHERE o.companyId = :companyId "
+            + "GROUP BY o.customerId, c.name ORDER BY c.name, o.customerId")
+    List<Object[]> sumAgingByCustomer(Long companyId, LocalDate current, LocalDate days30, LocalDate days60,
+            LocalDate days90);
+
+    @Modifying
+    @Query("UPDATE ArOpenItem o SET o.openAmount = :openAmount WHERE o.invoiceId = :invoiceId")
+    int updateOpenAmount(Long invoiceId, BigDecimal openAmount);
+
+    @Modifying
+    @Query("DELETE FROM ArOpenItem o WHERE o.invoiceId = :invoiceId")
+    int deleteByInvoiceId(Long invoiceId);
+
+    @Modifying
+    @Query("DELETE FROM ArOpenItem o WHERE o.invoiceId IN :invoiceIds")
+    int deleteByInvoiceIds(Collection<Long> invoiceIds);
+
+    @Modifying
+    @Query("DELETE FROM ArOpenItem o WHERE o.companyId = :companyId")
+    int deleteByCompanyId(Long companyId);
+
+    // Recreates the company's open items from its posted invoices
+    @Modifying
+    @Query("INSERT INTO ArOpenItem (invoiceId, companyId, customerId, invoiceNumber, invoiceDate, dueDate, amount, openAmount) "
+            + "SELECT i.id, i.company.id, i.customer.id, i.invoiceNumber, i.date, i.dueDate, i.totalAmount, i.openBalance "
+            + "FROM Invoice i WHERE i.company.id = :companyId "
+            + "AND i.status = com.balancesheet.backend.model.InvoiceStatus.POSTED AND i.openBalance > 0")
+    int insertFromInvoices(Long companyId);
+
+    // Adds the rows missing for the company's open posted invoices, e.g. ones that predate the table
+    @Modifying
+    @Query("INSERT INTO ArOpenItem (invoiceId, companyId, customerId, invoiceNumber, invoiceDate, dueDate, amount, openAmount) "
+            + "SELECT i.id, i.company.id, i.customer.id, i.invoiceNumber, i.date, i.dueDate, i.totalAmount, i.openBalance "
+            + "FROM Invoice i WHERE i.company.id = :companyId "
+            + "AND i.status = com.balancesheet.backend.model.InvoiceStatus.POSTED AND i.openBalance > 0 "
+            + "AND NOT EXISTS (SELECT 1 FROM ArOpenItem o WHERE o.invoiceId = i.id)")
+    int insertMissing(Long companyId);
+}
@@ -0,0 +1,58 @@
+package com.balancesheet.backend.repository;
+
+import com.balancesheet.backend.model.AccountType;
+import com.balancesheet.backend.model.DailyAccountBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+// Date ranges are half-open: from is inclusive, to is exclusive
+public interface DailyAccountBalanceRepository extends JpaRepository<DailyAccountBalance, Long> {
+        List<DailyAccountBalance> findByAccountIdInAndDayIn(Collection<Long> accountIds, Collection<LocalDate> days);
+
+        // Rows: account id, debit total, credit total
+        @Query("SELECT d.accountId, SUM(d.debit), SUM(d.credit) FROM DailyAccountBalance d WHERE d.companyId = :companyId GROUP BY d.accountId")
+        List<Object[]> sumMovementByAccount(Long companyId);
+
+        @Modifying
+        @Query("DELETE FROM DailyAccountBalance d WHERE d.companyId = :companyId")
+        int deleteByCompanyId(Long companyId);
+
+        @Modifying
+        @Query("DELETE FROM DailyAccountBalance d WHERE d.accountId IN :accountIds")
+        int deleteByAccountIdIn(Collection<Long> accountIds);
+
+        @Query("SELECT d.account.type, SUM(d.debit - d.credit) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.day >= :from AND d.day < :to GROUP BY d.account.type")
+        List<Object[]> sumByAccountTypeBetween(Long companyId, LocalDate from, LocalDate to);
+
+        @Query("SELECT d.account, SUM(d.debit - d.credit) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.day >= :from AND d.day < :to GROUP BY d.account")
+        List<Object[]> sumByAccountBetween(Long companyId, LocalDate from, LocalDate to);
+
+        @Query("SELECT COALESCE(SUM(d.debit - d.credit), 0) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.accountId = :accountId AND d.day < :day")
+        BigDecimal sumBefore(Long companyId, Long accountId, LocalDate day);
+
+        @Query("SELECT COALESCE(SUM(d.debit - d.credit), 0) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.account.type = :type AND d.day < :day")
+        BigDecimal sumByAccountTypeBefore(Long companyId, AccountType type, LocalDate day);
+
+        @Query("SELECT d.day, SUM(d.debit - d.credit) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.account.type = :type AND d.day >= :from AND d.day < :to GROUP BY d.day ORDER BY d.day")
+        List<Object[]> sumDailyByAccountTypeBetween(Long companyId, AccountType type, LocalDate from, LocalDate to);
+
+        // Rows: account id, year, month, net amount; one grouped pass for calendar-aligned periods
+        @Query("SELECT d.accountId, YEAR(d.day), MONTH(d.day), SUM(d.debit - d.credit) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.account.type IN :types AND d.day >= :from AND d.day < :to GROUP BY d.accountId, YEAR(d.day), MONTH(d.day)")
+        List<Object[]> sumByAccountAndMonthBetween(Long companyId, Collection<AccountType> types, LocalDate from,
+                        LocalDate to);
+
+        // Rows: account id, day, net amount; used for periods that do not start on the 1st
+        @Query("SELECT d.accountId, d.day, SUM(d.debit - d.credit) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.account.type IN :types AND d.day >= :from AND d.day < :to GROUP BY d.accountId, d.day")
+        List<Object[]> sumByAccountAndDayBetween(Long companyId, Collection<AccountType> types, LocalDate from,
+                        LocalDate to);
+
+        // Rows: account id, balance before first, balance before second; one pass over days before the later date
+        @Query("SELECT d.accountId, SUM(CASE WHEN d.day < :first THEN d.debit - d.credit ELSE 0 END), SUM(CASE WHEN d.day < :second THEN d.debit - d.credit ELSE 0 END) FROM DailyAccountBalance d WHERE d.companyId = :companyId AND d.day < :until GROUP BY d.accountId")
+        List<Object[]> sumByAccountBeforeEach(Long companyId, LocalDate first, LocalDate second, LocalDate until);
+}
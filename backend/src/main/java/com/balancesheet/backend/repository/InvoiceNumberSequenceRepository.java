@@ -0,0 +1,17 @@
+package com.balancesheet.backend.repository;
+
+import com.balancesheet.backend.model.InvoiceNumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface InvoiceNumberSequenceRepository extends JpaRepository<InvoiceNumberSequence, Long> {
+    // Moves the counter past a block; the row stays locked until the transaction commits
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE InvoiceNumberSequence s SET s.nextValue = s.nextValue + :size WHERE s.companyId = :companyId AND s.sequenceYear = :year")
+    int advance(Long companyId, Integer year, long size);
+
+    Optional<InvoiceNumberSequence> findByCompanyIdAndSequenceYear(Long companyId, Integer year);
+}
@@ -1,11 +1,49 @@
 package com.balancesheet.backend.repository;
 
 import com.balancesheet.backend.model.Invoice;
+import com.balancesheet.backend.model.InvoiceStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     List<Invoice> findByCompanyId(Long companyId);
 
     List<Invoice> findByCompanyIdAndCustomerId(Long companyId, Long customerId);
+
+    List<Invoice> findByCompanyIdAndStatus(Long companyId, InvoiceStatus status);
+
+    // Invoices with everything their posting reads, in one query
+    @Query("SELECT DISTINCT i FROM Invoice i JOIN FETCH i.customer LEFT JOIN FETCH i.items it LEFT JOIN FETCH it.revenueAccount LEFT JOIN FETCH it.product WHERE i.id IN :ids")
+    List<Invoice> findAllForPosting(Collection<Long> ids);
+
+    // Invoices with everything a payment reads and writes, in one query
+    @Query("SELECT i FROM Invoice i JOIN FETCH i.company JOIN FETCH i.customer LEFT JOIN FETCH i.arAccount LEFT JOIN FETCH i.transaction WHERE i.id IN :ids")
+    List<Invoice> findAllForPayment(Collection<Long> ids);
+
+    @Query("SELECT i.numberSequence FROM Invoice i WHERE i.company.id = :companyId AND i.numberYear = :year ORDER BY i.numberSequence")
+    List<Long> findNumberSequences(Long companyId, Integer year);
+
+    // Fills the payment totals and version on rows written before those columns existed
+    @Transactional
+    @Modifying
+    @Query("UPDATE Invoice i SET "
+            + "i.amountPaid = COALESCE((SELECT SUM(p.amount) FROM Payment p WHERE p.invoice.id = i.id), 0), "
+            + "i.openBalance = i.totalAmount - COALESCE((SELECT SUM(p.amount) FROM Payment p WHERE p.invoice.id = i.id), 0), "
+            + "i.version = COALESCE(i.version, 0) "
+            + "WHERE i.openBalance IS NULL")
+    int backfillPaymentTotals();
+
+    // Sets the AR account of invoices posted before it was stored: the asset
+    // account debited by their posting
+    @Transactional
+    @Modifying
+    @Query("UPDATE Invoice i SET i.arAccount = (SELECT a FROM Account a WHERE a.id = "
+            + "(SELECT MIN(e.account.id) FROM JournalEntry e WHERE e.transaction.id = i.transaction.id "
+            + "AND e.amount > 0 AND e.account.type = com.balancesheet.backend.model.AccountType.ASSET)) "
+            + "WHERE i.arAccount IS NULL AND i.transaction IS NOT NULL")
+    int backfillArAccount();
 }
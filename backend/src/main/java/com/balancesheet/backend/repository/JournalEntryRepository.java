@@ -2,36 +2,61 @@ package com.balancesheet.backend.repository;
 
 import com.balancesheet.backend.model.JournalEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
-        @Query("SELECT e.account.type, SUM(e.amount) FROM JournalEntry e WHERE e.account.company.id = :companyId GROUP BY e.account.type")
-        List<Object[]> sumByAccountType(Long companyId);
-
-        @Query("SELECT e.account, SUM(e.amount) FROM JournalEntry e WHERE e.account.company.id = :companyId GROUP BY e.account")
-        List<Object[]> sumByAccount(Long companyId);
-
-        @Query("SELECT e.account.type, SUM(e.amount) FROM JournalEntry e WHERE e.account.company.id = :companyId AND YEAR(e.transaction.date) = :year GROUP BY e.account.type")
-        List<Object[]> sumByAccountTypeAndYear(Long companyId, int year);
-
-        @Query("SELECT e.account, SUM(e.amount) FROM JournalEntry e WHERE e.account.company.id = :companyId AND YEAR(e.transaction.date) = :year GROUP BY e.account")
-        List<Object[]> sumByAccountAndYear(Long companyId, int year);
-
         List<JournalEntry> findByTransactionId(Long transactionId);
 
-        // New Queries for Reports
-
-        @Query("SELECT e.account.type, SUM(e.amount) FROM JournalEntry e WHERE e.account.company.id = :companyId AND e.transaction.date BETWEEN :startDate AND :endDate GROUP BY e.account.type")
-        List<Object[]> sumByAccountTypeAndDateRange(Long companyId, java.time.LocalDateTime startDate,
-                        java.time.LocalDateTime endDate);
+        // Rows: transaction id, account id, account name, amount
+        @Query("SELECT e.transaction.id, e.account.id, e.account.name, e.amount FROM JournalEntry e WHERE e.transaction.id IN :transactionIds ORDER BY e.transaction.id, e.id")
+        List<Object[]> findFeedLines(Collection<Long> transactionIds);
+
+        @Query("SELECT e.account.id, SUM(e.amount) FROM JournalEntry e WHERE e.companyId = :companyId GROUP BY e.account.id")
+        List<Object[]> sumByAccountId(Long companyId);
+
+        // Rows: account id, day, debit total, credit total (positive)
+        @Query("SELECT e.account.id, e.postingDate, "
+                        + "SUM(CASE WHEN e.amount > 0 THEN e.amount ELSE 0 END), "
+                        + "SUM(CASE WHEN e.amount < 0 THEN -e.amount ELSE 0 END) "
+                        + "FROM JournalEntry e WHERE e.companyId = :companyId "
+                        + "GROUP BY e.account.id, e.postingDate")
+        List<Object[]> sumDailyMovementByAccount(Long companyId);
+
+        // Same rows for some accounts only
+        @Query("SELECT e.account.id, e.postingDate, "
+                        + "SUM(CASE WHEN e.amount > 0 THEN e.amount ELSE 0 END), "
+                        + "SUM(CASE WHEN e.amount < 0 THEN -e.amount ELSE 0 END) "
+                        + "FROM JournalEntry e WHERE e.companyId = :companyId AND e.account.id IN :accountIds "
+                        + "GROUP BY e.account.id, e.postingDate")
+        List<Object[]> sumDailyMovementByAccountIn(Long companyId, Collection<Long> accountIds);
+
+        // Rows: account id, debit total, credit total (positive)
+        @Query("SELECT e.account.id, "
+                        + "SUM(CASE WHEN e.amount > 0 THEN e.amount ELSE 0 END), "
+                        + "SUM(CASE WHEN e.amount < 0 THEN -e.amount ELSE 0 END) "
+                        + "FROM JournalEntry e WHERE e.companyId = :companyId GROUP BY e.account.id")
+        List<Object[]> sumMovementByAccount(Long companyId);
 
-        @Query("SELECT e.account, SUM(e.amount) FROM JournalEntry e WHERE e.account.company.id = :companyId AND e.transaction.date BETWEEN :startDate AND :endDate GROUP BY e.account")
-        List<Object[]> sumByAccountAndDateRange(Long companyId, java.time.LocalDateTime startDate,
-                        java.time.LocalDateTime endDate);
-
-        @Query("SELECT e FROM JournalEntry e WHERE e.account.company.id = :companyId AND e.account.id = :accountId AND e.transaction.date BETWEEN :startDate AND :endDate ORDER BY e.transaction.date DESC")
-        List<JournalEntry> findByAccountAndDateRange(Long companyId, Long accountId, java.time.LocalDateTime startDate,
-                        java.time.LocalDateTime endDate);
+        // New Queries for Reports
+        // (aggregates over date ranges are served by DailyAccountBalanceRepository)
+
+        // Half-open range [startDate, endDate)
+        @Query("SELECT e FROM JournalEntry e WHERE e.companyId = :companyId AND e.account.id = :accountId AND e.postingDate >= :startDate AND e.postingDate < :endDate ORDER BY e.postingDate DESC, e.id DESC")
+        List<JournalEntry> findByAccountAndDateRange(Long companyId, Long accountId, LocalDate startDate,
+                        LocalDate endDate);
+
+        // Fills company_id and posting_date on rows written before those columns existed
+        @Transactional
+        @Modifying
+        @Query("UPDATE JournalEntry e SET "
+                        + "e.companyId = (SELECT a.company.id FROM Account a WHERE a.id = e.account.id), "
+                        + "e.postingDate = (SELECT CAST(t.date AS LocalDate) FROM Transaction t WHERE t.id = e.transaction.id) "
+                        + "WHERE e.companyId IS NULL OR e.postingDate IS NULL")
+        int backfillCompanyAndPostingDate();
 }
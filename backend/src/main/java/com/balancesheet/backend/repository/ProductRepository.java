@@ -2,8 +2,14 @@ package com.balancesheet.backend.repository;
 
 import com.balancesheet.backend.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCompanyId(Long companyId);
+
+    boolean existsByIdAndCompanyId(Long id, Long companyId);
+
+    @Query("SELECT p.id FROM Product p WHERE p.company.id = :companyId")
+    List<Long> findIdsByCompanyId(Long companyId);
 }
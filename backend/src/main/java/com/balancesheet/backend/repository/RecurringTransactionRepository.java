@@ -1,12 +1,44 @@
 package com.balancesheet.backend.repository;
 
 import com.balancesheet.backend.model.RecurringTransaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface RecurringTransactionRepository extends JpaRepository<RecurringTransaction, Long> {
-    List<RecurringTransaction> findByNextRunDateBefore(LocalDate date);
-
     List<RecurringTransaction> findByCompanyId(Long companyId);
+
+    // Locks due items in id order, skipping rows another scheduler already holds
+    // (FOR UPDATE SKIP LOCKED; lock timeout -2 is Hibernate's skip-locked value)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM RecurringTransaction r WHERE r.nextRunDate <= :date AND r.id > :afterId ORDER BY r.id")
+    List<RecurringTransaction> claimDue(LocalDate date, Long afterId, Limit limit);
+
+    // Same, limited to the given items
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM RecurringTransaction r WHERE r.id IN :ids AND r.nextRunDate <= :date AND r.id > :afterId ORDER BY r.id")
+    List<RecurringTransaction> claimDueAmong(Collection<Long> ids, LocalDate date, Long afterId, Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM RecurringTransaction r WHERE r.id = :id AND r.nextRunDate <= :date")
+    Optional<RecurringTransaction> claimDueById(Long id, LocalDate date);
+
+    // Rows: id, next run date; what the in-memory schedule needs
+    @Query("SELECT r.id, r.nextRunDate FROM RecurringTransaction r")
+    List<Object[]> findSchedule();
+
+    @Query("SELECT r.id, r.nextRunDate FROM RecurringTransaction r WHERE r.id IN :ids")
+    List<Object[]> findScheduleByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,19 @@
+package com.balancesheet.backend.repository;
+
+import com.balancesheet.backend.model.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    List<StockMovement> findByCompanyIdAndProductIdOrderByIdDesc(Long companyId, Long productId);
+
+    @Query("SELECT COALESCE(SUM(m.quantity), 0) FROM StockMovement m WHERE m.productId = :productId")
+    long sumQuantity(Long productId);
+
+    // Products with stock but no movements yet: created before the ledger existed
+    @Query("SELECT p.id FROM Product p WHERE p.quantityOnHand <> 0 "
+            + "AND NOT EXISTS (SELECT 1 FROM StockMovement m WHERE m.productId = p.id)")
+    List<Long> findProductsWithoutMovements();
+}
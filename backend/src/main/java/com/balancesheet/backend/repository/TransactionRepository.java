@@ -6,11 +6,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByCompanyIdOrderByDateDesc(Long companyId);
 
-    @Query("SELECT t FROM Transaction t WHERE t.company.id = :companyId AND YEAR(t.date) = :year ORDER BY t.date DESC")
-    List<Transaction> findByCompanyIdAndYear(@Param("companyId") Long companyId, @Param("year") int year);
+    // Half-open range [from, to) so the (company_id, date) index can be used
+    @Query("SELECT t FROM Transaction t WHERE t.company.id = :companyId AND t.date >= :from AND t.date < :to ORDER BY t.date DESC")
+    List<Transaction> findByCompanyIdAndDateRange(@Param("companyId") Long companyId,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
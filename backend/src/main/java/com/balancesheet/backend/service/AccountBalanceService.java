@@ -0,0 +1,176 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BalanceDrift;
+import com.balancesheet.backend.dto.BalanceVerification;
+import com.balancesheet.backend.model.Account;
+import com.balancesheet.backend.model.AccountBalance;
+import com.balancesheet.backend.model.JournalEntry;
+import com.balancesheet.backend.repository.AccountBalanceRepository;
+import com.balancesheet.backend.repository.AccountRepository;
+import com.balancesheet.backend.repository.JournalEntryRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the account_balance table. Postings add their entries here inside
+ * the posting transaction; verify() recomputes balances from the journal to
+ * detect (and optionally repair) drift. An account without a row (one that
+ * predates the table) gets one holding its journal total before its first
+ * posting applies, so postings made before the startup backfill lose nothing.
+ */
+@Service
+public class AccountBalanceService {
+
+    private static final int MAX_SEED_ATTEMPTS = 3;
+
+    private final AccountBalanceRepository balanceRepository;
+    private final AccountRepository accountRepository;
+    private final JournalEntryRepository journalEntryRepository;
+    private final LedgerVersions ledgerVersions;
+    private final org.springframework.transaction.support.TransactionTemplate newTransaction;
+    // Accounts known to have a row; rows are never deleted, so this only grows
+    private final Set<Long> withRow = ConcurrentHashMap.newKeySet();
+
+    public AccountBalanceService(AccountBalanceRepository balanceRepository, AccountRepository accountRepository,
+            JournalEntryRepository journalEntryRepository, LedgerVersions ledgerVersions,
+            PlatformTransactionManager transactionManager) {
+        this.balanceRepository = balanceRepository;
+        this.accountRepository = accountRepository;
+        this.journalEntryRepository = journalEntryRepository;
+        this.ledgerVersions = ledgerVersions;
+        this.newTransaction = new org.springframework.transaction.support.TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Creates the zero row up front so postings only ever update
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void open(Account account) {
+        balanceRepository.save(new AccountBalance(account.getId(), account.getCompany().getId(), BigDecimal.ZERO));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Collection<JournalEntry> entries) {
+        // Sorted so rows are always locked in the same order
+        SortedMap<Long, BigDecimal> deltas = new TreeMap<>();
+        Map<Long, Long> companyByAccount = new HashMap<>();
+        for (JournalEntry entry : entries) {
+            Account account = entry.getAccount();
+            deltas.merge(account.getId(), entry.getAmount(), BigDecimal::add);
+            companyByAccount.putIfAbsent(account.getId(), account.getCompany().getId());
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Set<Long> unknown = new HashSet<>(deltas.keySet());
+        unknown.removeAll(withRow);
+        if (!unknown.isEmpty()) {
+            unknown.removeAll(balanceRepository.findExistingAccountIds(unknown));
+            if (!unknown.isEmpty()) {
+                seed(unknown);
+            }
+            withRow.addAll(deltas.keySet());
+        }
+
+        Map<Long, AccountBalance> rows = balanceRepository.findAllForUpdate(deltas.keySet()).stream()
+                .collect(Collectors.toMap(AccountBalance::getAccountId, Function.identity()));
+
+        List<AccountBalance> created = new ArrayList<>();
+        deltas.forEach((accountId, delta) -> {
+            AccountBalance row = rows.get(accountId);
+            if (row == null) {
+                // Account created in this transaction without open(), so it has no earlier entries
+                withRow.remove(accountId);
+                created.add(new AccountBalance(accountId, companyByAccount.get(accountId), delta));
+            } else {
+                // Managed entity; the update is flushed (and batched) with the posting
+                row.setBalance(row.getBalance().add(delta));
+            }
+        });
+        balanceRepository.saveAll(created);
+    }
+
+    @Transactional
+    public BalanceVerification verify(Long companyId, boolean repair) {
+        // Locking the company's rows first means postings committed meanwhile are either
+        // fully in the journal sum below or still waiting to apply their delta afterwards
+        Map<Long, AccountBalance> stored = balanceRepository.findByCompanyIdForUpdate(companyId).stream()
+                .collect(Collectors.toMap(AccountBalance::getAccountId, Function.identity()));
+
+        Map<Long, BigDecimal> journal = new HashMap<>();
+        for (Object[] row : journalEntryRepository.sumByAccountId(companyId)) {
+            journal.put((Long) row[0], (BigDecimal) row[1]);
+        }
+
+        List<Account> accounts = accountRepository.findByCompanyId(companyId);
+        List<BalanceDrift> drifts = new ArrayList<>();
+        List<AccountBalance> created = new ArrayList<>();
+
+        for (Account account : accounts) {
+            AccountBalance row = stored.get(account.getId());
+            BigDecimal expected = journal.getOrDefault(account.getId(), BigDecimal.ZERO);
+
+            if (row == null || row.getBalance().compareTo(expected) != 0) {
+                BigDecimal current = row != null ? row.getBalance() : null;
+                BigDecimal difference = expected.subtract(current != null ? current : BigDecimal.ZERO);
+                drifts.add(new BalanceDrift(account.getId(), account.getName(), current, expected, difference));
+
+                if (repair) {
+                    if (row == null) {
+                        created.add(new AccountBalance(account.getId(), companyId, expected));
+                    } else {
+                        row.setBalance(expected);
+                    }
+                }
+            }
+        }
+
+        if (repair) {
+            balanceRepository.saveAll(created);
+            ledgerVersions.bump(companyId);
+        }
+
+        return new BalanceVerification(companyId, accounts.size(), drifts, repair && !drifts.isEmpty());
+    }
+
+    // Creates the rows missing for the company's accounts; returns how many
+    public int backfill(Long companyId) {
+        List<Long> missing = balanceRepository.findAccountIdsWithoutBalance(companyId);
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        int created = seed(missing);
+        ledgerVersions.bump(companyId);
+        return created;
+    }
+
+    /**
+     * Inserts rows holding the accounts' committed journal totals, in a
+     * transaction of its own: the caller's uncommitted entries are left out and
+     * added as its delta, and a concurrent first posting to the same account
+     * finds the committed row instead of inserting its own.
+     */
+    private int seed(Collection<Long> accountIds) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return newTransaction.execute(status -> balanceRepository.insertMissing(accountIds));
+            } catch (DataIntegrityViolationException ex) {
+                // Another transaction created one of the rows first; the retry skips it
+                if (attempt == MAX_SEED_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+}
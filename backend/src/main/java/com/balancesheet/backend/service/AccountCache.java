@@ -0,0 +1,87 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.Account;
+import com.balancesheet.backend.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of each company's chart of accounts, used by the posting
+ * paths so a transaction resolves all of its lines without a query per line.
+ * Ids missing from the cached chart are looked up on their own, and ids that
+ * turn out not to exist are remembered for a short while, so a stream of bad
+ * ids does not hit the database each time. The whole chart is reloaded after
+ * a TTL to pick up changes made on other instances.
+ * Cached accounts are detached and must be treated as read-only.
+ */
+@Component
+public class AccountCache {
+
+    // Accounts of one company plus ids recently found not to exist, with when each was looked up
+    private record Chart(Map<Long, Account> accounts, long loadedAt, Map<Long, Long> misses) {
+    }
+
+    private final AccountRepository accountRepository;
+    private final long ttlNanos;
+    private final long missTtlNanos;
+    private final Map<Long, Chart> charts = new ConcurrentHashMap<>();
+
+    public AccountCache(AccountRepository accountRepository,
+            @Value("${ledger.account-cache.ttl:PT5M}") Duration ttl,
+            @Value("${ledger.account-cache.miss-ttl:PT10S}") Duration missTtl) {
+        this.accountRepository = accountRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.missTtlNanos = missTtl.toNanos();
+    }
+
+    /**
+     * Returns the company's accounts keyed by id. Ids that do not belong to the
+     * company are simply absent from the returned map.
+     */
+    public Map<Long, Account> resolve(Long companyId, Collection<Long> accountIds) {
+        long now = System.nanoTime();
+        Chart chart = charts.get(companyId);
+        if (chart == null || now - chart.loadedAt() > ttlNanos) {
+            chart = load(companyId, now);
+            charts.put(companyId, chart);
+        }
+
+        Set<Long> missing = new HashSet<>();
+        for (Long id : accountIds) {
+            if (id != null && !chart.accounts().containsKey(id)) {
+                Long missedAt = chart.misses().get(id);
+                if (missedAt == null || now - missedAt > missTtlNanos) {
+                    missing.add(id);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return chart.accounts();
+        }
+
+        // The accounts may have been created on another instance since we loaded
+        Map<Long, Account> accounts = new HashMap<>(chart.accounts());
+        accountRepository.findByCompanyIdAndIdIn(companyId, missing)
+                .forEach(account -> accounts.put(account.getId(), account));
+        Map<Long, Long> misses = new HashMap<>(chart.misses());
+        missing.stream().filter(id -> !accounts.containsKey(id)).forEach(id -> misses.put(id, now));
+        chart = new Chart(Collections.unmodifiableMap(accounts), chart.loadedAt(), misses);
+        charts.put(companyId, chart);
+        return chart.accounts();
+    }
+
+    public void invalidate(Long companyId) {
+        charts.remove(companyId);
+    }
+
+    private Chart load(Long companyId, long now) {
+        return new Chart(Collections.unmodifiableMap(accountRepository.findByCompanyId(companyId).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()))), now, Map.of());
+    }
+}
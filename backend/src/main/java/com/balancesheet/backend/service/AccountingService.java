@@ -1,7 +1,9 @@
 package com.balancesheet.backend.service;
 
+import com.balancesheet.backend.dto.JournalEntryRequest;
 import com.balancesheet.backend.dto.TransactionRequest;
 import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.AccountBalanceRepository;
 import com.balancesheet.backend.repository.AccountRepository;
 import com.balancesheet.backend.repository.TransactionRepository;
 import com.balancesheet.backend.repository.JournalEntryRepository;
@@ -9,10 +11,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class AccountingService {
@@ -21,21 +26,44 @@ public class AccountingService {
     private final TransactionRepository transactionRepository;
     private final JournalEntryRepository journalEntryRepository;
     private final com.balancesheet.backend.repository.CompanyRepository companyRepository;
+    private final AccountCache accountCache;
+    private final AccountBalanceService accountBalanceService;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final DailyBalanceService dailyBalanceService;
+    private final LedgerAggregates ledgerAggregates;
+    private final LedgerColumnStore ledgerColumnStore;
+    private final LedgerVersions ledgerVersions;
+    private final ReportCache reportCache;
 
     public AccountingService(AccountRepository accountRepository, TransactionRepository transactionRepository,
             JournalEntryRepository journalEntryRepository,
-            com.balancesheet.backend.repository.CompanyRepository companyRepository) {
+            com.balancesheet.backend.repository.CompanyRepository companyRepository, AccountCache accountCache,
+            AccountBalanceService accountBalanceService, AccountBalanceRepository accountBalanceRepository,
+            DailyBalanceService dailyBalanceService, LedgerAggregates ledgerAggregates,
+            LedgerColumnStore ledgerColumnStore, LedgerVersions ledgerVersions, ReportCache reportCache) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
         this.journalEntryRepository = journalEntryRepository;
         this.companyRepository = companyRepository;
+        this.accountCache = accountCache;
+        this.accountBalanceService = accountBalanceService;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.dailyBalanceService = dailyBalanceService;
+        this.ledgerAggregates = ledgerAggregates;
+        this.ledgerColumnStore = ledgerColumnStore;
+        this.ledgerVersions = ledgerVersions;
+        this.reportCache = reportCache;
     }
 
+    @Transactional
     public Account createAccount(Account account, Long companyId) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new IllegalArgumentException("Company not found"));
         account.setCompany(company);
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        accountBalanceService.open(saved);
+        accountCache.invalidate(companyId);
+        return saved;
     }
 
     public List<Account> getAllAccounts(Long companyId) {
@@ -44,7 +72,8 @@ public class AccountingService {
 
     public List<Transaction> getAllTransactions(Long companyId, Integer year) {
         if (year != null) {
-            return transactionRepository.findByCompanyIdAndYear(companyId, year);
+            LocalDateTime from = LocalDateTime.of(year, 1, 1, 0, 0);
+            return transactionRepository.findByCompanyIdAndDateRange(companyId, from, from.plusYears(1));
         }
         return transactionRepository.findByCompanyIdOrderByDateDesc(companyId);
     }
@@ -54,6 +83,44 @@ public class AccountingService {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new IllegalArgumentException("Company not found"));
 
+        Transaction transaction = buildTransaction(request, company, resolveAccounts(request, companyId));
+        return post(transaction);
+    }
+
+    // Every posting path (manual, bulk, invoices, payments, scheduler) saves through
+    // post/postAll so the derived balances change in the same database transaction
+    @Transactional
+    public Transaction post(Transaction transaction) {
+        Transaction saved = transactionRepository.save(transaction);
+        applyToProjections(saved.getEntries());
+        return saved;
+    }
+
+    @Transactional
+    public List<Transaction> postAll(Collection<Transaction> transactions) {
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        applyToProjections(saved.stream().flatMap(t -> t.getEntries().stream()).toList());
+        return saved;
+    }
+
+    private void applyToProjections(List<JournalEntry> entries) {
+        // Balances first: their row locks also guard the daily rows
+        accountBalanceService.apply(entries);
+        dailyBalanceService.apply(entries);
+        ledgerColumnStore.onPosted(entries);
+        entries.stream().map(JournalEntry::getCompanyId).distinct().forEach(ledgerVersions::bump);
+    }
+
+    // All accounts of a posting in one cached lookup rather than a findById per line
+    Map<Long, Account> resolveAccounts(TransactionRequest request, Long companyId) {
+        List<Long> accountIds = request.getEntries().stream()
+                .map(JournalEntryRequest::getAccountId)
+                .toList();
+        return accountCache.resolve(companyId, accountIds);
+    }
+
+    // Validates the request and builds the unsaved transaction from already resolved accounts
+    Transaction buildTransaction(TransactionRequest request, Company company, Map<Long, Account> accounts) {
         BigDecimal total = request.getEntries().stream()
                 .map(e -> e.getAmount())
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -69,11 +136,11 @@ public class AccountingService {
         transaction.setCompany(company);
 
         for (var entryReq : request.getEntries()) {
-            Account account = accountRepository.findById(entryReq.getAccountId())
+            Account account = Optional.ofNullable(accounts.get(entryReq.getAccountId()))
                     .orElseThrow(() -> new IllegalArgumentException("Account not found: " + entryReq.getAccountId()));
 
             // Verify account belongs to company
-            if (!account.getCompany().getId().equals(companyId)) {
+            if (!account.getCompany().getId().equals(company.getId())) {
                 throw new IllegalArgumentException("Account does not belong to this company");
             }
 
@@ -84,15 +151,21 @@ public class AccountingService {
             transaction.getEntries().add(entry);
         }
 
-        return transactionRepository.save(transaction);
+        return transaction;
     }
 
     public Map<AccountType, BigDecimal> getFinancialPosition(Long companyId, Integer year) {
+        return reportCache.get(companyId, "financial-position", java.util.Arrays.asList(year),
+                () -> computeFinancialPosition(companyId, year));
+    }
+
+    private Map<AccountType, BigDecimal> computeFinancialPosition(Long companyId, Integer year) {
         List<Object[]> results;
         if (year != null) {
-            results = journalEntryRepository.sumByAccountTypeAndYear(companyId, year);
+            LocalDate from = LocalDate.of(year, 1, 1);
+            results = ledgerAggregates.sumByAccountTypeBetween(companyId, from, from.plusYears(1));
         } else {
-            results = journalEntryRepository.sumByAccountType(companyId);
+            results = accountBalanceRepository.sumByAccountType(companyId);
         }
 
         Map<AccountType, BigDecimal> map = new EnumMap<>(AccountType.class);
@@ -112,11 +185,18 @@ public class AccountingService {
     }
 
     public Map<AccountType, List<Map<String, Object>>> getDetailedFinancialPosition(Long companyId, Integer year) {
+        return reportCache.get(companyId, "financial-position-detailed", java.util.Arrays.asList(year),
+                () -> computeDetailedFinancialPosition(companyId, year));
+    }
+
+    private Map<AccountType, List<Map<String, Object>>> computeDetailedFinancialPosition(Long companyId,
+            Integer year) {
         List<Object[]> results;
         if (year != null) {
-            results = journalEntryRepository.sumByAccountAndYear(companyId, year);
+            LocalDate from = LocalDate.of(year, 1, 1);
+            results = ledgerAggregates.sumByAccountBetween(companyId, from, from.plusYears(1));
         } else {
-            results = journalEntryRepository.sumByAccount(companyId);
+            results = accountBalanceRepository.findNonZeroBalances(companyId);
         }
 
         Map<AccountType, List<Map<String, Object>>> map = new EnumMap<>(AccountType.class);
@@ -0,0 +1,347 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BatchItemResult;
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.dto.PaymentRequest;
+import com.balancesheet.backend.model.ArOpenItem;
+import com.balancesheet.backend.model.Customer;
+import com.balancesheet.backend.repository.ArOpenItemRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.service.BankStatementParser.StatementLine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Matches bank statement receipts to open invoices. The company's open items
+ * are loaded once and indexed in memory by invoice number, open amount and
+ * customer name; lines are then matched in parallel against that read-only
+ * index:
+ * <ul>
+ * <li>invoice numbers in the reference that cover the amount exactly (or one
+ * invoice paid in part) are a match; other amounts are a suggestion;</li>
+ * <li>otherwise the one open invoice of the paying customer with that amount
+ * is a match, several are a suggestion;</li>
+ * <li>otherwise the only open invoice of any customer with that amount is a
+ * suggestion.</li>
+ * </ul>
+ * Matches claim invoices before suggestions, each in statement order, and a
+ * line whose invoice is already used up is left unmatched. Reconciling posts
+ * the matched lines as payments through PaymentBatchService; suggestions are
+ * left for review and can be posted with POST /api/payments/batch.
+ */
+@Service
+@lombok.extern.slf4j.Slf4j
+public class BankReconciliationService {
+
+    public enum Status {
+        MATCHED,
+        SUGGESTED,
+        UNMATCHED
+    }
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[\\s,;:]+");
+    private static final Pattern NOT_ALPHANUMERIC = Pattern.compile("[^A-Z0-9]+");
+    // Payment references end up in the transaction description
+    private static final int MAX_REFERENCE_LENGTH = 100;
+
+    private final ArOpenItemRepository openItemRepository;
+    private final CustomerRepository customerRepository;
+    private final PaymentBatchService paymentBatchService;
+    private final int maxLines;
+
+    public BankReconciliationService(ArOpenItemRepository openItemRepository, CustomerRepository customerRepository,
+            PaymentBatchService paymentBatchService,
+            @Value("${ledger.bank-statement.max-lines:100000}") int maxLines) {
+        this.openItemRepository = openItemRepository;
+        this.customerRepository = customerRepository;
+        this.paymentBatchService = paymentBatchService;
+        this.maxLines = maxLines;
+    }
+
+    // Proposed matches only; nothing is posted
+    public Map<String, Object> match(Long companyId, String statement) {
+        return reconcile(companyId, statement, null, null);
+    }
+
+    /**
+     * Matches the statement and, given a cash account, records a payment for
+     * every allocation of a matched line.
+     */
+    public Map<String, Object> reconcile(Long companyId, String statement, Long cashAccountId,
+            String paymentMethod) {
+        List<StatementLine> lines = BankStatementParser.parse(statement);
+        if (lines.size() > maxLines) {
+            throw new IllegalArgumentException("Statement exceeds the limit of " + maxLines + " lines");
+        }
+
+        long started = System.nanoTime();
+        List<ArOpenItem> openItems = openItemRepository.findByCompanyId(companyId);
+        OpenItemIndex index = OpenItemIndex.build(openItems, customerRepository.findByCompanyId(companyId));
+        List<Match> matches = IntStream.range(0, lines.size()).parallel()
+                .mapToObj(i -> index.match(lines.get(i)))
+                .toList();
+        settle(matches);
+        long elapsed = System.nanoTime() - started;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lines", lines.size());
+        result.put("openInvoices", openItems.size());
+        for (Status status : Status.values()) {
+            result.put(status.name().toLowerCase(Locale.ROOT),
+                    matches.stream().filter(m -> m.status == status).count());
+        }
+        result.put("matchingMillis", elapsed / 1_000_000);
+        if (cashAccountId != null) {
+            result.put("posting", post(companyId, cashAccountId, paymentMethod, matches));
+        }
+        result.put("matches", matches.stream().map(BankReconciliationService::describe).toList());
+        log.info("Matched {} statement lines for company {} against {} open invoices in {} ms", lines.size(),
+                companyId, openItems.size(), elapsed / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Lets matches claim their invoices before suggestions, each in statement
+     * order, so two lines never allocate more than an invoice's open amount.
+     */
+    private static void settle(List<Match> matches) {
+        Map<Long, BigDecimal> remaining = new HashMap<>();
+        Map<Long, Integer> claimedBy = new HashMap<>();
+        for (Status status : List.of(Status.MATCHED, Status.SUGGESTED)) {
+            for (Match match : matches) {
+                if (match.status != status) {
+                    continue;
+                }
+                Optional<Allocation> taken = match.allocations.stream()
+                        .filter(a -> a.amount.compareTo(remaining.getOrDefault(a.item.getInvoiceId(),
+                                a.item.getOpenAmount())) > 0)
+                        .findFirst();
+                if (taken.isPresent()) {
+                    ArOpenItem item = taken.get().item;
+                    match.unmatched("Invoice " + item.getInvoiceNumber() + " is already allocated by line "
+                            + claimedBy.get(item.getInvoiceId()));
+                    continue;
+                }
+                for (Allocation allocation : match.allocations) {
+                    Long invoiceId = allocation.item.getInvoiceId();
+                    remaining.put(invoiceId, remaining.getOrDefault(invoiceId, allocation.item.getOpenAmount())
+                            .subtract(allocation.amount));
+                    claimedBy.putIfAbsent(invoiceId, match.line.line());
+                }
+            }
+        }
+    }
+
+    private BatchResult post(Long companyId, Long cashAccountId, String paymentMethod, List<Match> matches) {
+        List<PaymentRequest> requests = new ArrayList<>();
+        List<Allocation> allocations = new ArrayList<>();
+        for (Match match : matches) {
+            if (match.status != Status.MATCHED) {
+                continue;
+            }
+            String reference = match.line.reference();
+            if (reference != null && reference.length() > MAX_REFERENCE_LENGTH) {
+                reference = reference.substring(0, MAX_REFERENCE_LENGTH);
+            }
+            for (Allocation allocation : match.allocations) {
+                requests.add(new PaymentRequest(allocation.item.getInvoiceId(), allocation.amount,
+                        match.line.date(), paymentMethod, reference));
+                allocations.add(allocation);
+            }
+        }
+
+        BatchResult posting = paymentBatchService.post(companyId, cashAccountId, requests);
+        for (int i = 0; i < allocations.size(); i++) {
+            allocations.get(i).posted = posting.getResults().get(i);
+        }
+        return posting;
+    }
+
+    private static Map<String, Object> describe(Match match) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("line", match.line.line());
+        line.put("date", match.line.date().toString());
+        line.put("amount", match.line.amount());
+        line.put("reference", match.line.reference());
+        line.put("counterparty", match.line.counterparty());
+        line.put("status", match.status);
+        line.put("rule", match.rule);
+        line.put("note", match.note);
+        line.put("allocations", match.allocations.stream().map(allocation -> {
+            Map<String, Object> described = new LinkedHashMap<>();
+            described.put("invoiceId", allocation.item.getInvoiceId());
+            described.put("invoiceNumber", allocation.item.getInvoiceNumber());
+            described.put("amount", allocation.amount);
+            if (allocation.posted != null) {
+                described.put("paymentId", allocation.posted.getId());
+                described.put("error", allocation.posted.getError());
+            }
+            return described;
+        }).toList());
+        return line;
+    }
+
+    // Upper case letters and digits only, so "inv-2025/00042" finds INV-2025-00042
+    private static String key(String text) {
+        return NOT_ALPHANUMERIC.matcher(text.toUpperCase(Locale.ROOT)).replaceAll("");
+    }
+
+    private static String name(String text) {
+        return NOT_ALPHANUMERIC.matcher(text.toUpperCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Amounts compare by value: 100, 100.0 and 100.00 are one key
+    private static BigDecimal amountKey(BigDecimal amount) {
+        return amount.stripTrailingZeros();
+    }
+
+    // One invoice's share of a line, with the payment result once recorded
+    private static final class Allocation {
+        private final ArOpenItem item;
+        private final BigDecimal amount;
+        private BatchItemResult posted;
+
+        Allocation(ArOpenItem item, BigDecimal amount) {
+            this.item = item;
+            this.amount = amount;
+        }
+    }
+
+    private static final class Match {
+        private final StatementLine line;
+        private Status status;
+        private String rule;
+        private String note;
+        private List<Allocation> allocations;
+
+        Match(StatementLine line, Status status, String rule, String note, List<Allocation> allocations) {
+            this.line = line;
+            this.status = status;
+            this.rule = rule;
+            this.note = note;
+            this.allocations = allocations;
+        }
+
+        static Match none(StatementLine line, String note) {
+            return new Match(line, Status.UNMATCHED, null, note, List.of());
+        }
+
+        void unmatched(String reason) {
+            status = Status.UNMATCHED;
+            note = reason;
+            allocations = List.of();
+        }
+    }
+
+    /**
+     * Open items by invoice number, by open amount and customers by name. Built
+     * once per statement and only read while matching, so lines can be matched
+     * from any thread. Candidate lists are oldest due date first.
+     */
+    private record OpenItemIndex(Map<String, ArOpenItem> byNumber, Map<BigDecimal, List<ArOpenItem>> byAmount,
+            Map<String, Set<Long>> customersByName) {
+
+        static OpenItemIndex build(List<ArOpenItem> openItems, List<Customer> customers) {
+            List<ArOpenItem> sorted = new ArrayList<>(openItems);
+            sorted.sort(Comparator.comparing(ArOpenItem::getDueDate).thenComparing(ArOpenItem::getInvoiceId));
+            Map<String, ArOpenItem> byNumber = new HashMap<>();
+            Map<BigDecimal, List<ArOpenItem>> byAmount = new HashMap<>();
+            for (ArOpenItem item : sorted) {
+                byNumber.putIfAbsent(key(item.getInvoiceNumber()), item);
+                byAmount.computeIfAbsent(amountKey(item.getOpenAmount()), amount -> new ArrayList<>()).add(item);
+            }
+            Map<String, Set<Long>> customersByName = customers.stream().collect(Collectors.groupingBy(
+                    customer -> name(customer.getName()), Collectors.mapping(Customer::getId, Collectors.toSet())));
+            return new OpenItemIndex(byNumber, byAmount, customersByName);
+        }
+
+        Match match(StatementLine line) {
+            if (line.amount().signum() <= 0) {
+                return Match.none(line, "Not a receipt");
+            }
+
+            List<ArOpenItem> referenced = referenced(line.reference());
+            if (!referenced.isEmpty()) {
+                return byReference(line, referenced);
+            }
+
+            List<ArOpenItem> candidates = byAmount.getOrDefault(amountKey(line.amount()), List.of());
+            Set<Long> payers = line.counterparty() != null ? customersByName.get(name(line.counterparty())) : null;
+            if (payers != null) {
+                List<ArOpenItem> own = candidates.stream().filter(item -> payers.contains(item.getCustomerId()))
+                        .toList();
+                if (own.size() == 1) {
+                    return new Match(line, Status.MATCHED, "amount-customer", null,
+                            List.of(new Allocation(own.get(0), line.amount())));
+                }
+                if (own.size() > 1) {
+                    return new Match(line, Status.SUGGESTED, "amount-customer",
+                            own.size() + " open invoices of the customer have this amount",
+                            List.of(new Allocation(own.get(0), line.amount())));
+                }
+            }
+            if (candidates.size() == 1) {
+                return new Match(line, Status.SUGGESTED, "amount", null,
+                        List.of(new Allocation(candidates.get(0), line.amount())));
+            }
+            return Match.none(line, candidates.isEmpty() ? "No open invoice matches"
+                    : candidates.size() + " open invoices have this amount");
+        }
+
+        // Open invoices whose number appears in the reference, oldest due first
+        private List<ArOpenItem> referenced(String reference) {
+            if (reference == null) {
+                return List.of();
+            }
+            Map<Long, ArOpenItem> found = new HashMap<>();
+            for (String token : TOKEN_SEPARATOR.split(reference)) {
+                ArOpenItem item = byNumber.get(key(token));
+                if (item != null) {
+                    found.put(item.getInvoiceId(), item);
+                }
+            }
+            ArOpenItem whole = found.isEmpty() ? byNumber.get(key(reference)) : null;
+            if (whole != null) {
+                // A number written with spaces, e.g. "INV 2025 00042"
+                found.put(whole.getInvoiceId(), whole);
+            }
+            return found.values().stream()
+                    .sorted(Comparator.comparing(ArOpenItem::getDueDate).thenComparing(ArOpenItem::getInvoiceId))
+                    .toList();
+        }
+
+        private static Match byReference(StatementLine line, List<ArOpenItem> referenced) {
+            BigDecimal open = referenced.stream().map(ArOpenItem::getOpenAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            int comparison = line.amount().compareTo(open);
+            if (comparison == 0 || (comparison < 0 && referenced.size() == 1)) {
+                return new Match(line, Status.MATCHED, "invoice-number", null, allocate(referenced, line.amount()));
+            }
+            return new Match(line, Status.SUGGESTED, "invoice-number", comparison > 0
+                    ? "Pays " + line.amount().subtract(open) + " more than the referenced invoices are open"
+                    : "Does not cover all referenced invoices",
+                    allocate(referenced, line.amount()));
+        }
+
+        // Pays the invoices in order until the amount runs out
+        private static List<Allocation> allocate(List<ArOpenItem> items, BigDecimal amount) {
+            List<Allocation> allocations = new ArrayList<>();
+            BigDecimal left = amount;
+            for (ArOpenItem item : items) {
+                if (left.signum() <= 0) {
+                    break;
+                }
+                BigDecimal share = left.min(item.getOpenAmount());
+                allocations.add(new Allocation(item, share));
+                left = left.subtract(share);
+            }
+            return allocations;
+        }
+    }
+}
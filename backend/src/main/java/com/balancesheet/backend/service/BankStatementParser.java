@@ -0,0 +1,226 @@
+package com.balancesheet.backend.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Reads the lines of a bank statement, either CSV with a header row (date,
+ * amount, reference and counterparty columns; credits are positive) or an
+ * ISO 20022 CAMT.053/054 document, where each Ntry is one line and debits
+ * come out negative. Lines that cannot be read are rejected with their line
+ * number rather than skipped.
+ */
+public final class BankStatementParser {
+
+    public record StatementLine(int line, LocalDate date, BigDecimal amount, String reference,
+            String counterparty) {
+    }
+
+    // Accepted CSV header names per column
+    private static final Map<String, String> CSV_COLUMNS = Map.ofEntries(
+            Map.entry("date", "date"), Map.entry("booking date", "date"), Map.entry("value date", "date"),
+            Map.entry("amount", "amount"),
+            Map.entry("reference", "reference"), Map.entry("description", "reference"),
+            Map.entry("remittance", "reference"), Map.entry("remittance information", "reference"),
+            Map.entry("counterparty", "counterparty"), Map.entry("name", "counterparty"),
+            Map.entry("payer", "counterparty"), Map.entry("debtor", "counterparty"));
+
+    private BankStatementParser() {
+    }
+
+    // CAMT when the content is XML, CSV otherwise
+    public static List<StatementLine> parse(String content) {
+        if (content == null || content.isBlank()) {
+            throw new IllegalArgumentException("Bank statement is empty");
+        }
+        return content.stripLeading().startsWith("<") ? parseCamt(content) : parseCsv(content);
+    }
+
+    public static List<StatementLine> parseCsv(String content) {
+        String[] rows = content.split("\r?\n");
+        List<String> header = splitCsv(rows[0].replace("\uFEFF", ""));
+        Map<String, Integer> columns = new HashMap<>();
+        for (int c = 0; c < header.size(); c++) {
+            String column = CSV_COLUMNS.get(header.get(c).trim().toLowerCase(Locale.ROOT));
+            if (column != null) {
+                columns.putIfAbsent(column, c);
+            }
+        }
+        if (!columns.containsKey("date") || !columns.containsKey("amount")) {
+            throw new IllegalArgumentException("Statement header needs date and amount columns");
+        }
+
+        List<StatementLine> lines = new ArrayList<>(rows.length);
+        for (int r = 1; r < rows.length; r++) {
+            if (rows[r].isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsv(rows[r]);
+            int line = r + 1;
+            lines.add(new StatementLine(line,
+                    date(field(fields, columns.get("date")), line),
+                    amount(field(fields, columns.get("amount")), line),
+                    field(fields, columns.get("reference")),
+                    field(fields, columns.get("counterparty"))));
+        }
+        return lines;
+    }
+
+    public static List<StatementLine> parseCamt(String content) {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+        List<StatementLine> lines = new ArrayList<>();
+        Deque<String> path = new ArrayDeque<>();
+        Entry entry = null;
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(content));
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        path.push(reader.getLocalName());
+                        if (reader.getLocalName().equals("Ntry")) {
+                            entry = new Entry(lines.size() + 1);
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS -> {
+                        if (entry != null && !reader.isWhiteSpace()) {
+                            entry.read(path, reader.getText().trim());
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        if (path.pop().equals("Ntry") && entry != null) {
+                            lines.add(entry.toLine());
+                            entry = null;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new IllegalArgumentException("Statement is not valid XML: " + ex.getMessage());
+        }
+        return lines;
+    }
+
+    // One Ntry; the line number is the entry's position in the statement
+    private static final class Entry {
+        private final int line;
+        private String amount;
+        private boolean debit;
+        private String date;
+        private final StringJoiner reference = new StringJoiner(" ");
+        private String counterparty;
+
+        Entry(int line) {
+            this.line = line;
+        }
+
+        void read(Deque<String> path, String text) {
+            switch (path.peek()) {
+                case "Amt" -> {
+                    if (amount == null && parent(path).equals("Ntry")) {
+                        amount = text;
+                    }
+                }
+                case "CdtDbtInd" -> {
+                    if (parent(path).equals("Ntry")) {
+                        debit = text.equals("DBIT");
+                    }
+                }
+                case "Dt", "DtTm" -> {
+                    if (date == null && path.contains("BookgDt")) {
+                        date = text.length() > 10 ? text.substring(0, 10) : text;
+                    }
+                }
+                case "Ustrd", "Ref" -> {
+                    if (path.contains("RmtInf")) {
+                        reference.add(text);
+                    }
+                }
+                case "Nm" -> {
+                    if (counterparty == null && path.contains("Dbtr")) {
+                        counterparty = text;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        StatementLine toLine() {
+            BigDecimal value = amount(amount, line);
+            return new StatementLine(line, date(date, line), debit ? value.negate() : value,
+                    reference.length() > 0 ? reference.toString() : null, counterparty);
+        }
+
+        private static String parent(Deque<String> path) {
+            Iterator<String> it = path.iterator();
+            it.next();
+            return it.hasNext() ? it.next() : "";
+        }
+    }
+
+    // Splits a CSV row, honouring double-quoted fields with commas and "" escapes
+    static List<String> splitCsv(String row) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String field(List<String> fields, Integer column) {
+        if (column == null || column >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate date(String value, int line) {
+        try {
+            return LocalDate.parse(Objects.requireNonNull(value));
+        } catch (NullPointerException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Line " + line + ": invalid date " + value);
+        }
+    }
+
+    private static BigDecimal amount(String value, int line) {
+        try {
+            return new BigDecimal(Objects.requireNonNull(value));
+        } catch (NullPointerException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Line " + line + ": invalid amount " + value);
+        }
+    }
+}
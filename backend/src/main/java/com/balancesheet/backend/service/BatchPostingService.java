@@ -0,0 +1,130 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BatchItemResult;
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.Company;
+import com.balancesheet.backend.model.Transaction;
+import com.balancesheet.backend.repository.CompanyRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Posts large lists of transactions. Each chunk commits in its own database
+ * transaction and is written with JDBC batch inserts; a failing item is
+ * reported in the result instead of aborting the rest of the batch.
+ */
+@Service
+@lombok.extern.slf4j.Slf4j
+public class BatchPostingService {
+
+    private final AccountingService accountingService;
+    private final CompanyRepository companyRepository;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final org.springframework.transaction.support.TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public BatchPostingService(AccountingService accountingService, CompanyRepository companyRepository,
+            Validator validator, EntityManager entityManager, PlatformTransactionManager transactionManager,
+            @Value("${ledger.batch.chunk-size:500}") int chunkSize,
+            @Value("${ledger.batch.max-items:20000}") int maxItems) {
+        this.accountingService = accountingService;
+        this.companyRepository = companyRepository;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public BatchResult recordTransactions(List<TransactionRequest> requests, Long companyId) {
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("Batch exceeds the limit of " + maxItems + " transactions");
+        }
+
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new IllegalArgumentException("Company not found"));
+
+        long started = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, requests.size());
+            postChunk(requests, from, to, company, results);
+        }
+
+        BatchResult result = new BatchResult(Arrays.asList(results), System.nanoTime() - started);
+        log.info("Batch posting for company {}: {} posted, {} failed in {} ms", companyId,
+                result.getPosted(), result.getFailed(), result.getElapsedMillis());
+        return result;
+    }
+
+    private void postChunk(List<TransactionRequest> requests, int from, int to, Company company,
+            BatchItemResult[] results) {
+        Map<Integer, Transaction> valid = new LinkedHashMap<>();
+        for (int i = from; i < to; i++) {
+            try {
+                valid.put(i, build(requests.get(i), company));
+            } catch (IllegalArgumentException ex) {
+                results[i] = BatchItemResult.failed(i, ex.getMessage());
+            }
+        }
+
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(valid.values()));
+            valid.forEach((i, tx) -> results[i] = BatchItemResult.posted(i, tx.getId()));
+        } catch (RuntimeException ex) {
+            // A database error fails the whole chunk; retry item by item to isolate it
+            log.warn("Chunk {}-{} failed ({}), retrying items individually", from, to - 1, ex.getMessage());
+            for (int i : valid.keySet()) {
+                try {
+                    Transaction retry = build(requests.get(i), company);
+                    transactionTemplate.executeWithoutResult(status -> save(List.of(retry)));
+                    results[i] = BatchItemResult.posted(i, retry.getId());
+                } catch (RuntimeException itemEx) {
+                    results[i] = BatchItemResult.failed(i,
+                            NestedExceptionUtils.getMostSpecificCause(itemEx).getMessage());
+                }
+            }
+        }
+    }
+
+    private Transaction build(TransactionRequest request, Company company) {
+        if (request == null) {
+            throw new IllegalArgumentException("Transaction is required");
+        }
+
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        return accountingService.buildTransaction(request, company,
+                accountingService.resolveAccounts(request, company.getId()));
+    }
+
+    private void save(Collection<Transaction> transactions) {
+        accountingService.postAll(transactions);
+        // Flush while the batch is still grouped and keep the persistence context
+        // from growing across chunks (open-in-view keeps it alive for the request)
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
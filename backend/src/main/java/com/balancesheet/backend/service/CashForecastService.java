@@ -0,0 +1,267 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Projects the cash balance day by day over a horizon. Every occurrence of
+ * every recurring transaction is expanded, and open invoice balances are
+ * expected at their due date plus a collection lag. Optionally, Monte Carlo
+ * scenarios draw a random payment delay per invoice and the projection comes
+ * with percentile bands across scenarios.
+ */
+@Service
+public class CashForecastService {
+
+    public static final int MAX_HORIZON_DAYS = 366;
+    public static final int MAX_SIMULATIONS = 10_000;
+    private static final double[] PERCENTILES = { 0.10, 0.50, 0.90 };
+
+    private final DailyAccountBalanceRepository dailyBalanceRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final RecurringTransactionRepository recurringTransactionRepository;
+    private final int collectionLagDays;
+    private final Duration simulationBudget;
+
+    public CashForecastService(DailyAccountBalanceRepository dailyBalanceRepository,
+            InvoiceRepository invoiceRepository, RecurringTransactionRepository recurringTransactionRepository,
+            @Value("${ledger.forecast.collection-lag-days:7}") int collectionLagDays,
+            @Value("${ledger.forecast.simulation-budget:PT2S}") Duration simulationBudget) {
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.recurringTransactionRepository = recurringTransactionRepository;
+        this.collectionLagDays = collectionLagDays;
+        this.simulationBudget = simulationBudget;
+    }
+
+    /** A dated cash movement; positive amounts are inflows. */
+    public record CashEvent(LocalDate date, BigDecimal amount, Long sourceId, String name) {
+    }
+
+    /** An open invoice balance and when it is expected to be collected. */
+    public record OpenInvoice(Invoice invoice, BigDecimal openBalance, LocalDate expectedDate) {
+    }
+
+    /** The inputs of a projection, before any simulation. */
+    public record Plan(LocalDate from, LocalDate to, int lagDays, BigDecimal startingBalance,
+            List<CashEvent> recurring, List<OpenInvoice> invoices) {
+    }
+
+    /**
+     * Collects the recurring occurrences in [from, to) and the open invoices.
+     * Runs the scheduler has not caught up with yet count on the first day.
+     */
+    public Plan plan(Long companyId, LocalDate from, LocalDate to, Integer lagDays) {
+        int lag = lagDays != null ? lagDays : collectionLagDays;
+        if (lag < 0) {
+            throw new IllegalArgumentException("Collection lag must not be negative");
+        }
+
+        List<CashEvent> recurring = new ArrayList<>();
+        for (RecurringTransaction rt : recurringTransactionRepository.findByCompanyId(companyId)) {
+            BigDecimal effect = cashEffect(rt);
+            if (effect.signum() == 0) {
+                continue;
+            }
+            for (LocalDate date : RecurringSchedule.occurrences(rt, LocalDate.MIN, to)) {
+                recurring.add(new CashEvent(date.isBefore(from) ? from : date, effect, rt.getId(), rt.getName()));
+            }
+        }
+        recurring.sort(Comparator.comparing(CashEvent::date));
+
+        List<OpenInvoice> invoices = new ArrayList<>();
+        BigDecimal receivables = BigDecimal.ZERO;
+        for (Invoice invoice : invoiceRepository.findByCompanyIdAndStatus(companyId, InvoiceStatus.POSTED)) {
+            BigDecimal open = invoice.getOpenBalance();
+            if (open.signum() <= 0) {
+                continue;
+            }
+            // Overdue invoices are expected the lag after today rather than in the past
+            LocalDate due = invoice.getDueDate().isBefore(from) ? from : invoice.getDueDate();
+            invoices.add(new OpenInvoice(invoice, open, due.plusDays(lag)));
+            receivables = receivables.add(open);
+        }
+        invoices.sort(Comparator.comparing(OpenInvoice::expectedDate));
+
+        // Asset accounts count as cash, and that includes receivables; those are
+        // only cash once collected, so they are taken out of the starting balance
+        BigDecimal assets = dailyBalanceRepository.sumByAccountTypeBefore(companyId, AccountType.ASSET, from);
+        return new Plan(from, to, lag, assets.subtract(receivables), recurring, invoices);
+    }
+
+    /**
+     * Daily projected closing balance from today over the horizon. With
+     * simulations, each scenario delays every invoice by an exponentially
+     * distributed number of days (mean: the collection lag) past its due date,
+     * and each day gets the 10th, 50th and 90th percentile across scenarios.
+     * Scenarios run in parallel and stop at the time budget; the result says
+     * how many completed.
+     */
+    public Map<String, Object> project(Long companyId, int horizonDays, Integer lagDays, int simulations,
+            long seed) {
+        if (horizonDays < 1 || horizonDays > MAX_HORIZON_DAYS) {
+            throw new IllegalArgumentException("Horizon must be between 1 and " + MAX_HORIZON_DAYS + " days");
+        }
+        if (simulations < 0 || simulations > MAX_SIMULATIONS) {
+            throw new IllegalArgumentException("Simulations must be between 0 and " + MAX_SIMULATIONS);
+        }
+
+        LocalDate today = LocalDate.now();
+        Plan plan = plan(companyId, today, today.plusDays(horizonDays), lagDays);
+
+        // Expected path: recurring flows plus invoices on their expected date
+        long[] recurringFlows = new long[horizonDays];
+        for (CashEvent event : plan.recurring()) {
+            recurringFlows[dayIndex(plan, event.date())] += cents(event.amount());
+        }
+        long[] expectedFlows = recurringFlows.clone();
+        for (OpenInvoice open : plan.invoices()) {
+            int day = dayIndex(plan, open.expectedDate());
+            if (day < horizonDays) {
+                expectedFlows[day] += cents(open.openBalance());
+            }
+        }
+        long start = cents(plan.startingBalance());
+        long[] expected = runningBalance(start, expectedFlows);
+
+        long started = System.nanoTime();
+        long[][] scenarios = simulate(plan, start, recurringFlows, simulations, seed,
+                started + simulationBudget.toNanos());
+        long elapsed = System.nanoTime() - started;
+
+        List<Map<String, Object>> series = new ArrayList<>();
+        long[] column = new long[scenarios.length];
+        for (int day = 0; day < horizonDays; day++) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("date", today.plusDays(day).toString());
+            point.put("balance", amount(expected[day]));
+            if (scenarios.length > 0) {
+                for (int s = 0; s < scenarios.length; s++) {
+                    column[s] = scenarios[s][day];
+                }
+                Arrays.sort(column);
+                for (double percentile : PERCENTILES) {
+                    point.put("p" + Math.round(percentile * 100), amount(nearestRank(column, percentile)));
+                }
+            }
+            series.add(point);
+        }
+
+        Map<String, Object> simulation = new LinkedHashMap<>();
+        simulation.put("requested", simulations);
+        simulation.put("completed", scenarios.length);
+        simulation.put("elapsedMillis", elapsed / 1_000_000);
+
+        Map<String, Object> projection = new LinkedHashMap<>();
+        projection.put("from", today.toString());
+        projection.put("horizonDays", horizonDays);
+        projection.put("collectionLagDays", plan.lagDays());
+        projection.put("startingBalance", plan.startingBalance());
+        projection.put("series", series);
+        projection.put("recurring", plan.recurring().stream().map(CashForecastService::describe).toList());
+        projection.put("invoices", plan.invoices().stream().map(CashForecastService::describe).toList());
+        projection.put("simulation", simulation);
+        return projection;
+    }
+
+    private static long[][] simulate(Plan plan, long start, long[] recurringFlows, int simulations, long seed,
+            long deadline) {
+        int horizon = recurringFlows.length;
+        int[] dueDays = new int[plan.invoices().size()];
+        long[] amounts = new long[dueDays.length];
+        for (int i = 0; i < dueDays.length; i++) {
+            OpenInvoice open = plan.invoices().get(i);
+            dueDays[i] = (int) ChronoUnit.DAYS.between(plan.from(), open.expectedDate()) - plan.lagDays();
+            amounts[i] = cents(open.openBalance());
+        }
+        double meanDelay = plan.lagDays();
+
+        // Each scenario has its own generator derived from the seed, so results
+        // do not depend on how the work is split across threads
+        return IntStream.range(0, simulations).parallel()
+                .mapToObj(s -> {
+                    if (System.nanoTime() > deadline) {
+                        return null;
+                    }
+                    SplittableRandom random = new SplittableRandom(seed + s);
+                    long[] flows = recurringFlows.clone();
+                    for (int i = 0; i < dueDays.length; i++) {
+                        long delay = meanDelay > 0 ? Math.round(-meanDelay * Math.log(1 - random.nextDouble())) : 0;
+                        long day = dueDays[i] + delay;
+                        if (day < horizon) {
+                            flows[(int) day] += amounts[i];
+                        }
+                    }
+                    return runningBalance(start, flows);
+                })
+                .filter(Objects::nonNull)
+                .toArray(long[][]::new);
+    }
+
+    // Cash effect of one run: money leaves when an asset is credited, arrives when one is debited
+    static BigDecimal cashEffect(RecurringTransaction rt) {
+        boolean debitsCash = rt.getDebitAccount().getType() == AccountType.ASSET;
+        boolean creditsCash = rt.getCreditAccount().getType() == AccountType.ASSET;
+        if (debitsCash == creditsCash) {
+            return BigDecimal.ZERO;
+        }
+        return creditsCash ? rt.getAmount().negate() : rt.getAmount();
+    }
+
+    private static long[] runningBalance(long start, long[] flows) {
+        long[] balance = new long[flows.length];
+        long running = start;
+        for (int day = 0; day < flows.length; day++) {
+            running += flows[day];
+            balance[day] = running;
+        }
+        return balance;
+    }
+
+    private static long nearestRank(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static int dayIndex(Plan plan, LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(plan.from(), date);
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal amount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static Map<String, Object> describe(CashEvent event) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("id", event.sourceId());
+        detail.put("name", event.name());
+        detail.put("date", event.date().toString());
+        detail.put("amount", event.amount());
+        return detail;
+    }
+
+    private static Map<String, Object> describe(OpenInvoice open) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("id", open.invoice().getId());
+        detail.put("invoiceNumber", open.invoice().getInvoiceNumber());
+        detail.put("customer", open.invoice().getCustomer().getName());
+        detail.put("openBalance", open.openBalance());
+        detail.put("dueDate", open.invoice().getDueDate().toString());
+        detail.put("expectedDate", open.expectedDate().toString());
+        return detail;
+    }
+}
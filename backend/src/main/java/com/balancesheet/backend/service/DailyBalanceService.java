@@ -0,0 +1,147 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.DailyAccountBalance;
+import com.balancesheet.backend.model.JournalEntry;
+import com.balancesheet.backend.repository.AccountBalanceRepository;
+import com.balancesheet.backend.repository.DailyAccountBalanceRepository;
+import com.balancesheet.backend.repository.JournalEntryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the daily_account_balance table: debit and credit movement per
+ * account and day. Date-range reports sum these rows; an opening balance is
+ * the prefix sum of all days before the period.
+ */
+@Service
+public class DailyBalanceService {
+
+    private final DailyAccountBalanceRepository dailyBalanceRepository;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final JournalEntryRepository journalEntryRepository;
+    private final LedgerVersions ledgerVersions;
+
+    public DailyBalanceService(DailyAccountBalanceRepository dailyBalanceRepository,
+            AccountBalanceRepository accountBalanceRepository, JournalEntryRepository journalEntryRepository,
+            LedgerVersions ledgerVersions) {
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.journalEntryRepository = journalEntryRepository;
+        this.ledgerVersions = ledgerVersions;
+    }
+
+    private record Key(Long accountId, LocalDate day) {
+    }
+
+    // Called after AccountBalanceService.apply: the account_balance row locks taken
+    // there serialize writers per account, so two postings cannot both insert the
+    // same (account, day) row.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Collection<JournalEntry> entries) {
+        Map<Key, DailyAccountBalance> movements = new HashMap<>();
+        for (JournalEntry entry : entries) {
+            Key key = new Key(entry.getAccount().getId(), entry.getPostingDate());
+            DailyAccountBalance movement = movements.computeIfAbsent(key,
+                    k -> new DailyAccountBalance(entry.getCompanyId(), k.accountId(), k.day(), BigDecimal.ZERO,
+                            BigDecimal.ZERO));
+            add(movement, entry.getAmount());
+        }
+
+        if (movements.isEmpty()) {
+            return;
+        }
+
+        Set<Long> accountIds = movements.keySet().stream().map(Key::accountId).collect(Collectors.toSet());
+        Set<LocalDate> days = movements.keySet().stream().map(Key::day).collect(Collectors.toSet());
+        Map<Key, DailyAccountBalance> existing = dailyBalanceRepository.findByAccountIdInAndDayIn(accountIds, days)
+                .stream()
+                .collect(Collectors.toMap(d -> new Key(d.getAccountId(), d.getDay()), Function.identity()));
+
+        List<DailyAccountBalance> created = new ArrayList<>();
+        movements.forEach((key, movement) -> {
+            DailyAccountBalance row = existing.get(key);
+            if (row == null) {
+                created.add(movement);
+            } else {
+                row.setDebit(row.getDebit().add(movement.getDebit()));
+                row.setCredit(row.getCredit().add(movement.getCredit()));
+            }
+        });
+        dailyBalanceRepository.saveAll(created);
+    }
+
+    // Recomputes the company's daily rows from the journal
+    @Transactional
+    public int rebuild(Long companyId) {
+        // Same lock as the posting path, so no posting interleaves with the rebuild
+        accountBalanceRepository.findByCompanyIdForUpdate(companyId);
+        dailyBalanceRepository.deleteByCompanyId(companyId);
+
+        List<DailyAccountBalance> rows = new ArrayList<>();
+        for (Object[] row : journalEntryRepository.sumDailyMovementByAccount(companyId)) {
+            rows.add(new DailyAccountBalance(companyId, (Long) row[0], (LocalDate) row[1], (BigDecimal) row[2],
+                    (BigDecimal) row[3]));
+        }
+        dailyBalanceRepository.saveAll(rows);
+        ledgerVersions.bump(companyId);
+        return rows.size();
+    }
+
+    /**
+     * Rebuilds the daily rows of accounts whose debit or credit total differs
+     * from the journal's, e.g. accounts that predate the table or were posted
+     * to before the startup backfill; returns how many accounts were rebuilt.
+     */
+    @Transactional
+    public int backfill(Long companyId) {
+        Map<Long, List<BigDecimal>> stored = new HashMap<>();
+        for (Object[] row : dailyBalanceRepository.sumMovementByAccount(companyId)) {
+            stored.put((Long) row[0], List.of((BigDecimal) row[1], (BigDecimal) row[2]));
+        }
+        Set<Long> drifted = new TreeSet<>();
+        for (Object[] row : journalEntryRepository.sumMovementByAccount(companyId)) {
+            List<BigDecimal> daily = stored.remove((Long) row[0]);
+            if (daily == null || daily.get(0).compareTo((BigDecimal) row[1]) != 0
+                    || daily.get(1).compareTo((BigDecimal) row[2]) != 0) {
+                drifted.add((Long) row[0]);
+            }
+        }
+        // Rows left over belong to accounts without any journal entries
+        drifted.addAll(stored.keySet());
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+
+        // Same lock as the posting path; postings committed before it are all in the journal read below
+        accountBalanceRepository.findAllForUpdate(drifted);
+        dailyBalanceRepository.deleteByAccountIdIn(drifted);
+        List<DailyAccountBalance> rows = new ArrayList<>();
+        for (Object[] row : journalEntryRepository.sumDailyMovementByAccountIn(companyId, drifted)) {
+            rows.add(new DailyAccountBalance(companyId, (Long) row[0], (LocalDate) row[1], (BigDecimal) row[2],
+                    (BigDecimal) row[3]));
+        }
+        dailyBalanceRepository.saveAll(rows);
+        ledgerVersions.bump(companyId);
+        return drifted.size();
+    }
+
+    // Balance of the account at the start of the given day
+    public BigDecimal getOpeningBalance(Long companyId, Long accountId, LocalDate day) {
+        return dailyBalanceRepository.sumBefore(companyId, accountId, day);
+    }
+
+    private static void add(DailyAccountBalance movement, BigDecimal amount) {
+        if (amount.signum() >= 0) {
+            movement.setDebit(movement.getDebit().add(amount));
+        } else {
+            movement.setCredit(movement.getCredit().add(amount.negate()));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.Account;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Streams an account's general ledger. The opening balance is one aggregate
+ * over the daily balances; the lines are then read through a JDBC cursor and
+ * written out one by one with their running balance, so memory use does not
+ * depend on the number of lines. Both are read in one repeatable-read
+ * transaction, so a posting committed meanwhile cannot end up in one but not
+ * the other.
+ */
+@Service
+public class GeneralLedgerService {
+
+    private static final String LINES = "SELECT e.id, e.posting_date, t.id, t.description, e.amount "
+            + "FROM journal_entry e JOIN transaction t ON t.id = e.transaction_id "
+            + "WHERE e.company_id = ? AND e.account_id = ? AND e.posting_date >= ? AND e.posting_date < ? "
+            + "ORDER BY e.posting_date, e.id";
+
+    private final AccountCache accountCache;
+    private final DailyBalanceService dailyBalanceService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final org.springframework.transaction.support.TransactionTemplate readOnlyTransaction;
+
+    public GeneralLedgerService(AccountCache accountCache, DailyBalanceService dailyBalanceService,
+            ObjectMapper objectMapper, DataSource dataSource, PlatformTransactionManager transactionManager,
+            @Value("${ledger.general-ledger.fetch-size:1000}") int fetchSize) {
+        this.accountCache = accountCache;
+        this.dailyBalanceService = dailyBalanceService;
+        this.objectMapper = objectMapper;
+        // Own template so the cursor fetches in pages instead of buffering the result
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // Drivers such as PostgreSQL only use a cursor inside a transaction
+        this.readOnlyTransaction = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public enum Format {
+        JSON, CSV;
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown format: " + value);
+            }
+        }
+    }
+
+    /** A validated ledger request: the account and its half-open range [from, to). */
+    public record Ledger(Long companyId, Account account, LocalDate from, LocalDate to) {
+    }
+
+    // Validates up front so errors surface before the response starts streaming
+    public Ledger open(Long companyId, Long accountId, LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        Account account = accountCache.resolve(companyId, List.of(accountId)).get(accountId);
+        if (account == null) {
+            throw new IllegalArgumentException("Account not found");
+        }
+        return new Ledger(companyId, account, from, to);
+    }
+
+    public void write(Ledger ledger, Format format, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            writeCsv(ledger, out);
+        } else {
+            writeJson(ledger, out);
+        }
+    }
+
+    private void writeJson(Ledger ledger, OutputStream out) {
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeNumberProperty("accountId", ledger.account().getId());
+            json.writeStringProperty("accountName", ledger.account().getName());
+            json.writeStringProperty("from", ledger.from().toString());
+            json.writeStringProperty("to", ledger.to().toString());
+            BigDecimal closing = lines(ledger, opening -> {
+                json.writeNumberProperty("openingBalance", opening);
+                json.writeArrayPropertyStart("entries");
+            }, (id, date, transactionId, description, amount, balance) -> {
+                json.writeStartObject();
+                json.writeNumberProperty("id", id);
+                json.writeStringProperty("date", date.toString());
+                json.writeNumberProperty("transactionId", transactionId);
+                json.writeStringProperty("description", description);
+                json.writeNumberProperty("amount", amount);
+                json.writeNumberProperty("balance", balance);
+                json.writeEndObject();
+            });
+            json.writeEndArray();
+            json.writeNumberProperty("closingBalance", closing);
+            json.writeEndObject();
+        }
+    }
+
+    private void writeCsv(Ledger ledger, OutputStream out) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write("date,transaction_id,description,debit,credit,balance\n");
+        BigDecimal closing = lines(ledger, opening -> {
+            try {
+                csv.write(ledger.from() + ",,Opening balance,,," + opening.toPlainString() + "\n");
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, (id, date, transactionId, description, amount, balance) -> {
+            try {
+                csv.write(date + "," + transactionId + "," + escape(description) + ","
+                        + (amount.signum() >= 0 ? amount.toPlainString() : "") + ","
+                        + (amount.signum() < 0 ? amount.negate().toPlainString() : "") + ","
+                        + balance.toPlainString() + "\n");
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        csv.write(ledger.to().minusDays(1) + ",,Closing balance,,," + closing.toPlainString() + "\n");
+        csv.flush();
+    }
+
+    @FunctionalInterface
+    private interface LineSink {
+        void accept(long id, LocalDate date, long transactionId, String description, BigDecimal amount,
+                BigDecimal balance);
+    }
+
+    // Feeds the opening balance, then each line with its running balance, to the sinks;
+    // returns the closing balance
+    private BigDecimal lines(Ledger ledger, Consumer<BigDecimal> openingSink, LineSink sink) {
+        BigDecimal[] balance = new BigDecimal[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            balance[0] = dailyBalanceService.getOpeningBalance(ledger.companyId(), ledger.account().getId(),
+                    ledger.from());
+            openingSink.accept(balance[0]);
+            jdbcTemplate.query(LINES, rs -> {
+                BigDecimal amount = rs.getBigDecimal(5);
+                balance[0] = balance[0].add(amount);
+                sink.accept(rs.getLong(1), rs.getObject(2, LocalDate.class), rs.getLong(3), rs.getString(4), amount,
+                        balance[0]);
+            }, ledger.companyId(), ledger.account().getId(), ledger.from(), ledger.to());
+        });
+        return balance[0];
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,258 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BatchItemResult;
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import com.balancesheet.backend.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates and approves invoices in bulk, e.g. for a month-end billing run.
+ * Like BatchPostingService, each chunk commits in its own database
+ * transaction and a failing invoice is reported in the result instead of
+ * aborting the rest. Customers and accounts are looked up once per batch, and
+ * an approval chunk loads its invoices in one query and posts all of their
+ * journal entries with JDBC batch inserts.
+ */
+@Service
+@lombok.extern.slf4j.Slf4j
+public class InvoiceBatchService {
+
+    private final InvoiceService invoiceService;
+    private final AccountingService accountingService;
+    private final AccountCache accountCache;
+    private final ReceivablesService receivablesService;
+    private final StockService stockService;
+    private final InvoiceRepository invoiceRepository;
+    private final CustomerRepository customerRepository;
+    private final CompanyRepository companyRepository;
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final org.springframework.transaction.support.TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public InvoiceBatchService(InvoiceService invoiceService, AccountingService accountingService,
+            AccountCache accountCache, ReceivablesService receivablesService, StockService stockService,
+            InvoiceRepository invoiceRepository, CustomerRepository customerRepository,
+            CompanyRepository companyRepository, ProductRepository productRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.batch.chunk-size:500}") int chunkSize,
+            @Value("${ledger.batch.max-items:20000}") int maxItems) {
+        this.invoiceService = invoiceService;
+        this.accountingService = accountingService;
+        this.accountCache = accountCache;
+        this.receivablesService = receivablesService;
+        this.stockService = stockService;
+        this.invoiceRepository = invoiceRepository;
+        this.customerRepository = customerRepository;
+        this.companyRepository = companyRepository;
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public BatchResult createInvoices(List<Invoice> invoices, Long companyId) {
+        checkSize(invoices.size());
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new IllegalArgumentException("Company not found"));
+        Map<Long, Customer> customers = customerRepository.findByCompanyId(companyId).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Set<Long> productIds = new HashSet<>(productRepository.findIdsByCompanyId(companyId));
+        // Malformed invoices are skipped here and reported per item by prepare
+        Map<Long, Account> accounts = accountCache.resolve(companyId, invoices.stream()
+                .filter(invoice -> invoice != null && invoice.getItems() != null)
+                .flatMap(invoice -> invoice.getItems().stream())
+                .filter(Objects::nonNull)
+                .map(item -> item.getRevenueAccount() != null ? item.getRevenueAccount().getId() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        long started = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[invoices.size()];
+        for (int from = 0; from < invoices.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, invoices.size());
+            Map<Integer, Invoice> valid = new LinkedHashMap<>();
+            for (int i = from; i < to; i++) {
+                try {
+                    Invoice invoice = invoices.get(i);
+                    prepare(invoice, company, customers, accounts, productIds);
+                    valid.put(i, invoice);
+                } catch (IllegalArgumentException ex) {
+                    results[i] = BatchItemResult.failed(i, ex.getMessage());
+                }
+            }
+            save(valid, from, to, results, this::saveInvoices);
+        }
+
+        return finish("creation", companyId, results, started);
+    }
+
+    public BatchResult approveInvoices(List<Long> invoiceIds, Long companyId, Long arAccountId) {
+        checkSize(invoiceIds.size());
+        Account arAccount = Optional
+                .ofNullable(accountCache.resolve(companyId, List.of(arAccountId)).get(arAccountId))
+                .orElseThrow(() -> new IllegalArgumentException("AR Account not found"));
+
+        long started = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[invoiceIds.size()];
+        for (int from = 0; from < invoiceIds.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, invoiceIds.size());
+            Map<Integer, Long> chunk = new LinkedHashMap<>();
+            for (int i = from; i < to; i++) {
+                if (invoiceIds.get(i) == null) {
+                    results[i] = BatchItemResult.failed(i, "Invoice ID is required");
+                } else {
+                    chunk.put(i, invoiceIds.get(i));
+                }
+            }
+            save(chunk, from, to, results, ids -> approve(ids, companyId, arAccount, results));
+        }
+
+        return finish("approval", companyId, results, started);
+    }
+
+    /**
+     * Runs a chunk in one database transaction; the step returns the id to
+     * report per item, or leaves items out that it already reported as
+     * failed. If the chunk fails as a whole, its items are retried one by one
+     * to isolate the failure.
+     */
+    private <T> void save(Map<Integer, T> items, int from, int to, BatchItemResult[] results,
+            Function<Map<Integer, T>, Map<Integer, Long>> step) {
+        if (items.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> step.apply(items))
+                    .forEach((i, id) -> results[i] = BatchItemResult.posted(i, id));
+        } catch (RuntimeException ex) {
+            log.warn("Invoice chunk {}-{} failed ({}), retrying items individually", from, to - 1, ex.getMessage());
+            items.forEach((i, item) -> {
+                try {
+                    transactionTemplate.execute(status -> step.apply(Map.of(i, item)))
+                            .forEach((index, id) -> results[index] = BatchItemResult.posted(index, id));
+                } catch (RuntimeException itemEx) {
+                    results[i] = BatchItemResult.failed(i,
+                            NestedExceptionUtils.getMostSpecificCause(itemEx).getMessage());
+                }
+            });
+        }
+    }
+
+    private void prepare(Invoice invoice, Company company, Map<Long, Customer> customers,
+            Map<Long, Account> accounts, Set<Long> productIds) {
+        if (invoice == null) {
+            throw new IllegalArgumentException("Invoice is required");
+        }
+        Customer customer = invoice.getCustomer() != null ? customers.get(invoice.getCustomer().getId()) : null;
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer not found");
+        }
+        if (invoice.getDate() == null || invoice.getDueDate() == null) {
+            throw new IllegalArgumentException("Invoice date and due date are required");
+        }
+        if (invoice.getItems() == null || invoice.getItems().contains(null)) {
+            throw new IllegalArgumentException("Invoice items are required");
+        }
+        for (InvoiceItem item : invoice.getItems()) {
+            if (item.getQuantity() == null || item.getUnitPrice() == null) {
+                throw new IllegalArgumentException("Quantity and unit price are required");
+            }
+            Account revenue = item.getRevenueAccount() != null ? accounts.get(item.getRevenueAccount().getId()) : null;
+            if (revenue == null) {
+                throw new IllegalArgumentException("Revenue account not found");
+            }
+            item.setRevenueAccount(revenue);
+        }
+        invoiceService.prepare(invoice, company, customer, productIds::contains);
+    }
+
+    private Map<Integer, Long> saveInvoices(Map<Integer, Invoice> invoices) {
+        Map<Integer, Long> ids = new LinkedHashMap<>();
+        invoices.forEach((i, invoice) -> {
+            // A retry after a rolled-back chunk must insert again, keeping the allocated number
+            invoice.setId(null);
+            invoice.setVersion(null);
+            invoice.getItems().forEach(item -> item.setId(null));
+            entityManager.persist(invoice);
+        });
+        entityManager.flush();
+        invoices.forEach((i, invoice) -> ids.put(i, invoice.getId()));
+        entityManager.clear();
+        return ids;
+    }
+
+    // Posts the chunk's draft invoices; returns the transaction id per item
+    private Map<Integer, Long> approve(Map<Integer, Long> invoiceIds, Long companyId, Account arAccount,
+            BatchItemResult[] results) {
+        Map<Long, Invoice> invoices = invoiceRepository.findAllForPosting(invoiceIds.values()).stream()
+                .collect(Collectors.toMap(Invoice::getId, Function.identity()));
+
+        Map<Integer, Invoice> ready = new LinkedHashMap<>();
+        Map<Integer, Transaction> postings = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        invoiceIds.forEach((i, id) -> {
+            try {
+                if (!seen.add(id)) {
+                    // Still a draft in this chunk; it must not be posted twice
+                    throw new IllegalArgumentException("Invoice is listed more than once");
+                }
+                Invoice invoice = Optional.ofNullable(invoices.get(id))
+                        .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
+                invoiceService.checkApprovable(invoice, companyId);
+                postings.put(i, invoiceService.buildPosting(invoice, arAccount));
+                ready.put(i, invoice);
+            } catch (IllegalArgumentException | IllegalStateException | SecurityException ex) {
+                results[i] = BatchItemResult.failed(i, ex.getMessage());
+            }
+        });
+        if (ready.isEmpty()) {
+            return Map.of();
+        }
+
+        accountingService.postAll(postings.values());
+        ready.forEach((i, invoice) -> {
+            invoice.setStatus(InvoiceStatus.POSTED);
+            invoice.setTransaction(postings.get(i));
+            invoice.setArAccount(arAccount);
+        });
+        receivablesService.open(ready.values());
+        stockService.onInvoicesPosted(ready.values());
+        // Flush while the inserts are still grouped and keep the persistence context small
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<Integer, Long> ids = new LinkedHashMap<>();
+        postings.forEach((i, transaction) -> ids.put(i, transaction.getId()));
+        return ids;
+    }
+
+    private void checkSize(int size) {
+        if (size > maxItems) {
+            throw new IllegalArgumentException("Batch exceeds the limit of " + maxItems + " invoices");
+        }
+    }
+
+    private BatchResult finish(String operation, Long companyId, BatchItemResult[] results, long started) {
+        BatchResult result = new BatchResult(Arrays.asList(results), System.nanoTime() - started);
+        log.info("Invoice batch {} for company {}: {} succeeded, {} failed in {} ms ({} per second)", operation,
+                companyId, result.getPosted(), result.getFailed(), result.getElapsedMillis(),
+                Math.round(result.getItemsPerSecond()));
+        return result;
+    }
+}
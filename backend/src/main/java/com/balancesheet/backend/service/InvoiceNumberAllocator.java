@@ -0,0 +1,195 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.Company;
+import com.balancesheet.backend.model.InvoiceNumberSequence;
+import com.balancesheet.backend.repository.InvoiceNumberSequenceRepository;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Allocates invoice numbers per company and year. Each instance reserves a
+ * block of numbers at a time by moving a database counter forward in its own
+ * short transaction, then hands the block out from memory with an atomic
+ * increment; the database is only touched once per block. Instances never
+ * share a block, so numbers are unique across nodes, but they are not in
+ * creation order across nodes.
+ *
+ * Numbers can be skipped: the rest of a block is lost when the instance stops,
+ * and a number is used up even if the invoice creating it rolls back. The
+ * numbering report lists those gaps. A block size of 1 keeps gaps to rollbacks
+ * at the cost of a database round trip per invoice.
+ */
+@Service
+@lombok.extern.slf4j.Slf4j
+public class InvoiceNumberAllocator {
+
+    private static final Pattern TOKEN = Pattern.compile("\\{(year|company|seq)(?::(\\d{1,2}))?}");
+
+    /** An allocated number and where it sits in the company's numbering. */
+    public record Allocation(String invoiceNumber, int year, long sequence) {
+    }
+
+    private record Key(Long companyId, int year) {
+    }
+
+    // Numbers [next, end) of a reserved block
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    private static final Block EXHAUSTED = new Block(0, 0);
+
+    private final InvoiceNumberSequenceRepository sequenceRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final org.springframework.transaction.support.TransactionTemplate reserveTransaction;
+    private final int blockSize;
+    private final String defaultFormat;
+    private final Map<Key, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+
+    public InvoiceNumberAllocator(InvoiceNumberSequenceRepository sequenceRepository,
+            InvoiceRepository invoiceRepository, PlatformTransactionManager transactionManager,
+            @Value("${ledger.invoice-number.block-size:100}") int blockSize,
+            @Value("${ledger.invoice-number.format:INV-{year}-{seq:5}}") String defaultFormat) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invoice number block size must be positive");
+        }
+        validateFormat(defaultFormat);
+        this.sequenceRepository = sequenceRepository;
+        this.invoiceRepository = invoiceRepository;
+        // Reservations commit on their own so the row lock is held only briefly
+        this.reserveTransaction = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+        this.defaultFormat = defaultFormat;
+    }
+
+    public Allocation next(Company company, int year) {
+        AtomicReference<Block> current = blocks.computeIfAbsent(new Key(company.getId(), year),
+                key -> new AtomicReference<>(EXHAUSTED));
+        while (true) {
+            Block block = current.get();
+            long sequence = block.next.getAndIncrement();
+            if (sequence < block.end) {
+                return new Allocation(format(formatOf(company), company.getId(), year, sequence), year, sequence);
+            }
+            // Only the first thread to find the block used up reserves the next one
+            synchronized (current) {
+                if (current.get() == block) {
+                    current.set(reserve(company.getId(), year));
+                }
+            }
+        }
+    }
+
+    private Block reserve(Long companyId, int year) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                return reserveTransaction.execute(status -> {
+                    if (sequenceRepository.advance(companyId, year, blockSize) == 1) {
+                        long end = sequenceRepository.findByCompanyIdAndSequenceYear(companyId, year)
+                                .orElseThrow().getNextValue();
+                        return new Block(end - blockSize, end);
+                    }
+                    sequenceRepository.saveAndFlush(new InvoiceNumberSequence(companyId, year, 1L + blockSize));
+                    return new Block(1, 1L + blockSize);
+                });
+            } catch (DataIntegrityViolationException ex) {
+                // Another instance started the year first; its row is there now
+                if (attempt > 0) {
+                    throw ex;
+                }
+                log.debug("Invoice numbering for company {} in {} created concurrently", companyId, year);
+            }
+        }
+    }
+
+    /**
+     * Numbers skipped in the company's numbering for the year, as ranges up to
+     * the highest issued number. Hand-entered numbers are not counted.
+     */
+    public Map<String, Object> numbering(Company company, int year) {
+        List<Long> issued = invoiceRepository.findNumberSequences(company.getId(), year);
+        List<Map<String, Object>> gaps = new ArrayList<>();
+        long expected = 1;
+        long missing = 0;
+        for (long sequence : issued) {
+            if (sequence > expected) {
+                Map<String, Object> gap = new LinkedHashMap<>();
+                gap.put("from", expected);
+                gap.put("to", sequence - 1);
+                gaps.add(gap);
+                missing += sequence - expected;
+            }
+            expected = sequence + 1;
+        }
+
+        Map<String, Object> numbering = new LinkedHashMap<>();
+        numbering.put("year", year);
+        numbering.put("format", formatOf(company));
+        numbering.put("issued", issued.size());
+        numbering.put("highest", issued.isEmpty() ? 0 : issued.get(issued.size() - 1));
+        numbering.put("reservedThrough", sequenceRepository.findByCompanyIdAndSequenceYear(company.getId(), year)
+                .map(sequence -> sequence.getNextValue() - 1).orElse(0L));
+        numbering.put("missing", missing);
+        numbering.put("gaps", gaps);
+        return numbering;
+    }
+
+    private String formatOf(Company company) {
+        return company.getInvoiceNumberFormat() != null ? company.getInvoiceNumberFormat() : defaultFormat;
+    }
+
+    /**
+     * Formats support {year}, {company} (the company id) and {seq}, optionally
+     * zero-padded as {seq:5}. Both {year} and {seq} are required, since the
+     * sequence restarts every year.
+     */
+    public static void validateFormat(String format) {
+        if (format == null || format.isBlank()) {
+            throw new IllegalArgumentException("Invoice number format must not be empty");
+        }
+        Set<String> tokens = new HashSet<>();
+        Matcher matcher = TOKEN.matcher(format);
+        while (matcher.find()) {
+            tokens.add(matcher.group(1));
+        }
+        if (!tokens.contains("year") || !tokens.contains("seq")) {
+            throw new IllegalArgumentException("Invoice number format must contain {year} and {seq}: " + format);
+        }
+    }
+
+    static String format(String format, Long companyId, int year, long sequence) {
+        Matcher matcher = TOKEN.matcher(format);
+        StringBuilder number = new StringBuilder();
+        while (matcher.find()) {
+            String value = switch (matcher.group(1)) {
+                case "year" -> String.valueOf(year);
+                case "company" -> String.valueOf(companyId);
+                default -> matcher.group(2) != null
+                        ? String.format("%0" + matcher.group(2) + "d", sequence)
+                        : String.valueOf(sequence);
+            };
+            matcher.appendReplacement(number, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(number);
+        return number.toString();
+    }
+}
@@ -6,7 +6,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 @Service
 public class InvoiceService {
@@ -14,17 +17,27 @@ public class InvoiceService {
     private final InvoiceRepository invoiceRepository;
     private final CustomerRepository customerRepository;
     private final CompanyRepository companyRepository;
-    private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final AccountingService accountingService;
+    private final InvoiceNumberAllocator numberAllocator;
+    private final ReceivablesService receivablesService;
+    private final StockService stockService;
+    private final ProductRepository productRepository;
 
     public InvoiceService(InvoiceRepository invoiceRepository, CustomerRepository customerRepository,
-            CompanyRepository companyRepository, TransactionRepository transactionRepository,
-            AccountRepository accountRepository) {
+            CompanyRepository companyRepository, AccountRepository accountRepository,
+            AccountingService accountingService, InvoiceNumberAllocator numberAllocator,
+            ReceivablesService receivablesService, StockService stockService,
+            ProductRepository productRepository) {
         this.invoiceRepository = invoiceRepository;
         this.customerRepository = customerRepository;
         this.companyRepository = companyRepository;
-        this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
+        this.accountingService = accountingService;
+        this.numberAllocator = numberAllocator;
+        this.receivablesService = receivablesService;
+        this.stockService = stockService;
+        this.productRepository = productRepository;
     }
 
     public List<Invoice> getAllInvoices(Long companyId) {
@@ -39,6 +52,18 @@ public class InvoiceService {
         Customer customer = customerRepository.findById(invoice.getCustomer().getId())
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
 
+        prepare(invoice, company, customer);
+        return invoiceRepository.save(invoice);
+    }
+
+    // Draft state, line amounts, total and number of a new invoice
+    void prepare(Invoice invoice, Company company, Customer customer) {
+        prepare(invoice, company, customer,
+                productId -> productRepository.existsByIdAndCompanyId(productId, company.getId()));
+    }
+
+    // Same, with the check that a product id belongs to the company supplied by the caller
+    void prepare(Invoice invoice, Company company, Customer customer, Predicate<Long> ownProduct) {
         invoice.setCompany(company);
         invoice.setCustomer(customer);
         invoice.setStatus(InvoiceStatus.DRAFT);
@@ -47,25 +72,64 @@ public class InvoiceService {
         BigDecimal total = BigDecimal.ZERO;
         for (InvoiceItem item : invoice.getItems()) {
             item.setInvoice(invoice);
+            if (item.getProduct() != null) {
+                // Posting takes the stock, so the product must be one of the company's own
+                if (item.getProduct().getId() == null || !ownProduct.test(item.getProduct().getId())) {
+                    throw new IllegalArgumentException("Product not found");
+                }
+                // Rejected now rather than when posting takes the stock
+                StockService.wholeUnits(item);
+            }
             BigDecimal lineTotal = item.getQuantity().multiply(item.getUnitPrice());
             item.setAmount(lineTotal);
             total = total.add(lineTotal);
         }
         invoice.setTotalAmount(total);
+        invoice.setAmountPaid(BigDecimal.ZERO);
+        invoice.setOpenBalance(total);
 
-        // Auto-generate invoice number if not present (simple logic for now)
+        // Next number in the company's numbering for the invoice year unless given
         if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
-            invoice.setInvoiceNumber("INV-" + System.currentTimeMillis());
+            int year = (invoice.getDate() != null ? invoice.getDate() : LocalDate.now()).getYear();
+            InvoiceNumberAllocator.Allocation number = numberAllocator.next(company, year);
+            invoice.setInvoiceNumber(number.invoiceNumber());
+            invoice.setNumberYear(number.year());
+            invoice.setNumberSequence(number.sequence());
+        } else {
+            invoice.setNumberYear(null);
+            invoice.setNumberSequence(null);
         }
+    }
 
-        return invoiceRepository.save(invoice);
+    public Map<String, Object> getNumbering(Long companyId, int year) {
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new IllegalArgumentException("Company not found"));
+        return numberAllocator.numbering(company, year);
     }
 
     @Transactional
     public Invoice approveInvoice(Long invoiceId, Long companyId, Long arAccountId) {
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
+        checkApprovable(invoice, companyId);
+
+        Account arAccount = accountRepository.findById(arAccountId)
+                .orElseThrow(() -> new IllegalArgumentException("AR Account not found"));
+        Transaction transaction = buildPosting(invoice, arAccount);
+
+        accountingService.post(transaction);
+
+        // 4. Update Invoice
+        invoice.setStatus(InvoiceStatus.POSTED);
+        invoice.setTransaction(transaction);
+        invoice.setArAccount(arAccount);
+        receivablesService.open(List.of(invoice));
+        stockService.onInvoicesPosted(List.of(invoice));
+
+        return invoiceRepository.save(invoice);
+    }
 
+    void checkApprovable(Invoice invoice, Long companyId) {
         if (!invoice.getCompany().getId().equals(companyId)) {
             throw new SecurityException("Unauthorized");
         }
@@ -73,7 +137,10 @@ public class InvoiceService {
         if (invoice.getStatus() != InvoiceStatus.DRAFT) {
             throw new IllegalStateException("Invoice is not in DRAFT status");
         }
+    }
 
+    // Debits AR with the total and credits each line's revenue account
+    Transaction buildPosting(Invoice invoice, Account arAccount) {
         // 1. Create Transaction
         Transaction transaction = new Transaction();
         transaction.setCompany(invoice.getCompany());
@@ -82,9 +149,6 @@ public class InvoiceService {
         transaction.setCurrency(invoice.getCurrency());
 
         // 2. Debit Accounts Receivable
-        Account arAccount = accountRepository.findById(arAccountId)
-                .orElseThrow(() -> new IllegalArgumentException("AR Account not found"));
-
         JournalEntry arEntry = new JournalEntry();
         arEntry.setAccount(arAccount);
         arEntry.setAmount(invoice.getTotalAmount()); // Debit is Positive
@@ -100,12 +164,6 @@ public class InvoiceService {
             transaction.getEntries().add(revenueEntry);
         }
 
-        transactionRepository.save(transaction);
-
-        // 4. Update Invoice
-        invoice.setStatus(InvoiceStatus.POSTED);
-        invoice.setTransaction(transaction);
-
-        return invoiceRepository.save(invoice);
+        return transaction;
     }
 }
@@ -0,0 +1,189 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.Account;
+import com.balancesheet.backend.model.AccountType;
+import com.balancesheet.backend.repository.DailyAccountBalanceRepository;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Date-range aggregates used by the reports, answered by the engine chosen
+ * with ledger.report-engine: the daily balance table (database, default) or
+ * the in-memory column store (columnar). Rows have the same shape either way.
+ */
+@Service
+public class LedgerAggregates {
+
+    public enum Engine {
+        DATABASE, COLUMNAR
+    }
+
+    private final DailyAccountBalanceRepository dailyBalanceRepository;
+    private final LedgerColumnStore columnStore;
+    private final AccountCache accountCache;
+
+    public LedgerAggregates(DailyAccountBalanceRepository dailyBalanceRepository, LedgerColumnStore columnStore,
+            AccountCache accountCache) {
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.columnStore = columnStore;
+        this.accountCache = accountCache;
+    }
+
+    public Engine getEngine() {
+        return columnStore.isEnabled() ? Engine.COLUMNAR : Engine.DATABASE;
+    }
+
+    // Rows: account type, net amount over [from, to)
+    public List<Object[]> sumByAccountTypeBetween(Long companyId, LocalDate from, LocalDate to) {
+        return sumByAccountTypeBetween(getEngine(), companyId, from, to);
+    }
+
+    public List<Object[]> sumByAccountTypeBetween(Engine engine, Long companyId, LocalDate from, LocalDate to) {
+        if (engine == Engine.COLUMNAR) {
+            Optional<List<Object[]>> rows = columnStore.sumByAccountType(companyId, from, to);
+            if (rows.isPresent()) {
+                return rows.get();
+            }
+        }
+        return dailyBalanceRepository.sumByAccountTypeBetween(companyId, from, to);
+    }
+
+    // Rows: account, net amount over [from, to)
+    public List<Object[]> sumByAccountBetween(Long companyId, LocalDate from, LocalDate to) {
+        return sumByAccountBetween(getEngine(), companyId, from, to);
+    }
+
+    public List<Object[]> sumByAccountBetween(Engine engine, Long companyId, LocalDate from, LocalDate to) {
+        if (engine == Engine.COLUMNAR) {
+            Optional<Map<Long, BigDecimal>> sums = columnStore.sumByAccount(companyId, from, to);
+            if (sums.isPresent()) {
+                Map<Long, Account> accounts = accountCache.resolve(companyId, sums.get().keySet());
+                List<Object[]> rows = new ArrayList<>();
+                sums.get().forEach((accountId, amount) -> rows.add(new Object[] { accounts.get(accountId), amount }));
+                return rows;
+            }
+        }
+        return dailyBalanceRepository.sumByAccountBetween(companyId, from, to);
+    }
+
+    /**
+     * Net movement per period and account, for accounts of the given types, in
+     * one grouped pass. Period i covers [boundaries[i], boundaries[i + 1]).
+     * Rows: period index, account id, amount.
+     */
+    public List<Object[]> sumByPeriodAndAccount(Long companyId, Set<AccountType> types,
+            List<LocalDate> boundaries) {
+        return sumByPeriodAndAccount(getEngine(), companyId, types, boundaries);
+    }
+
+    public List<Object[]> sumByPeriodAndAccount(Engine engine, Long companyId, Set<AccountType> types,
+            List<LocalDate> boundaries) {
+        int[] epochDays = boundaries.stream().mapToInt(day -> (int) day.toEpochDay()).toArray();
+        if (engine == Engine.COLUMNAR) {
+            Optional<List<Object[]>> rows = columnStore.sumByPeriodAndAccount(companyId, types, epochDays);
+            if (rows.isPresent()) {
+                return rows.get();
+            }
+        }
+
+        LocalDate from = boundaries.get(0);
+        LocalDate to = boundaries.get(boundaries.size() - 1);
+        // Calendar-aligned periods only need month totals; others need day totals
+        boolean monthAligned = boundaries.stream().allMatch(day -> day.getDayOfMonth() == 1);
+        Map<List<Long>, BigDecimal> sums = new LinkedHashMap<>();
+        if (monthAligned) {
+            for (Object[] row : dailyBalanceRepository.sumByAccountAndMonthBetween(companyId, types, from, to)) {
+                LocalDate month = LocalDate.of((Integer) row[1], (Integer) row[2], 1);
+                sums.merge(List.of((long) period(epochDays, month), (Long) row[0]), (BigDecimal) row[3],
+                        BigDecimal::add);
+            }
+        } else {
+            for (Object[] row : dailyBalanceRepository.sumByAccountAndDayBetween(companyId, types, from, to)) {
+                sums.merge(List.of((long) period(epochDays, (LocalDate) row[1]), (Long) row[0]),
+                        (BigDecimal) row[2], BigDecimal::add);
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        sums.forEach((key, amount) -> rows.add(new Object[] { key.get(0).intValue(), key.get(1), amount }));
+        return rows;
+    }
+
+    /**
+     * Balance of every account at the start of each of the two days, from one
+     * aggregate. Rows: account id, balance before first, balance before second.
+     */
+    public List<Object[]> balancesBefore(Long companyId, LocalDate first, LocalDate second) {
+        return balancesBefore(getEngine(), companyId, first, second);
+    }
+
+    public List<Object[]> balancesBefore(Engine engine, Long companyId, LocalDate first, LocalDate second) {
+        LocalDate until = first.isAfter(second) ? first : second;
+        if (engine == Engine.COLUMNAR) {
+            boolean firstIsEarlier = !first.isAfter(second);
+            LocalDate earlier = firstIsEarlier ? first : second;
+            // Two periods: everything before the earlier day, then up to the later one
+            Optional<List<Object[]>> periods = columnStore.sumByPeriodAndAccount(companyId,
+                    EnumSet.allOf(AccountType.class),
+                    new int[] { Integer.MIN_VALUE, (int) earlier.toEpochDay(), (int) until.toEpochDay() });
+            if (periods.isPresent()) {
+                Map<Long, BigDecimal[]> balances = new LinkedHashMap<>();
+                for (Object[] row : periods.get()) {
+                    BigDecimal[] balance = balances.computeIfAbsent((Long) row[1],
+                            id -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO });
+                    if ((Integer) row[0] == 0) {
+                        balance[0] = balance[0].add((BigDecimal) row[2]);
+                    }
+                    balance[1] = balance[1].add((BigDecimal) row[2]);
+                }
+                List<Object[]> rows = new ArrayList<>();
+                balances.forEach((accountId, balance) -> rows.add(firstIsEarlier
+                        ? new Object[] { accountId, balance[0], balance[1] }
+                        : new Object[] { accountId, balance[1], balance[0] }));
+                return rows;
+            }
+        }
+        return dailyBalanceRepository.sumByAccountBeforeEach(companyId, first, second, until);
+    }
+
+    private static int period(int[] boundaries, LocalDate day) {
+        int index = Arrays.binarySearch(boundaries, (int) day.toEpochDay());
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Runs the account-type aggregate on both engines and reports their timings
+     * and whether they agree.
+     */
+    public Map<String, Object> compareEngines(Long companyId, LocalDate from, LocalDate to) {
+        if (!columnStore.isEnabled()) {
+            throw new IllegalArgumentException("Columnar engine is disabled (set ledger.report-engine=columnar)");
+        }
+
+        Map<String, Object> comparison = new HashMap<>();
+        comparison.put("from", from);
+        comparison.put("to", to);
+        Map<AccountType, BigDecimal> database = timed(comparison, "database", Engine.DATABASE, companyId, from, to);
+        Map<AccountType, BigDecimal> columnar = timed(comparison, "columnar", Engine.COLUMNAR, companyId, from, to);
+        comparison.put("consistent", database.equals(columnar));
+        return comparison;
+    }
+
+    private Map<AccountType, BigDecimal> timed(Map<String, Object> comparison, String key, Engine engine,
+            Long companyId, LocalDate from, LocalDate to) {
+        long started = System.nanoTime();
+        List<Object[]> rows = sumByAccountTypeBetween(engine, companyId, from, to);
+        long micros = (System.nanoTime() - started) / 1_000;
+
+        Map<AccountType, BigDecimal> totals = new EnumMap<>(AccountType.class);
+        for (Object[] row : rows) {
+            // Normalised so 10.5 and 10.50 compare equal
+            totals.put((AccountType) row[0], ((BigDecimal) row[1]).stripTrailingZeros());
+        }
+        comparison.put(key, Map.of("totals", totals, "micros", micros));
+        return totals;
+    }
+}
@@ -0,0 +1,401 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.Account;
+import com.balancesheet.backend.model.AccountType;
+import com.balancesheet.backend.model.JournalEntry;
+import com.balancesheet.backend.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process columnar copy of each company's journal for the columnar report
+ * engine: one row per journal entry, held as parallel primitive arrays
+ * (account index, epoch day, amount in minor units). Aggregates are plain
+ * loops over these arrays. The database stays the source of truth; a
+ * company's columns are loaded from journal_entry on first use and committed
+ * postings are appended afterwards. The columns remember the ledger version
+ * they reflect, and every query first compares it with the version in the
+ * database, so postings made by other instances cause a reload rather than
+ * being missed.
+ */
+@Component
+@lombok.extern.slf4j.Slf4j
+public class LedgerColumnStore {
+
+    // Journal amounts are numeric(38,2), so minor units are hundredths
+    private static final int SCALE = 2;
+    private static final int MAX_LOAD_ATTEMPTS = 5;
+
+    private final Map<Long, CompanyState> companies = new ConcurrentHashMap<>();
+    private final AccountRepository accountRepository;
+    private final LedgerVersions ledgerVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final org.springframework.transaction.support.TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    public LedgerColumnStore(AccountRepository accountRepository, DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.report-engine:database}") String reportEngine, LedgerVersions ledgerVersions) {
+        this.accountRepository = accountRepository;
+        this.ledgerVersions = ledgerVersions;
+        // Own template so the large load can stream with a fetch size
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.readOnlyTransaction = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // The ledger version and the rows have to come from the same snapshot
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = "columnar".equalsIgnoreCase(reportEngine);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private record Row(Long companyId, Long accountId, AccountType type, int day, long amount) {
+    }
+
+    /**
+     * Called by the posting path inside its transaction. The rows are appended
+     * only once the transaction has committed.
+     */
+    public void onPosted(Collection<JournalEntry> entries) {
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive() || entries.isEmpty()) {
+            return;
+        }
+
+        List<Row> rows = new ArrayList<>(entries.size());
+        for (JournalEntry entry : entries) {
+            rows.add(new Row(entry.getCompanyId(), entry.getAccount().getId(), entry.getAccount().getType(),
+                    (int) entry.getPostingDate().toEpochDay(), toMinorUnits(entry.getAmount())));
+        }
+        Set<Long> companyIds = new HashSet<>();
+        rows.forEach(row -> companyIds.add(row.companyId()));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                companyIds.forEach(id -> state(id).beginCommit());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (committing) {
+                    boolean committed = status == STATUS_COMMITTED;
+                    companyIds.forEach(id -> state(id).endCommit(committed ? rows : List.of(), id,
+                            committed ? ledgerVersions.committingVersion(id) : OptionalLong.empty()));
+                }
+            }
+
+            // Before LedgerVersions, which forgets the transaction's versions after completion
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE - 1;
+            }
+        });
+    }
+
+    /**
+     * Net movement per account type over [from, to), or empty if the company's
+     * columns could not be loaded consistently.
+     */
+    public Optional<List<Object[]>> sumByAccountType(Long companyId, LocalDate from, LocalDate to) {
+        return snapshot(companyId).map(columns -> {
+            long[] byAccount = new long[columns.accountCount()];
+            boolean[] hit = new boolean[columns.accountCount()];
+            columns.sumByAccount((int) from.toEpochDay(), (int) to.toEpochDay(), byAccount, hit);
+
+            long[] byType = new long[AccountType.values().length];
+            boolean[] typeHit = new boolean[byType.length];
+            for (int a = 0; a < columns.accountCount(); a++) {
+                if (hit[a]) {
+                    int type = columns.types()[a].ordinal();
+                    byType[type] += byAccount[a];
+                    typeHit[type] = true;
+                }
+            }
+
+            List<Object[]> rows = new ArrayList<>();
+            for (AccountType type : AccountType.values()) {
+                if (typeHit[type.ordinal()]) {
+                    rows.add(new Object[] { type, BigDecimal.valueOf(byType[type.ordinal()], SCALE) });
+                }
+            }
+            return rows;
+        });
+    }
+
+    // Net movement per account id over [from, to), for accounts with entries in the range
+    public Optional<Map<Long, BigDecimal>> sumByAccount(Long companyId, LocalDate from, LocalDate to) {
+        return snapshot(companyId).map(columns -> {
+            long[] byAccount = new long[columns.accountCount()];
+            boolean[] hit = new boolean[columns.accountCount()];
+            columns.sumByAccount((int) from.toEpochDay(), (int) to.toEpochDay(), byAccount, hit);
+
+            Map<Long, BigDecimal> sums = new LinkedHashMap<>();
+            for (int a = 0; a < columns.accountCount(); a++) {
+                if (hit[a]) {
+                    sums.put(columns.accountIds()[a], BigDecimal.valueOf(byAccount[a], SCALE));
+                }
+            }
+            return sums;
+        });
+    }
+
+    /**
+     * Net movement per period and account for accounts of the given types.
+     * Period i covers [boundaries[i], boundaries[i + 1]) in epoch days.
+     * Rows: period index, account id, amount.
+     */
+    public Optional<List<Object[]>> sumByPeriodAndAccount(Long companyId, Set<AccountType> types,
+            int[] boundaries) {
+        return snapshot(companyId).map(columns -> {
+            int periods = boundaries.length - 1;
+            int accounts = columns.accountCount();
+            boolean[] included = new boolean[accounts];
+            for (int a = 0; a < accounts; a++) {
+                included[a] = types.contains(columns.types()[a]);
+            }
+
+            long[] sums = new long[periods * accounts];
+            boolean[] hit = new boolean[periods * accounts];
+            int first = boundaries[0];
+            int last = boundaries[periods];
+            for (int i = 0; i < columns.size(); i++) {
+                int d = columns.day()[i];
+                int a = columns.account()[i];
+                if (d >= first && d < last && included[a]) {
+                    // Index of the last boundary <= d
+                    int period = Arrays.binarySearch(boundaries, d);
+                    period = period >= 0 ? period : -period - 2;
+                    sums[period * accounts + a] += columns.amount()[i];
+                    hit[period * accounts + a] = true;
+                }
+            }
+
+            List<Object[]> rows = new ArrayList<>();
+            for (int p = 0; p < periods; p++) {
+                for (int a = 0; a < accounts; a++) {
+                    if (hit[p * accounts + a]) {
+                        rows.add(new Object[] { p, columns.accountIds()[a],
+                                BigDecimal.valueOf(sums[p * accounts + a], SCALE) });
+                    }
+                }
+            }
+            return rows;
+        });
+    }
+
+    // Drops the company's columns; the next query reloads them from the database
+    public void invalidate(Long companyId) {
+        CompanyState state = companies.get(companyId);
+        if (state != null) {
+            synchronized (state) {
+                state.columns = null;
+            }
+        }
+    }
+
+    // Loads (or reloads) the company's columns from the journal
+    public boolean load(Long companyId) {
+        CompanyState state = state(companyId);
+        synchronized (state.loadLock) {
+            for (int attempt = 1; attempt <= MAX_LOAD_ATTEMPTS; attempt++) {
+                synchronized (state) {
+                    state.loading = true;
+                    // A posting between beforeCommit and afterCompletion may or may not be visible to the read
+                    state.dirty = state.inFlight > 0;
+                }
+
+                Columns columns;
+                try {
+                    columns = read(companyId);
+                } catch (RuntimeException ex) {
+                    synchronized (state) {
+                        state.loading = false;
+                    }
+                    log.warn("Column store load for company {} failed ({}); using the database", companyId,
+                            ex.getMessage());
+                    return false;
+                }
+
+                synchronized (state) {
+                    if (!state.dirty) {
+                        state.columns = columns;
+                        state.loading = false;
+                        log.info("Loaded {} journal rows into the column store for company {}", columns.size,
+                                companyId);
+                        return true;
+                    }
+                }
+            }
+
+            synchronized (state) {
+                state.loading = false;
+            }
+            log.warn("Column store load for company {} kept racing with postings; using the database", companyId);
+            return false;
+        }
+    }
+
+    private Optional<View> snapshot(Long companyId) {
+        CompanyState state = state(companyId);
+        long version = ledgerVersions.current(companyId);
+        synchronized (state) {
+            if (state.columns != null && state.columns.version == version) {
+                return Optional.of(state.columns.snapshot());
+            }
+        }
+        if (!load(companyId)) {
+            return Optional.empty();
+        }
+        synchronized (state) {
+            return Optional.ofNullable(state.columns).map(Columns::snapshot);
+        }
+    }
+
+    private Columns read(Long companyId) {
+        Columns columns = new Columns();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            // Accounts from the same snapshot as the rows, so every row's account is known
+            columns.version = ledgerVersions.current(companyId);
+            for (Account account : accountRepository.findByCompanyId(companyId)) {
+                columns.accountIndex(account.getId(), account.getType());
+            }
+            jdbcTemplate.query("SELECT account_id, posting_date, amount FROM journal_entry WHERE company_id = ?",
+                    rs -> {
+                        Integer account = columns.index.get(rs.getLong(1));
+                        if (account == null) {
+                            throw new IllegalStateException("Journal entry for unknown account " + rs.getLong(1));
+                        }
+                        columns.append(account, (int) rs.getObject(2, LocalDate.class).toEpochDay(),
+                                toMinorUnits(rs.getBigDecimal(3)));
+                    }, companyId);
+        });
+        return columns;
+    }
+
+    private CompanyState state(Long companyId) {
+        return companies.computeIfAbsent(companyId, id -> new CompanyState());
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        // Same rounding the database applies when storing the amount
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // Load coordination and columns of one company; guarded by its own monitor
+    private static final class CompanyState {
+        private final Object loadLock = new Object();
+        private Columns columns;
+        private boolean loading;
+        private boolean dirty;
+        private int inFlight;
+
+        synchronized void beginCommit() {
+            inFlight++;
+            if (loading) {
+                dirty = true;
+            }
+        }
+
+        synchronized void endCommit(List<Row> rows, Long companyId, OptionalLong version) {
+            inFlight--;
+            if (loading) {
+                dirty = true;
+            } else if (columns != null) {
+                for (Row row : rows) {
+                    if (row.companyId().equals(companyId)) {
+                        columns.append(columns.accountIndex(row.accountId(), row.type()), row.day(), row.amount());
+                    }
+                }
+                // Otherwise another change came in between and the next query reloads
+                if (version.isPresent() && version.getAsLong() == columns.version + 1) {
+                    columns.version = version.getAsLong();
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable parallel arrays. Appends only write past size, so a View of
+     * (arrays, size) taken under the company monitor stays valid without locking.
+     */
+    private static final class Columns {
+        private final Map<Long, Integer> index = new HashMap<>();
+        // Ledger version the rows reflect
+        private long version;
+        private long[] accountIds = new long[16];
+        private AccountType[] types = new AccountType[16];
+        private int accountCount;
+
+        private int[] account = new int[1024];
+        private int[] day = new int[1024];
+        private long[] amount = new long[1024];
+        private int size;
+
+        int accountIndex(Long accountId, AccountType type) {
+            Integer existing = index.get(accountId);
+            if (existing != null) {
+                return existing;
+            }
+            if (accountCount == accountIds.length) {
+                accountIds = Arrays.copyOf(accountIds, accountCount * 2);
+                types = Arrays.copyOf(types, accountCount * 2);
+            }
+            accountIds[accountCount] = accountId;
+            types[accountCount] = type;
+            index.put(accountId, accountCount);
+            return accountCount++;
+        }
+
+        void append(int accountIndex, int epochDay, long minorUnits) {
+            if (size == account.length) {
+                int capacity = size * 2;
+                account = Arrays.copyOf(account, capacity);
+                day = Arrays.copyOf(day, capacity);
+                amount = Arrays.copyOf(amount, capacity);
+            }
+            account[size] = accountIndex;
+            day[size] = epochDay;
+            amount[size] = minorUnits;
+            size++;
+        }
+
+        View snapshot() {
+            return new View(accountIds, types, accountCount, account, day, amount, size);
+        }
+    }
+
+    // Read-only view of a company's columns as of one moment
+    private record View(long[] accountIds, AccountType[] types, int accountCount, int[] account, int[] day,
+            long[] amount, int size) {
+
+        void sumByAccount(int fromDay, int toDay, long[] sums, boolean[] hit) {
+            for (int i = 0; i < size; i++) {
+                int d = day[i];
+                if (d >= fromDay && d < toDay) {
+                    sums[account[i]] += amount[i];
+                    hit[account[i]] = true;
+                }
+            }
+        }
+    }
+}
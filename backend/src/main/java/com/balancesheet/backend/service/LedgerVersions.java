@@ -0,0 +1,106 @@
+package com.balancesheet.backend.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-company counter of ledger changes, stored in ledger_version so that all
+ * instances share it. Anything that changes what the reports would return
+ * bumps it inside its own transaction, so the new version becomes visible
+ * exactly when the change does; cached report results and the column store
+ * are keyed by the version they were computed at.
+ */
+@Component
+public class LedgerVersions {
+
+    private static final String PENDING_KEY = LedgerVersions.class.getName() + ".pending";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final org.springframework.transaction.support.TransactionTemplate newTransaction;
+    // Companies whose row is known to exist, so the insert is tried once per process
+    private final Set<Long> created = ConcurrentHashMap.newKeySet();
+
+    public LedgerVersions(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new org.springframework.transaction.support.TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long current(Long companyId) {
+        List<Long> version = jdbcTemplate.queryForList(
+                "SELECT version FROM ledger_version WHERE company_id = ?", Long.class, companyId);
+        return version.isEmpty() ? 0 : version.get(0);
+    }
+
+    // Bumps as part of the surrounding transaction, once however often it is called (immediately if there is none)
+    public void bump(Long companyId) {
+        createRow(companyId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(List.of(companyId));
+            return;
+        }
+        pending().putIfAbsent(companyId, null);
+    }
+
+    // The version the current transaction moves the company to, known once it is past beforeCommit
+    @SuppressWarnings("unchecked")
+    public OptionalLong committingVersion(Long companyId) {
+        Map<Long, Long> pending = (Map<Long, Long>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        Long version = pending != null ? pending.get(companyId) : null;
+        return version != null ? OptionalLong.of(version) : OptionalLong.empty();
+    }
+
+    // Inserted in a transaction of its own, so the posting only ever updates the row
+    private void createRow(Long companyId) {
+        if (created.contains(companyId)) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                    "INSERT INTO ledger_version (company_id, version) SELECT ?, 0 "
+                            + "WHERE NOT EXISTS (SELECT 1 FROM ledger_version WHERE company_id = ?)",
+                    companyId, companyId));
+        } catch (DataIntegrityViolationException ex) {
+            // Inserted concurrently by another transaction
+        }
+        created.add(companyId);
+    }
+
+    private void increment(Collection<Long> companyIds) {
+        jdbcTemplate.batchUpdate("UPDATE ledger_version SET version = version + 1 WHERE company_id = ?",
+                companyIds.stream().map(companyId -> new Object[] { companyId }).toList());
+    }
+
+    // Companies bumped by the current transaction, updated in id order just before it commits,
+    // with the version each one reached
+    @SuppressWarnings("unchecked")
+    private Map<Long, Long> pending() {
+        Map<Long, Long> pending = (Map<Long, Long>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if (pending != null) {
+            return pending;
+        }
+        Map<Long, Long> versions = new TreeMap<>();
+        TransactionSynchronizationManager.bindResource(PENDING_KEY, versions);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                increment(versions.keySet());
+                versions.replaceAll((companyId, version) -> current(companyId));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(PENDING_KEY);
+            }
+        });
+        return versions;
+    }
+}
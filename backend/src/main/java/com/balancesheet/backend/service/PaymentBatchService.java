@@ -0,0 +1,169 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BatchItemResult;
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.dto.PaymentRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Records many invoice payments at once, e.g. the confirmed lines of a bank
+ * statement. Each payment gets the same posting, payment row and invoice
+ * update as PaymentService.recordPayment, but a chunk loads its invoices in
+ * one query and writes its transactions, payments, invoice updates and open
+ * items with JDBC batches in a single database transaction. As with the other
+ * batch services, a failing payment is reported in the result instead of
+ * aborting the rest.
+ */
+@Service
+@lombok.extern.slf4j.Slf4j
+public class PaymentBatchService {
+
+    private final AccountingService accountingService;
+    private final AccountCache accountCache;
+    private final ReceivablesService receivablesService;
+    private final InvoiceRepository invoiceRepository;
+    private final EntityManager entityManager;
+    private final org.springframework.transaction.support.TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public PaymentBatchService(AccountingService accountingService, AccountCache accountCache,
+            ReceivablesService receivablesService, InvoiceRepository invoiceRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.batch.chunk-size:500}") int chunkSize,
+            @Value("${ledger.batch.max-items:20000}") int maxItems) {
+        this.accountingService = accountingService;
+        this.accountCache = accountCache;
+        this.receivablesService = receivablesService;
+        this.invoiceRepository = invoiceRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public BatchResult recordPayments(Long companyId, Long cashAccountId, List<PaymentRequest> payments) {
+        if (payments.size() > maxItems) {
+            throw new IllegalArgumentException("Batch exceeds the limit of " + maxItems + " payments");
+        }
+        return post(companyId, cashAccountId, payments);
+    }
+
+    // Without the request size limit, for callers that bound their input themselves
+    BatchResult post(Long companyId, Long cashAccountId, List<PaymentRequest> payments) {
+        Account cashAccount = Optional
+                .ofNullable(accountCache.resolve(companyId, List.of(cashAccountId)).get(cashAccountId))
+                .orElseThrow(() -> new IllegalArgumentException("Cash account not found"));
+
+        long started = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[payments.size()];
+        for (int from = 0; from < payments.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, payments.size());
+            Map<Integer, PaymentRequest> chunk = new LinkedHashMap<>();
+            for (int i = from; i < to; i++) {
+                try {
+                    check(payments.get(i));
+                    chunk.put(i, payments.get(i));
+                } catch (IllegalArgumentException ex) {
+                    results[i] = BatchItemResult.failed(i, ex.getMessage());
+                }
+            }
+            save(chunk, from, to, results, companyId, cashAccount);
+        }
+
+        BatchResult result = new BatchResult(Arrays.asList(results), System.nanoTime() - started);
+        log.info("Payment batch for company {}: {} recorded, {} failed in {} ms ({} per second)", companyId,
+                result.getPosted(), result.getFailed(), result.getElapsedMillis(),
+                Math.round(result.getItemsPerSecond()));
+        return result;
+    }
+
+    // Runs the chunk in one database transaction, or item by item if that fails
+    private void save(Map<Integer, PaymentRequest> chunk, int from, int to, BatchItemResult[] results,
+            Long companyId, Account cashAccount) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> record(chunk, companyId, cashAccount, results))
+                    .forEach((i, id) -> results[i] = BatchItemResult.posted(i, id));
+        } catch (RuntimeException ex) {
+            log.warn("Payment chunk {}-{} failed ({}), retrying items individually", from, to - 1, ex.getMessage());
+            chunk.forEach((i, payment) -> {
+                try {
+                    transactionTemplate.execute(status -> record(Map.of(i, payment), companyId, cashAccount,
+                            results)).forEach((index, id) -> results[index] = BatchItemResult.posted(index, id));
+                } catch (RuntimeException itemEx) {
+                    results[i] = BatchItemResult.failed(i,
+                            NestedExceptionUtils.getMostSpecificCause(itemEx).getMessage());
+                }
+            });
+        }
+    }
+
+    // Records the chunk's payments; returns the payment id per item
+    private Map<Integer, Long> record(Map<Integer, PaymentRequest> chunk, Long companyId, Account cashAccount,
+            BatchItemResult[] results) {
+        Map<Long, Invoice> invoices = invoiceRepository.findAllForPayment(chunk.values().stream()
+                .map(PaymentRequest::getInvoiceId)
+                .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Invoice::getId, Function.identity()));
+
+        // Several payments on one invoice apply in order to the same loaded row
+        Map<Integer, Payment> recorded = new LinkedHashMap<>();
+        Map<Long, Invoice> paid = new LinkedHashMap<>();
+        chunk.forEach((i, request) -> {
+            try {
+                Invoice invoice = Optional.ofNullable(invoices.get(request.getInvoiceId()))
+                        .filter(found -> found.getCompany().getId().equals(companyId))
+                        .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
+                PaymentService.checkPayable(invoice, request.getAmount());
+                Transaction transaction = PaymentService.buildPosting(invoice, request.getAmount(), cashAccount,
+                        request.getPaymentDate(), request.getReference());
+                recorded.put(i, PaymentService.buildPayment(invoice, request.getAmount(), cashAccount,
+                        request.getPaymentDate(), request.getPaymentMethod(), request.getReference(), transaction));
+                PaymentService.applyPayment(invoice, request.getAmount());
+                paid.put(invoice.getId(), invoice);
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                results[i] = BatchItemResult.failed(i, ex.getMessage());
+            }
+        });
+        if (recorded.isEmpty()) {
+            return Map.of();
+        }
+
+        recorded.values().forEach(entityManager::persist);
+        accountingService.postAll(recorded.values().stream().map(Payment::getTransaction).toList());
+        receivablesService.onPayments(paid.values());
+        // Flush while the inserts are still grouped and keep the persistence context small
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<Integer, Long> ids = new LinkedHashMap<>();
+        recorded.forEach((i, payment) -> ids.put(i, payment.getId()));
+        return ids;
+    }
+
+    private static void check(PaymentRequest payment) {
+        if (payment == null) {
+            throw new IllegalArgumentException("Payment is required");
+        }
+        if (payment.getInvoiceId() == null) {
+            throw new IllegalArgumentException("Invoice ID is required");
+        }
+        if (payment.getPaymentDate() == null) {
+            throw new IllegalArgumentException("Payment date is required");
+        }
+    }
+}
@@ -1,79 +1,175 @@
 package com.balancesheet.backend.service;
 
+import com.balancesheet.backend.dto.RemittanceRequest;
 import com.balancesheet.backend.model.*;
 import com.balancesheet.backend.repository.*;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final InvoiceRepository invoiceRepository;
-    private final AccountRepository accountRepository;
-    private final TransactionRepository transactionRepository;
-    private final JournalEntryRepository journalEntryRepository;
-    private final CompanyRepository companyRepository;
+    private final AccountCache accountCache;
+    private final AccountingService accountingService;
+    private final ReceivablesService receivablesService;
+    private final EntityManager entityManager;
+    private final int maxAllocations;
 
     public PaymentService(PaymentRepository paymentRepository, InvoiceRepository invoiceRepository,
-            AccountRepository accountRepository, TransactionRepository transactionRepository,
-            JournalEntryRepository journalEntryRepository, CompanyRepository companyRepository) {
+            AccountCache accountCache, AccountingService accountingService, ReceivablesService receivablesService,
+            EntityManager entityManager, @Value("${ledger.batch.max-items:20000}") int maxAllocations) {
         this.paymentRepository = paymentRepository;
         this.invoiceRepository = invoiceRepository;
-        this.accountRepository = accountRepository;
-        this.transactionRepository = transactionRepository;
-        this.journalEntryRepository = journalEntryRepository;
-        this.companyRepository = companyRepository;
+        this.accountCache = accountCache;
+        this.accountingService = accountingService;
+        this.receivablesService = receivablesService;
+        this.entityManager = entityManager;
+        this.maxAllocations = maxAllocations;
     }
 
     @Transactional
     public Payment recordPayment(Long companyId, Long invoiceId, BigDecimal amount, Long cashAccountId,
             LocalDate paymentDate, String paymentMethod, String reference) {
 
-        Company company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new EntityNotFoundException("Company not found"));
-
+        // The invoice brings its company and AR account along; the cash account comes from the cache
         Invoice invoice = invoiceRepository.findById(invoiceId)
+                .filter(found -> found.getCompany().getId().equals(companyId))
                 .orElseThrow(() -> new EntityNotFoundException("Invoice not found"));
+        checkPayable(invoice, amount);
 
-        if (invoice.getStatus() != InvoiceStatus.POSTED) {
-            throw new IllegalStateException("Can only record payments for POSTED invoices");
+        Account cashAccount = accountCache.resolve(companyId, List.of(cashAccountId)).get(cashAccountId);
+        if (cashAccount == null) {
+            throw new EntityNotFoundException("Cash account not found");
+        }
+
+        Transaction transaction = buildPosting(invoice, amount, cashAccount, paymentDate, reference);
+
+        Payment payment = buildPayment(invoice, amount, cashAccount, paymentDate, paymentMethod, reference,
+                transaction);
+
+        // Nothing is written before commit: the posting, the payment and the
+        // invoice update go out together in one flush
+        paymentRepository.save(payment);
+        accountingService.post(transaction);
+
+        // Update Invoice totals and status; the version check at commit makes a
+        // concurrent payment on the same invoice fail instead of overwriting this one
+        applyPayment(invoice, amount);
+        receivablesService.onPayment(invoice);
+
+        return payment;
+    }
+
+    /**
+     * Records one incoming payment that settles several invoices. It posts a
+     * single transaction (the cash debit for the total and one credit per AR
+     * account) and a payment row per allocation, and it updates the invoices
+     * and their open items, all in one flush and one commit. If any allocation
+     * is invalid, nothing is recorded.
+     */
+    @Transactional
+    public List<Payment> recordRemittance(Long companyId, RemittanceRequest remittance) {
+        List<RemittanceRequest.Allocation> allocations = remittance.getAllocations();
+        if (allocations == null || allocations.isEmpty()) {
+            throw new IllegalArgumentException("Allocations are required");
+        }
+        if (allocations.size() > maxAllocations) {
+            throw new IllegalArgumentException("Remittance exceeds the limit of " + maxAllocations + " invoices");
         }
+        Account cashAccount = accountCache.resolve(companyId, List.of(remittance.getCashAccountId()))
+                .get(remittance.getCashAccountId());
+        if (cashAccount == null) {
+            throw new EntityNotFoundException("Cash account not found");
+        }
+
+        Map<Long, Invoice> invoices = invoiceRepository.findAllForPayment(allocations.stream()
+                .map(RemittanceRequest.Allocation::getInvoiceId)
+                .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Invoice::getId, Function.identity()));
 
-        Account cashAccount = accountRepository.findById(cashAccountId)
-                .orElseThrow(() -> new EntityNotFoundException("Cash account not found"));
-
-        // Get the AR account from the original invoice transaction
-        // We need to find which AR account was used when the invoice was posted
-        Account arAccount = null;
-        if (invoice.getTransaction() != null) {
-            // Find the AR debit entry from the invoice posting
-            List<JournalEntry> entries = journalEntryRepository.findByTransactionId(invoice.getTransaction().getId());
-            for (JournalEntry entry : entries) {
-                if (entry.getAmount().compareTo(BigDecimal.ZERO) > 0
-                        && entry.getAccount().getType() == AccountType.ASSET) {
-                    arAccount = entry.getAccount();
-                    break;
-                }
+        // Allocations to the same invoice apply in order against its running open balance
+        Transaction transaction = new Transaction();
+        List<Payment> payments = new ArrayList<>();
+        Map<Long, Account> arAccounts = new HashMap<>();
+        Map<Long, BigDecimal> credits = new LinkedHashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        String currency = null;
+        for (RemittanceRequest.Allocation allocation : allocations) {
+            Invoice invoice = Optional.ofNullable(invoices.get(allocation.getInvoiceId()))
+                    .filter(found -> found.getCompany().getId().equals(companyId))
+                    .orElseThrow(() -> new EntityNotFoundException("Invoice not found: " + allocation.getInvoiceId()));
+            try {
+                checkPayable(invoice, allocation.getAmount());
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                throw new IllegalArgumentException("Invoice " + invoice.getInvoiceNumber() + ": " + ex.getMessage());
+            }
+            String invoiceCurrency = invoice.getCurrency() != null ? invoice.getCurrency()
+                    : invoice.getCompany().getCurrency();
+            if (currency != null && !currency.equals(invoiceCurrency)) {
+                throw new IllegalArgumentException("All invoices of a remittance must be in one currency");
             }
+            currency = invoiceCurrency;
+
+            payments.add(buildPayment(invoice, allocation.getAmount(), cashAccount, remittance.getPaymentDate(),
+                    remittance.getPaymentMethod(), remittance.getReference(), transaction));
+            arAccounts.put(invoice.getArAccount().getId(), invoice.getArAccount());
+            credits.merge(invoice.getArAccount().getId(), allocation.getAmount(), BigDecimal::add);
+            total = total.add(allocation.getAmount());
+            applyPayment(invoice, allocation.getAmount());
         }
 
-        if (arAccount == null) {
+        transaction.setDate(remittance.getPaymentDate().atStartOfDay());
+        transaction.setDescription("Payment for " + allocations.size() + " invoices" +
+                (remittance.getReference() != null ? " - Ref: " + remittance.getReference() : ""));
+        transaction.setCurrency(currency);
+        transaction.setCompany(payments.get(0).getCompany());
+        addEntry(transaction, cashAccount, total);
+        credits.forEach((arAccountId, amount) -> addEntry(transaction, arAccounts.get(arAccountId), amount.negate()));
+
+        payments.forEach(entityManager::persist);
+        accountingService.post(transaction);
+        receivablesService.onPayments(invoices.values());
+        return payments;
+    }
+
+    static void checkPayable(Invoice invoice, BigDecimal amount) {
+        if (invoice.getStatus() != InvoiceStatus.POSTED) {
+            throw new IllegalStateException("Can only record payments for POSTED invoices");
+        }
+
+        if (invoice.getArAccount() == null) {
             throw new IllegalStateException("Could not find AR account from invoice");
         }
 
-        // Create Transaction
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Payment amount must be positive");
+        }
+        if (amount.compareTo(invoice.getOpenBalance()) > 0) {
+            throw new IllegalArgumentException("Payment exceeds the open balance of " + invoice.getOpenBalance());
+        }
+    }
+
+    // Debits the cash account and credits the invoice's AR account
+    static Transaction buildPosting(Invoice invoice, BigDecimal amount, Account cashAccount, LocalDate paymentDate,
+            String reference) {
         Transaction transaction = new Transaction();
         transaction.setDate(paymentDate.atStartOfDay());
         transaction.setDescription("Payment for Invoice #" + invoice.getInvoiceNumber() +
                 (reference != null ? " - Ref: " + reference : ""));
-        transaction.setCompany(company);
-        transaction = transactionRepository.save(transaction);
+        transaction.setCurrency(invoice.getCurrency() != null ? invoice.getCurrency()
+                : invoice.getCompany().getCurrency());
+        transaction.setCompany(invoice.getCompany());
 
         // Create Journal Entries
         // Debit Cash (increase asset)
@@ -81,16 +177,27 @@ public class PaymentService {
         debitCash.setTransaction(transaction);
         debitCash.setAccount(cashAccount);
         debitCash.setAmount(amount); // Positive = Debit
-        journalEntryRepository.save(debitCash);
+        transaction.getEntries().add(debitCash);
 
         // Credit AR (decrease asset)
         JournalEntry creditAR = new JournalEntry();
         creditAR.setTransaction(transaction);
-        creditAR.setAccount(arAccount);
+        creditAR.setAccount(invoice.getArAccount());
         creditAR.setAmount(amount.negate()); // Negative = Credit
-        journalEntryRepository.save(creditAR);
+        transaction.getEntries().add(creditAR);
+        return transaction;
+    }
+
+    private static void addEntry(Transaction transaction, Account account, BigDecimal amount) {
+        JournalEntry entry = new JournalEntry();
+        entry.setTransaction(transaction);
+        entry.setAccount(account);
+        entry.setAmount(amount);
+        transaction.getEntries().add(entry);
+    }
 
-        // Create Payment record
+    static Payment buildPayment(Invoice invoice, BigDecimal amount, Account cashAccount, LocalDate paymentDate,
+            String paymentMethod, String reference, Transaction transaction) {
         Payment payment = new Payment();
         payment.setInvoice(invoice);
         payment.setAmount(amount);
@@ -98,25 +205,22 @@ public class PaymentService {
         payment.setPaymentMethod(paymentMethod);
         payment.setReference(reference);
         payment.setCashAccount(cashAccount);
-        payment.setCompany(company);
+        payment.setCompany(invoice.getCompany());
         payment.setTransaction(transaction);
-        payment = paymentRepository.save(payment);
+        return payment;
+    }
 
-        // Update Invoice status
-        BigDecimal totalPaid = getTotalPaidForInvoice(invoiceId);
-        if (totalPaid.compareTo(invoice.getTotalAmount()) >= 0) {
+    static void applyPayment(Invoice invoice, BigDecimal amount) {
+        invoice.setAmountPaid(invoice.getAmountPaid().add(amount));
+        invoice.setOpenBalance(invoice.getOpenBalance().subtract(amount));
+        if (invoice.getOpenBalance().signum() <= 0) {
             invoice.setStatus(InvoiceStatus.PAID);
-            invoiceRepository.save(invoice);
         }
-
-        return payment;
     }
 
-    public BigDecimal getTotalPaidForInvoice(Long invoiceId) {
-        List<Payment> payments = paymentRepository.findByInvoiceId(invoiceId);
-        return payments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public Invoice getInvoice(Long invoiceId) {
+        return invoiceRepository.findById(invoiceId)
+                .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
     }
 
     public List<Payment> getPaymentsByInvoice(Long invoiceId) {
@@ -2,10 +2,12 @@ package com.balancesheet.backend.service;
 
 import com.balancesheet.backend.model.Company;
 import com.balancesheet.backend.model.Product;
+import com.balancesheet.backend.model.StockMovement;
 import com.balancesheet.backend.repository.CompanyRepository;
 import com.balancesheet.backend.repository.ProductRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,30 +16,37 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CompanyRepository companyRepository;
+    private final StockService stockService;
 
-    public ProductService(ProductRepository productRepository, CompanyRepository companyRepository) {
+    public ProductService(ProductRepository productRepository, CompanyRepository companyRepository,
+            StockService stockService) {
         this.productRepository = productRepository;
         this.companyRepository = companyRepository;
+        this.stockService = stockService;
     }
 
     public List<Product> getProducts(Long companyId) {
         return productRepository.findByCompanyId(companyId);
     }
 
+    @Transactional
     public Product createProduct(Long companyId, Product product) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new EntityNotFoundException("Company not found"));
         product.setCompany(company);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        stockService.opening(saved);
+        return saved;
     }
 
-    public Product updateStock(Long productId, int quantityChange) {
-        Product product = productRepository.findById(productId)
+    // Records the change as a stock movement; the quantity is incremented in the database at commit
+    public Product updateStock(Long companyId, Long productId, int quantityChange, String note) {
+        stockService.adjust(companyId, productId, quantityChange, note);
+        return productRepository.findById(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found"));
+    }
 
-        int newQuantity = product.getQuantityOnHand() + quantityChange;
-        product.setQuantityOnHand(newQuantity);
-
-        return productRepository.save(product);
+    public List<StockMovement> getMovements(Long companyId, Long productId) {
+        return stockService.getMovements(companyId, productId);
     }
 }
@@ -0,0 +1,135 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.ArOpenItem;
+import com.balancesheet.backend.model.Invoice;
+import com.balancesheet.backend.repository.ArOpenItemRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Maintains the ar_open_item subledger: one row per posted invoice that is
+ * not fully paid, with its customer, due date and open amount. Invoice
+ * approval adds the row and payments update or remove it in the same
+ * transaction, so aging is one grouped aggregate over open items only.
+ */
+@Service
+public class ReceivablesService {
+
+    public static final List<String> BUCKETS = List.of("current", "1-30", "31-60", "61-90", "90+");
+
+    private final ArOpenItemRepository openItemRepository;
+    private final EntityManager entityManager;
+
+    public ReceivablesService(ArOpenItemRepository openItemRepository, EntityManager entityManager) {
+        this.openItemRepository = openItemRepository;
+        this.entityManager = entityManager;
+    }
+
+    // Rows are keyed by invoice id, so persist directly: save() would look each one up first
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void open(Collection<Invoice> invoices) {
+        invoices.forEach(invoice -> entityManager.persist(new ArOpenItem(invoice)));
+    }
+
+    // Called once the payment is applied to the invoice; the invoice's version
+    // check serializes payments, so the open amount can simply be overwritten
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPayment(Invoice invoice) {
+        if (invoice.getOpenBalance().signum() <= 0) {
+            openItemRepository.deleteByInvoiceId(invoice.getId());
+        } else {
+            openItemRepository.updateOpenAmount(invoice.getId(), invoice.getOpenBalance());
+        }
+    }
+
+    // Same for a batch of invoices: paid-off rows go in one delete and the
+    // remaining open amounts are written as batched updates at flush
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPayments(Collection<Invoice> invoices) {
+        Map<Long, BigDecimal> open = new HashMap<>();
+        List<Long> paid = new ArrayList<>();
+        for (Invoice invoice : invoices) {
+            if (invoice.getOpenBalance().signum() <= 0) {
+                paid.add(invoice.getId());
+            } else {
+                open.put(invoice.getId(), invoice.getOpenBalance());
+            }
+        }
+        if (!paid.isEmpty()) {
+            openItemRepository.deleteByInvoiceIds(paid);
+        }
+        openItemRepository.findAllById(open.keySet())
+                .forEach(item -> item.setOpenAmount(open.get(item.getInvoiceId())));
+    }
+
+    // Recreates the company's open items from its invoices
+    @Transactional
+    public int rebuild(Long companyId) {
+        openItemRepository.deleteByCompanyId(companyId);
+        return openItemRepository.insertFromInvoices(companyId);
+    }
+
+    // Adds rows for open posted invoices that have none; existing rows are left alone
+    @Transactional
+    public int backfill(Long companyId) {
+        return openItemRepository.insertMissing(companyId);
+    }
+
+    /**
+     * Open amounts per customer by days past due on the given day: not yet
+     * due, 1-30, 31-60, 61-90 and over 90 days.
+     */
+    public Map<String, Object> getAging(Long companyId, LocalDate asOf) {
+        Map<String, BigDecimal> totals = new LinkedHashMap<>();
+        BUCKETS.forEach(bucket -> totals.put(bucket, BigDecimal.ZERO));
+
+        List<Map<String, Object>> customers = new ArrayList<>();
+        for (Object[] row : openItemRepository.sumAgingByCustomer(companyId, asOf, asOf.minusDays(30),
+                asOf.minusDays(60), asOf.minusDays(90))) {
+            Map<String, Object> customer = new LinkedHashMap<>();
+            customer.put("customerId", row[0]);
+            customer.put("customer", row[1]);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int b = 0; b < BUCKETS.size(); b++) {
+                BigDecimal amount = (BigDecimal) row[b + 2];
+                customer.put(BUCKETS.get(b), amount);
+                totals.merge(BUCKETS.get(b), amount, BigDecimal::add);
+                total = total.add(amount);
+            }
+            customer.put("total", total);
+            customers.add(customer);
+        }
+
+        Map<String, Object> aging = new LinkedHashMap<>();
+        aging.put("asOf", asOf.toString());
+        aging.put("buckets", BUCKETS);
+        aging.put("customers", customers);
+        aging.put("totals", totals);
+        aging.put("total", totals.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+        return aging;
+    }
+
+    // The customer's open invoices, oldest due first
+    public List<Map<String, Object>> getOpenItems(Long companyId, Long customerId, LocalDate asOf) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (ArOpenItem item : openItemRepository.findOpenItems(companyId, customerId)) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("invoiceId", item.getInvoiceId());
+            line.put("invoiceNumber", item.getInvoiceNumber());
+            line.put("date", item.getInvoiceDate().toString());
+            line.put("dueDate", item.getDueDate().toString());
+            line.put("amount", item.getAmount());
+            line.put("openAmount", item.getOpenAmount());
+            line.put("daysOverdue", Math.max(0, ChronoUnit.DAYS.between(item.getDueDate(), asOf)));
+            items.add(line);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,176 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.repository.RecurringTransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * In-memory schedule of recurring transactions: a priority queue of (fire
+ * time, item) ordered by when each item is next due, with a single timer set
+ * for the head. Nothing touches the database until an item is actually due;
+ * the scheduler then claims it, and its new next run date is read back and
+ * queued again.
+ *
+ * Loaded at startup and kept in sync by the recurring transaction endpoints.
+ * Items created on other instances are picked up by a periodic reload
+ * (ledger.scheduler.resync-interval), which first posts everything due as a
+ * safety net for runs the timers missed. When several instances fire for the
+ * same item, only one claims it; the others find it still due and look again
+ * after ledger.scheduler.retry-delay.
+ */
+@Component
+@lombok.extern.slf4j.Slf4j
+public class RecurringQueue {
+
+    private record Entry(Instant fireAt, Long id) {
+    }
+
+    private final RecurringTransactionRepository recurringRepository;
+    private final SchedulerService schedulerService;
+    private final TaskScheduler taskScheduler;
+    private final Duration retryDelay;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Guarded by this
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+            Comparator.comparing(Entry::fireAt).thenComparing(Entry::id));
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private ScheduledFuture<?> timer;
+    private Instant timerAt;
+    private boolean started;
+
+    public RecurringQueue(RecurringTransactionRepository recurringRepository, SchedulerService schedulerService,
+            TaskScheduler taskScheduler,
+            @Value("${ledger.scheduler.retry-delay:PT1M}") Duration retryDelay) {
+        this.recurringRepository = recurringRepository;
+        this.schedulerService = schedulerService;
+        this.taskScheduler = taskScheduler;
+        this.retryDelay = retryDelay;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+    }
+
+    // Posts whatever is due, then rebuilds the queue from the database
+    @Scheduled(fixedDelayString = "${ledger.scheduler.resync-interval:PT1H}",
+            initialDelayString = "${ledger.scheduler.resync-interval:PT1H}")
+    public void reload() {
+        try {
+            schedulerService.processRecurringTransactions();
+        } catch (RuntimeException ex) {
+            log.error("Recurring catch-up run failed: {}", ex.getMessage());
+        }
+
+        List<Object[]> rows = recurringRepository.findSchedule();
+        synchronized (this) {
+            queue.clear();
+            entries.clear();
+            for (Object[] row : rows) {
+                put((Long) row[0], fireAt((LocalDate) row[1]));
+            }
+            started = true;
+            arm();
+        }
+        log.info("Recurring schedule loaded with {} items", rows.size());
+    }
+
+    public synchronized void schedule(Long id, LocalDate nextRunDate) {
+        put(id, fireAt(nextRunDate));
+        arm();
+    }
+
+    public synchronized void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            queue.remove(entry);
+            arm();
+        }
+    }
+
+    // When the item is next looked at, if it is queued
+    public synchronized Optional<Instant> scheduledAt(Long id) {
+        return Optional.ofNullable(entries.get(id)).map(Entry::fireAt);
+    }
+
+    private void fire() {
+        List<Long> due = new ArrayList<>();
+        Instant now = Instant.now();
+        synchronized (this) {
+            timer = null;
+            timerAt = null;
+            while (!queue.isEmpty() && !queue.peek().fireAt().isAfter(now)) {
+                Entry entry = queue.poll();
+                entries.remove(entry.id());
+                due.add(entry.id());
+            }
+        }
+
+        Map<Long, LocalDate> next = new HashMap<>();
+        try {
+            if (!due.isEmpty()) {
+                schedulerService.processDue(due);
+                for (Object[] row : recurringRepository.findScheduleByIdIn(due)) {
+                    next.put((Long) row[0], (LocalDate) row[1]);
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.error("Recurring schedule run failed: {}", ex.getMessage());
+            due.forEach(id -> next.put(id, null));
+        }
+
+        synchronized (this) {
+            Instant retryAt = Instant.now().plus(retryDelay);
+            next.forEach((id, date) -> {
+                // Deleted items are gone from the result; rescheduled ones are already queued
+                if (entries.containsKey(id)) {
+                    return;
+                }
+                Instant at = date != null ? fireAt(date) : retryAt;
+                // Still due: claimed by another instance or failed
+                put(id, at.isAfter(now) ? at : retryAt);
+            });
+            arm();
+        }
+    }
+
+    private void put(Long id, Instant fireAt) {
+        Entry previous = entries.put(id, new Entry(fireAt, id));
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        queue.add(entries.get(id));
+    }
+
+    // Points the timer at the head of the queue
+    private void arm() {
+        if (!started) {
+            return;
+        }
+        Entry head = queue.peek();
+        if (head == null || (timerAt != null && !head.fireAt().isBefore(timerAt))) {
+            return;
+        }
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        timerAt = head.fireAt();
+        timer = taskScheduler.schedule(this::fire, timerAt);
+    }
+
+    private Instant fireAt(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant();
+    }
+}
@@ -0,0 +1,67 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.RecurrenceFrequency;
+import com.balancesheet.backend.model.RecurringTransaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Occurrence dates of a recurring transaction, starting from its next run date
+ * and limited to its start/end dates. Weekly items repeat every seven days;
+ * monthly, quarterly and yearly items fall on their day of month, clamped to
+ * the month's last day.
+ */
+public final class RecurringSchedule {
+
+    private RecurringSchedule() {
+    }
+
+    // Occurrences in [from, to), oldest first
+    public static List<LocalDate> occurrences(RecurringTransaction rt, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        if (rt.getNextRunDate() == null) {
+            return dates;
+        }
+        for (LocalDate date = rt.getNextRunDate(); date.isBefore(to); date = next(rt, date)) {
+            if (!date.isBefore(from) && isActive(rt, date)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    // Runs due on or before the given day: the catch-up after downtime
+    public static List<LocalDate> dueThrough(RecurringTransaction rt, LocalDate day) {
+        return occurrences(rt, LocalDate.MIN, day.plusDays(1));
+    }
+
+    // First run after the given day
+    public static LocalDate nextAfter(RecurringTransaction rt, LocalDate day) {
+        LocalDate date = rt.getNextRunDate();
+        while (!date.isAfter(day)) {
+            date = next(rt, date);
+        }
+        return date;
+    }
+
+    // The run after the given one
+    public static LocalDate next(RecurringTransaction rt, LocalDate date) {
+        if (rt.getFrequency() == RecurrenceFrequency.WEEKLY) {
+            return date.plusWeeks(1);
+        }
+        LocalDate month = switch (rt.getFrequency()) {
+            case QUARTERLY -> date.plusMonths(3);
+            case YEARLY -> date.plusYears(1);
+            default -> date.plusMonths(1);
+        };
+        int day = rt.getDayOfMonth() >= 1 ? rt.getDayOfMonth() : date.getDayOfMonth();
+        return month.withDayOfMonth(Math.min(day, month.lengthOfMonth()));
+    }
+
+    public static boolean isActive(RecurringTransaction rt, LocalDate date) {
+        return (rt.getStartDate() == null || !date.isBefore(rt.getStartDate()))
+                && (rt.getEndDate() == null || !date.isAfter(rt.getEndDate()));
+    }
+}
@@ -0,0 +1,144 @@
+package com.balancesheet.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of report results keyed by (company, report, parameters,
+ * ledger version). A posting bumps the company's version, so its cached
+ * results are never served again and are dropped on the next lookup.
+ * Entries are weighed by the number of values they hold and evicted least
+ * recently used first once the total weight passes the limit. The version is
+ * shared through the database, so postings on other instances invalidate
+ * entries too; the TTL only bounds staleness from changes made outside the
+ * application.
+ */
+@Component
+public class ReportCache {
+
+    private record Key(Long companyId, String report, List<Object> params) {
+    }
+
+    private record Entry(long version, Object value, int weight, long expiresAt) {
+    }
+
+    private final LedgerVersions ledgerVersions;
+    private final boolean enabled;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalWeight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter staleEvictions;
+
+    public ReportCache(LedgerVersions ledgerVersions, MeterRegistry meterRegistry,
+            @Value("${ledger.report-cache.enabled:true}") boolean enabled,
+            @Value("${ledger.report-cache.max-weight:200000}") long maxWeight,
+            @Value("${ledger.report-cache.ttl:PT5M}") Duration ttl) {
+        this.ledgerVersions = ledgerVersions;
+        this.enabled = enabled;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = meterRegistry.counter("report.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("report.cache.requests", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("report.cache.evictions", "cause", "size");
+        this.staleEvictions = meterRegistry.counter("report.cache.evictions", "cause", "stale");
+        Gauge.builder("report.cache.entries", this, cache -> cache.stats().get("entries")).register(meterRegistry);
+        Gauge.builder("report.cache.weight", this, cache -> cache.stats().get("weight")).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached result for the report, or computes and caches it.
+     * Callers must not modify the returned value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long companyId, String report, List<Object> params, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        // Read the version first: a posting committed while computing then only makes the result stale
+        long version = ledgerVersions.current(companyId);
+        Key key = new Key(companyId, report, params);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version() == version && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return (T) entry.value();
+            }
+            if (entry != null) {
+                remove(key, entry, staleEvictions);
+            }
+        }
+
+        misses.increment();
+        T value = loader.get();
+        Entry entry = new Entry(version, value, weigh(value), System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalWeight -= previous.weight();
+            }
+            totalWeight += entry.weight();
+            evictOverweight();
+        }
+        return value;
+    }
+
+    public synchronized Map<String, Double> stats() {
+        Map<String, Double> stats = new LinkedHashMap<>();
+        stats.put("entries", (double) entries.size());
+        stats.put("weight", (double) totalWeight);
+        stats.put("maxWeight", (double) maxWeight);
+        stats.put("hits", hits.count());
+        stats.put("misses", misses.count());
+        stats.put("sizeEvictions", sizeEvictions.count());
+        stats.put("staleEvictions", staleEvictions.count());
+        return stats;
+    }
+
+    private void evictOverweight() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            Map.Entry<Key, Entry> next = eldest.next();
+            totalWeight -= next.getValue().weight();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private void remove(Key key, Entry entry, Counter cause) {
+        entries.remove(key);
+        totalWeight -= entry.weight();
+        cause.increment();
+    }
+
+    // Rough size: one unit per map entry, list element or scalar
+    private static int weigh(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            int weight = 1;
+            for (Object element : map.values()) {
+                weight += weigh(element);
+            }
+            return weight;
+        }
+        if (value instanceof Collection<?> collection) {
+            int weight = 1;
+            for (Object element : collection) {
+                weight += weigh(element);
+            }
+            return weight;
+        }
+        return 1;
+    }
+}
@@ -3,67 +3,183 @@ package com.balancesheet.backend.service;
 import com.balancesheet.backend.model.Account;
 import com.balancesheet.backend.model.AccountType;
 import com.balancesheet.backend.model.JournalEntry;
+import com.balancesheet.backend.repository.AccountBalanceRepository;
 import com.balancesheet.backend.repository.JournalEntryRepository;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.*;
 
 @Service
 public class ReportService {
 
     private final JournalEntryRepository journalEntryRepository;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final LedgerAggregates ledgerAggregates;
+    private final DailyBalanceService dailyBalanceService;
+    private final ReportCache reportCache;
+    private final AccountCache accountCache;
 
-    public ReportService(JournalEntryRepository journalEntryRepository) {
+    public ReportService(JournalEntryRepository journalEntryRepository,
+            AccountBalanceRepository accountBalanceRepository, LedgerAggregates ledgerAggregates,
+            DailyBalanceService dailyBalanceService, ReportCache reportCache, AccountCache accountCache) {
         this.journalEntryRepository = journalEntryRepository;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.ledgerAggregates = ledgerAggregates;
+        this.dailyBalanceService = dailyBalanceService;
+        this.reportCache = reportCache;
+        this.accountCache = accountCache;
+    }
+
+    private static final int MAX_PERIODS = 60;
+    private static final Set<AccountType> PNL_TYPES = EnumSet.of(AccountType.REVENUE, AccountType.EXPENSE);
+
+    public enum PeriodInterval {
+        MONTH, QUARTER, YEAR, DAYS;
+
+        public static PeriodInterval parse(String value) {
+            for (PeriodInterval interval : values()) {
+                if (interval.name().equalsIgnoreCase(value)) {
+                    return interval;
+                }
+            }
+            throw new IllegalArgumentException("Interval must be one of month, quarter, year or days");
+        }
     }
 
     public Map<String, Object> getProfitAndLoss(Long companyId, int year) {
-        LocalDateTime startDate = LocalDateTime.of(year, 1, 1, 0, 0);
-        LocalDateTime endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
+        return reportCache.get(companyId, "pnl", List.of(year), () -> computeProfitAndLoss(companyId, year));
+    }
 
-        // Supports comparative previous year query
-        LocalDateTime prevStartDate = startDate.minusYears(1);
-        LocalDateTime prevEndDate = endDate.minusYears(1);
+    private Map<String, Object> computeProfitAndLoss(Long companyId, int year) {
+        // Current and previous year as two periods of the same grouped query
+        List<Map<String, Object>> periods = computePeriods(companyId, PeriodInterval.YEAR, 0, 2,
+                LocalDate.of(year, 12, 31));
 
         Map<String, Object> report = new HashMap<>();
         report.put("year", year);
-        report.put("current", calculatePnL(companyId, startDate, endDate));
-        report.put("previous", calculatePnL(companyId, prevStartDate, prevEndDate));
+        report.put("current", totals(periods.get(1)));
+        report.put("previous", totals(periods.get(0)));
+
+        return report;
+    }
+
+    /**
+     * P&L for the given number of consecutive periods, oldest first, the last
+     * one containing the end date. Calendar intervals are aligned to months,
+     * quarters or years; DAYS periods are days long and end on the end date.
+     * Each period carries totals and a per-account breakdown.
+     */
+    public Map<String, Object> getProfitAndLossByPeriod(Long companyId, PeriodInterval interval, int days,
+            int periods, LocalDate end) {
+        if (periods < 1 || periods > MAX_PERIODS) {
+            throw new IllegalArgumentException("Periods must be between 1 and " + MAX_PERIODS);
+        }
+        if (interval == PeriodInterval.DAYS && (days < 1 || days > 366)) {
+            throw new IllegalArgumentException("Days must be between 1 and 366");
+        }
 
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("interval", interval);
+        report.put("periods", reportCache.get(companyId, "pnl-periods", List.of(interval, days, periods, end),
+                () -> computePeriods(companyId, interval, days, periods, end)));
         return report;
     }
 
-    private Map<String, BigDecimal> calculatePnL(Long companyId, LocalDateTime start, LocalDateTime end) {
-        List<Object[]> results = journalEntryRepository.sumByAccountTypeAndDateRange(companyId, start, end);
+    private List<Map<String, Object>> computePeriods(Long companyId, PeriodInterval interval, int days,
+            int periods, LocalDate end) {
+        List<LocalDate> boundaries = boundaries(interval, days, periods, end);
+
+        // One grouped pass over the whole range; rows are (period, account, amount)
+        List<Map<Long, BigDecimal>> byPeriod = new ArrayList<>();
+        for (int i = 0; i < periods; i++) {
+            byPeriod.add(new HashMap<>());
+        }
+        Set<Long> accountIds = new HashSet<>();
+        for (Object[] row : ledgerAggregates.sumByPeriodAndAccount(companyId, PNL_TYPES, boundaries)) {
+            byPeriod.get((Integer) row[0]).merge((Long) row[1], (BigDecimal) row[2], BigDecimal::add);
+            accountIds.add((Long) row[1]);
+        }
+        Map<Long, Account> accounts = accountCache.resolve(companyId, accountIds);
 
-        BigDecimal revenue = BigDecimal.ZERO;
-        BigDecimal expense = BigDecimal.ZERO;
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = 0; i < periods; i++) {
+            BigDecimal revenue = BigDecimal.ZERO;
+            BigDecimal expense = BigDecimal.ZERO;
+            List<Map<String, Object>> lines = new ArrayList<>();
 
-        for (Object[] row : results) {
-            AccountType type = (AccountType) row[0];
-            BigDecimal amount = (BigDecimal) row[1];
-
-            // In DB: Revenue is Credit (-), Expense is Debit (+)
-            // For P&L display: We want Revenue positive, Expense positive
-            if (type == AccountType.REVENUE)
-                revenue = revenue.add(amount.abs());
-            if (type == AccountType.EXPENSE)
-                expense = expense.add(amount.abs());
+            for (Map.Entry<Long, BigDecimal> sum : byPeriod.get(i).entrySet()) {
+                Account account = accounts.get(sum.getKey());
+                // In DB: Revenue is Credit (-), Expense is Debit (+)
+                // For P&L display: We want Revenue positive, Expense positive
+                BigDecimal amount = account.getType() == AccountType.REVENUE ? sum.getValue().negate()
+                        : sum.getValue();
+                if (account.getType() == AccountType.REVENUE) {
+                    revenue = revenue.add(amount);
+                } else {
+                    expense = expense.add(amount);
+                }
+
+                Map<String, Object> line = new HashMap<>();
+                line.put("id", account.getId());
+                line.put("name", account.getName());
+                line.put("type", account.getType());
+                line.put("amount", amount);
+                lines.add(line);
+            }
+            lines.sort(Comparator.comparing((Map<String, Object> line) -> (AccountType) line.get("type"))
+                    .thenComparing(line -> (String) line.get("name")));
+
+            Map<String, Object> period = new LinkedHashMap<>();
+            period.put("from", boundaries.get(i));
+            period.put("to", boundaries.get(i + 1)); // Exclusive
+            period.put("revenue", revenue);
+            period.put("expense", expense);
+            period.put("netIncome", revenue.subtract(expense));
+            period.put("accounts", lines);
+            result.add(period);
         }
+        return result;
+    }
+
+    // Period starts plus the exclusive end of the last period
+    private static List<LocalDate> boundaries(PeriodInterval interval, int days, int periods, LocalDate end) {
+        LocalDate lastStart = switch (interval) {
+            case MONTH -> end.withDayOfMonth(1);
+            case QUARTER -> end.withMonth((end.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+            case YEAR -> end.withDayOfYear(1);
+            case DAYS -> end.minusDays(days - 1);
+        };
 
+        List<LocalDate> boundaries = new ArrayList<>();
+        for (int i = periods - 1; i >= -1; i--) {
+            boundaries.add(switch (interval) {
+                case MONTH -> lastStart.minusMonths(i);
+                case QUARTER -> lastStart.minusMonths(3L * i);
+                case YEAR -> lastStart.minusYears(i);
+                case DAYS -> lastStart.minusDays((long) days * i);
+            });
+        }
+        return boundaries;
+    }
+
+    private static Map<String, BigDecimal> totals(Map<String, Object> period) {
         Map<String, BigDecimal> data = new HashMap<>();
-        data.put("revenue", revenue);
-        data.put("expense", expense);
-        data.put("netIncome", revenue.subtract(expense));
+        data.put("revenue", (BigDecimal) period.get("revenue"));
+        data.put("expense", (BigDecimal) period.get("expense"));
+        data.put("netIncome", (BigDecimal) period.get("netIncome"));
         return data;
     }
 
     public List<Map<String, Object>> getTrialBalance(Long companyId) {
+        return reportCache.get(companyId, "trial-balance", List.of(), () -> computeTrialBalance(companyId));
+    }
+
+    private List<Map<String, Object>> computeTrialBalance(Long companyId) {
         // Trial Balance is "As of today" usually, spanning all time
         // Or we can verify 0
-        List<Object[]> results = journalEntryRepository.sumByAccount(companyId);
+        List<Object[]> results = accountBalanceRepository.findNonZeroBalances(companyId);
         List<Map<String, Object>> report = new ArrayList<>();
 
         for (Object[] row : results) {
@@ -91,9 +207,75 @@ public class ReportService {
         return report;
     }
 
+    /**
+     * Trial balance at the end of the given day, optionally next to the
+     * balances at the end of a comparison day with a per-account delta. Both
+     * columns come from the same aggregate. The totals carry the debit/credit
+     * check: a ledger whose postings all balance has a difference of zero.
+     */
+    public Map<String, Object> getTrialBalanceAsOf(Long companyId, LocalDate asOf, LocalDate compareTo) {
+        return reportCache.get(companyId, "trial-balance-as-of", Arrays.asList(asOf, compareTo),
+                () -> computeTrialBalanceAsOf(companyId, asOf, compareTo));
+    }
+
+    private Map<String, Object> computeTrialBalanceAsOf(Long companyId, LocalDate asOf, LocalDate compareTo) {
+        LocalDate comparison = compareTo != null ? compareTo : asOf;
+        List<Object[]> rows = ledgerAggregates.balancesBefore(companyId, asOf.plusDays(1), comparison.plusDays(1));
+        Map<Long, Account> accounts = accountCache.resolve(companyId,
+                rows.stream().map(row -> (Long) row[0]).toList());
+
+        BigDecimal totalDebit = BigDecimal.ZERO;
+        BigDecimal totalCredit = BigDecimal.ZERO;
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (Object[] row : rows) {
+            BigDecimal balance = (BigDecimal) row[1];
+            BigDecimal previous = (BigDecimal) row[2];
+            if (balance.signum() == 0 && (compareTo == null || previous.signum() == 0)) {
+                continue;
+            }
+
+            Account account = accounts.get((Long) row[0]);
+            BigDecimal debit = balance.signum() >= 0 ? balance : BigDecimal.ZERO;
+            BigDecimal credit = balance.signum() < 0 ? balance.negate() : BigDecimal.ZERO;
+            totalDebit = totalDebit.add(debit);
+            totalCredit = totalCredit.add(credit);
+
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("id", account.getId());
+            line.put("account", account.getName());
+            line.put("type", account.getType());
+            line.put("debit", debit);
+            line.put("credit", credit);
+            line.put("balance", balance);
+            if (compareTo != null) {
+                line.put("compareBalance", previous);
+                line.put("delta", balance.subtract(previous));
+            }
+            lines.add(line);
+        }
+        lines.sort(Comparator.comparing((Map<String, Object> line) -> (AccountType) line.get("type"))
+                .thenComparing(line -> (String) line.get("account")));
+
+        BigDecimal difference = totalDebit.subtract(totalCredit);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("asOf", asOf);
+        report.put("compareTo", compareTo);
+        report.put("accounts", lines);
+        report.put("totalDebit", totalDebit);
+        report.put("totalCredit", totalCredit);
+        report.put("difference", difference);
+        report.put("balanced", difference.signum() == 0);
+        return report;
+    }
+
     public List<JournalEntry> getGeneralLedger(Long companyId, Long accountId, int year) {
-        LocalDateTime startDate = LocalDateTime.of(year, 1, 1, 0, 0);
-        LocalDateTime endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
+        LocalDate startDate = LocalDate.of(year, 1, 1);
+        LocalDate endDate = startDate.plusYears(1);
         return journalEntryRepository.findByAccountAndDateRange(companyId, accountId, startDate, endDate);
     }
+
+    // Balance carried into the general ledger for the year
+    public BigDecimal getOpeningBalance(Long companyId, Long accountId, int year) {
+        return dailyBalanceService.getOpeningBalance(companyId, accountId, LocalDate.of(year, 1, 1));
+    }
 }
@@ -4,93 +4,169 @@ import com.balancesheet.backend.model.JournalEntry;
 import com.balancesheet.backend.model.RecurringTransaction;
 import com.balancesheet.backend.model.Transaction;
 import com.balancesheet.backend.repository.RecurringTransactionRepository;
-import com.balancesheet.backend.repository.TransactionRepository;
-import org.springframework.scheduling.annotation.Scheduled;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 
+/**
+ * Posts due recurring transactions. Items are claimed in batches with
+ * SELECT ... FOR UPDATE SKIP LOCKED, so several instances can run the
+ * scheduler at once: each due item is locked by exactly one of them until its
+ * batch commits with the posting and the advanced next run date. Each batch
+ * is its own database transaction. Runs missed while no scheduler was up are
+ * caught up in one go, each dated on the day it was due. RecurringQueue
+ * decides when to run.
+ */
 @Service
 @lombok.extern.slf4j.Slf4j
 public class SchedulerService {
 
     private final RecurringTransactionRepository recurringRepository;
-    private final TransactionRepository transactionRepository;
+    private final AccountingService accountingService;
+    private final EntityManager entityManager;
+    private final org.springframework.transaction.support.TransactionTemplate transactionTemplate;
+    private final int batchSize;
 
     public SchedulerService(RecurringTransactionRepository recurringRepository,
-            TransactionRepository transactionRepository) {
+            AccountingService accountingService, EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger.scheduler.batch-size:100}") int batchSize) {
         this.recurringRepository = recurringRepository;
-        this.transactionRepository = transactionRepository;
+        this.accountingService = accountingService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        this.batchSize = batchSize;
     }
 
-    // Run every minute for demo purposes (in production, usually daily e.g., "0 0 0
-    // * * ?")
-    // For this prototype, we'll check every 10 seconds to make testing easier for
-    // the user
-    @Scheduled(fixedRate = 10000)
-    @Transactional
+    // Posts everything due today, whatever the in-memory schedule holds; run on each resync
     public void processRecurringTransactions() {
         LocalDate today = LocalDate.now();
-        List<RecurringTransaction> dueTransactions = recurringRepository.findByNextRunDateBefore(today.plusDays(1));
+        run(today, afterId -> recurringRepository.claimDue(today, afterId, Limit.of(batchSize)));
+    }
 
-        for (RecurringTransaction rt : dueTransactions) {
-            log.info("Processing recurring transaction: {}", rt.getName());
+    // Posts the given items if they are (still) due; called when the schedule fires
+    public void processDue(Collection<Long> ids) {
+        LocalDate today = LocalDate.now();
+        run(today, afterId -> recurringRepository.claimDueAmong(ids, today, afterId, Limit.of(batchSize)));
+    }
 
-            // Check if active (startDate <= today <= endDate)
-            boolean isActive = true;
-            if (rt.getStartDate() != null && today.isBefore(rt.getStartDate())) {
-                isActive = false;
-            }
-            if (rt.getEndDate() != null && today.isAfter(rt.getEndDate())) {
-                isActive = false;
+    private void run(LocalDate today, Function<Long, List<RecurringTransaction>> claimBatch) {
+        // Walk the due items in id order so items that keep failing are not
+        // claimed again in the same run
+        long afterId = 0;
+        while (true) {
+            List<Long> claimed = new ArrayList<>();
+            long from = afterId;
+            try {
+                transactionTemplate.executeWithoutResult(status -> processBatch(today, claimBatch.apply(from),
+                        claimed));
+            } catch (RuntimeException ex) {
+                // The batch rolled back as a whole; retry its items one by one to isolate the failure
+                log.warn("Recurring batch after id {} failed ({}), retrying items individually", from,
+                        ex.getMessage());
+                for (Long id : claimed) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> recurringRepository
+                                .claimDueById(id, today)
+                                .ifPresent(rt -> process(rt, today)));
+                    } catch (RuntimeException itemEx) {
+                        log.error("Recurring transaction {} failed: {}", id,
+                                NestedExceptionUtils.getMostSpecificCause(itemEx).getMessage());
+                    }
+                }
             }
 
-            if (isActive) {
-                Transaction tx = new Transaction();
-                tx.setDate(LocalDateTime.now());
-                tx.setDescription("Auto: " + rt.getDescription() + " (" + rt.getName() + ")");
-                tx.setCompany(rt.getCompany());
-                tx.setCurrency(rt.getCompany().getCurrency()); // Set currency from company
-
-                // Debit Entry
-                JournalEntry dr = new JournalEntry();
-                dr.setAccount(rt.getDebitAccount());
-                dr.setAmount(rt.getAmount()); // Positive for Debit
-                dr.setTransaction(tx);
-                tx.getEntries().add(dr);
-
-                // Credit Entry
-                JournalEntry cr = new JournalEntry();
-                cr.setAccount(rt.getCreditAccount());
-                cr.setAmount(rt.getAmount().negate()); // Negative for Credit
-                cr.setTransaction(tx);
-                tx.getEntries().add(cr);
-
-                transactionRepository.save(tx);
-            } else {
-                log.info("Skipping item {} (Inactive date range)", rt.getName());
+            if (claimed.size() < batchSize) {
+                return;
             }
+            afterId = claimed.get(claimed.size() - 1);
+        }
+    }
+
+    private void processBatch(LocalDate today, List<RecurringTransaction> due, List<Long> claimed) {
+        due.forEach(rt -> claimed.add(rt.getId()));
+        for (RecurringTransaction rt : due) {
+            process(rt, today);
+        }
+        // Surface database errors here rather than at commit
+        entityManager.flush();
+    }
+
+    /**
+     * Posts every run of the item due on or before today, each dated on its own
+     * run date, in one batched insert, and moves the next run date past today.
+     * Runs outside the item's start/end dates are skipped.
+     */
+    private void process(RecurringTransaction rt, LocalDate today) {
+        List<Transaction> runs = RecurringSchedule.dueThrough(rt, today).stream()
+                .map(date -> build(rt, date))
+                .toList();
+        if (runs.isEmpty()) {
+            log.info("Skipping item {} (Inactive date range)", rt.getName());
+        } else {
+            log.info("Processing recurring transaction: {} ({} runs)", rt.getName(), runs.size());
+            accountingService.postAll(runs);
+        }
+
+        // rt is managed and locked; the change is flushed with the batch
+        rt.setNextRunDate(RecurringSchedule.nextAfter(rt, today));
+    }
 
-            // Update next run date to next month
-            // If day of month is > 28, handle carefully, but for simple MVP just plusDays
-            // or plusMonths
-            LocalDate nextDate = rt.getNextRunDate().plusMonths(1);
-
-            // Should skipping also advance? Yes, normally, to check again next month.
-            // But if it's inactive because it ended, it simply won't matter.
-            // If it's inactive because it hasn't started yet, we need to advance or set to
-            // startDate?
-            // Simple logic: Always advance so we don't get stuck in a loop if we run every
-            // minute.
-
-            // Optimization: If startDate is far in future, maybe set nextRunDate to
-            // startDate?
-            // For now, keep simple behavior:
-            rt.setNextRunDate(nextDate);
-            recurringRepository.save(rt);
+    /**
+     * Dry run: the postings the scheduler would make for the company's items
+     * if it ran on the given day, oldest first. Nothing is written.
+     */
+    public List<Map<String, Object>> previewDue(Long companyId, LocalDate asOf) {
+        List<Map<String, Object>> preview = new ArrayList<>();
+        for (RecurringTransaction rt : recurringRepository.findByCompanyId(companyId)) {
+            for (LocalDate date : RecurringSchedule.dueThrough(rt, asOf)) {
+                Map<String, Object> run = new LinkedHashMap<>();
+                run.put("recurringTransactionId", rt.getId());
+                run.put("name", rt.getName());
+                run.put("date", date);
+                run.put("description", description(rt));
+                run.put("amount", rt.getAmount());
+                run.put("debitAccount", rt.getDebitAccount().getName());
+                run.put("creditAccount", rt.getCreditAccount().getName());
+                preview.add(run);
+            }
         }
+        preview.sort(Comparator.comparing((Map<String, Object> run) -> (LocalDate) run.get("date")));
+        return preview;
+    }
+
+    private static Transaction build(RecurringTransaction rt, LocalDate date) {
+        Transaction tx = new Transaction();
+        tx.setDate(date.atStartOfDay());
+        tx.setDescription(description(rt));
+        tx.setCompany(rt.getCompany());
+        tx.setCurrency(rt.getCompany().getCurrency()); // Set currency from company
+
+        // Debit Entry
+        JournalEntry dr = new JournalEntry();
+        dr.setAccount(rt.getDebitAccount());
+        dr.setAmount(rt.getAmount()); // Positive for Debit
+        dr.setTransaction(tx);
+        tx.getEntries().add(dr);
+
+        // Credit Entry
+        JournalEntry cr = new JournalEntry();
+        cr.setAccount(rt.getCreditAccount());
+        cr.setAmount(rt.getAmount().negate()); // Negative for Credit
+        cr.setTransaction(tx);
+        tx.getEntries().add(cr);
+        return tx;
+    }
+
+    private static String description(RecurringTransaction rt) {
+        return "Auto: " + rt.getDescription() + " (" + rt.getName() + ")";
     }
 }
@@ -0,0 +1,162 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.ProductRepository;
+import com.balancesheet.backend.repository.StockMovementRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Records stock movements and keeps Product.quantityOnHand equal to their
+ * sum. Movements are inserted with the rest of the transaction's writes. The
+ * quantity changes are summed per product and applied just before commit as
+ * one JDBC batch of in-database increments, in product id order. A product
+ * row is therefore locked only for the commit itself, never across a whole
+ * posting, and two transactions always lock their products in the same order.
+ * The increment is also scoped to the movement's company, so a product id of
+ * another company can never be changed.
+ */
+@Service
+public class StockService {
+
+    private static final String PENDING_KEY = StockService.class.getName() + ".pending";
+
+    private final StockMovementRepository movementRepository;
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockService(StockMovementRepository movementRepository, ProductRepository productRepository,
+            EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.movementRepository = movementRepository;
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public StockMovement adjust(Long companyId, Long productId, int quantityChange, String note) {
+        if (!productRepository.existsByIdAndCompanyId(productId, companyId)) {
+            throw new EntityNotFoundException("Product not found");
+        }
+        if (quantityChange == 0) {
+            throw new IllegalArgumentException("Quantity change must not be zero");
+        }
+        StockMovement movement = new StockMovement(companyId, productId, StockMovementType.ADJUSTMENT,
+                quantityChange, null, note);
+        record(List.of(movement));
+        return movement;
+    }
+
+    // Takes the stock of the invoices' product lines as they post
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onInvoicesPosted(Collection<Invoice> invoices) {
+        List<StockMovement> movements = new ArrayList<>();
+        for (Invoice invoice : invoices) {
+            for (InvoiceItem item : invoice.getItems()) {
+                if (item.getProduct() != null) {
+                    movements.add(new StockMovement(invoice.getCompany().getId(), item.getProduct().getId(),
+                            StockMovementType.SALE, -wholeUnits(item), invoice.getId(),
+                            "Invoice #" + invoice.getInvoiceNumber()));
+                }
+            }
+        }
+        record(movements);
+    }
+
+    // The quantity a new product starts with, which its insert already holds
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void opening(Product product) {
+        if (product.getQuantityOnHand() != 0) {
+            entityManager.persist(new StockMovement(product.getCompany().getId(), product.getId(),
+                    StockMovementType.OPENING, product.getQuantityOnHand(), null, null));
+        }
+    }
+
+    // Opening movements for products that had stock before the ledger existed
+    @Transactional
+    public int backfillOpening() {
+        List<Product> products = productRepository.findAllById(movementRepository.findProductsWithoutMovements());
+        products.forEach(this::opening);
+        return products.size();
+    }
+
+    public List<StockMovement> getMovements(Long companyId, Long productId) {
+        return movementRepository.findByCompanyIdAndProductIdOrderByIdDesc(companyId, productId);
+    }
+
+    // Product lines move whole units, since quantity on hand is a count
+    static int wholeUnits(InvoiceItem item) {
+        try {
+            return item.getQuantity().intValueExact();
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Quantity of a product line must be a whole number");
+        }
+    }
+
+    private void record(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        movements.forEach(entityManager::persist);
+        Map<Long, Change> pending = pending();
+        movements.forEach(movement -> pending
+                .computeIfAbsent(movement.getProductId(), productId -> new Change(movement.getCompanyId()))
+                .quantity += movement.getQuantity());
+    }
+
+    // Net quantity change of one product and the company the movements were recorded for
+    private static final class Change {
+        private final Long companyId;
+        private int quantity;
+
+        Change(Long companyId) {
+            this.companyId = companyId;
+        }
+    }
+
+    // Quantity changes of the current transaction by product id, applied before it commits
+    @SuppressWarnings("unchecked")
+    private Map<Long, Change> pending() {
+        Map<Long, Change> pending = (Map<Long, Change>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if (pending != null) {
+            return pending;
+        }
+        Map<Long, Change> changes = new TreeMap<>();
+        TransactionSynchronizationManager.bindResource(PENDING_KEY, changes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                List<Object[]> increments = new ArrayList<>();
+                changes.forEach((productId, change) -> {
+                    if (change.quantity != 0) {
+                        increments.add(new Object[] { change.quantity, productId, change.companyId });
+                    }
+                });
+                int[] updated = jdbcTemplate.batchUpdate(
+                        "UPDATE product SET quantity_on_hand = quantity_on_hand + ? WHERE id = ? AND company_id = ?",
+                        increments);
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        throw new IllegalStateException("Product " + increments.get(i)[1]
+                                + " does not exist in company " + increments.get(i)[2]);
+                    }
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(PENDING_KEY);
+            }
+        });
+        return changes;
+    }
+}
@@ -0,0 +1,140 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.FeedEntry;
+import com.balancesheet.backend.dto.TransactionFeedItem;
+import com.balancesheet.backend.dto.TransactionFeedPage;
+import com.balancesheet.backend.dto.TransactionFeedQuery;
+import com.balancesheet.backend.repository.JournalEntryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Pages through a company's transactions newest first. Pages are addressed by
+ * a (date, id) keyset cursor rather than an offset, so each page is an index
+ * range read no matter how deep the client scrolls, and the entries of a page
+ * are loaded with a single query.
+ */
+@Service
+public class TransactionFeedService {
+
+    // Debit total of the transaction, used by the amount filters
+    private static final String DEBIT_TOTAL = "(SELECT SUM(d.amount) FROM JournalEntry d "
+            + "WHERE d.transaction.id = t.id AND d.amount > 0)";
+
+    private final EntityManager entityManager;
+    private final JournalEntryRepository journalEntryRepository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public TransactionFeedService(EntityManager entityManager, JournalEntryRepository journalEntryRepository,
+            @Value("${ledger.feed.default-page-size:50}") int defaultPageSize,
+            @Value("${ledger.feed.max-page-size:200}") int maxPageSize) {
+        this.entityManager = entityManager;
+        this.journalEntryRepository = journalEntryRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public TransactionFeedPage getFeed(Long companyId, TransactionFeedQuery query) {
+        int limit = query.getLimit() != null ? query.getLimit() : defaultPageSize;
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+
+        StringBuilder jpql = new StringBuilder(
+                "SELECT t.id, t.date, t.description, t.currency FROM Transaction t WHERE t.company.id = :companyId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("companyId", companyId);
+
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            Cursor cursor = Cursor.decode(query.getCursor());
+            jpql.append(" AND (t.date < :cursorDate OR (t.date = :cursorDate AND t.id < :cursorId))");
+            params.put("cursorDate", cursor.date());
+            params.put("cursorId", cursor.id());
+        }
+        if (query.getFrom() != null) {
+            jpql.append(" AND t.date >= :from");
+            params.put("from", query.getFrom().atStartOfDay());
+        }
+        if (query.getTo() != null) {
+            jpql.append(" AND t.date < :to");
+            params.put("to", query.getTo().plusDays(1).atStartOfDay());
+        }
+        if (query.getAccountId() != null) {
+            jpql.append(" AND EXISTS (SELECT 1 FROM JournalEntry e WHERE e.transaction.id = t.id"
+                    + " AND e.account.id = :accountId)");
+            params.put("accountId", query.getAccountId());
+        }
+        if (query.getMinAmount() != null) {
+            jpql.append(" AND ").append(DEBIT_TOTAL).append(" >= :minAmount");
+            params.put("minAmount", query.getMinAmount());
+        }
+        if (query.getMaxAmount() != null) {
+            jpql.append(" AND ").append(DEBIT_TOTAL).append(" <= :maxAmount");
+            params.put("maxAmount", query.getMaxAmount());
+        }
+        jpql.append(" ORDER BY t.date DESC, t.id DESC");
+
+        TypedQuery<Object[]> page = entityManager.createQuery(jpql.toString(), Object[].class);
+        params.forEach(page::setParameter);
+        // One extra row tells us whether another page follows
+        List<Object[]> rows = page.setMaxResults(limit + 1).getResultList();
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        Map<Long, TransactionFeedItem> items = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            items.put(id, new TransactionFeedItem(id, (LocalDateTime) row[1], (String) row[2], (String) row[3],
+                    BigDecimal.ZERO, new ArrayList<>()));
+        }
+
+        if (!items.isEmpty()) {
+            for (Object[] line : journalEntryRepository.findFeedLines(items.keySet())) {
+                TransactionFeedItem item = items.get((Long) line[0]);
+                BigDecimal amount = (BigDecimal) line[3];
+                item.getEntries().add(new FeedEntry((Long) line[1], (String) line[2], amount));
+                if (amount.signum() > 0) {
+                    item.setAmount(item.getAmount().add(amount));
+                }
+            }
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = rows.get(rows.size() - 1);
+            nextCursor = new Cursor((LocalDateTime) last[1], (Long) last[0]).encode();
+        }
+        return new TransactionFeedPage(new ArrayList<>(items.values()), nextCursor);
+    }
+
+    // Position after the last row of a page, opaque to clients
+    private record Cursor(LocalDateTime date, Long id) {
+
+        String encode() {
+            String raw = date + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException ex) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
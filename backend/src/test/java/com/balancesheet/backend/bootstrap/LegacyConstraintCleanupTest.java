@@ -0,0 +1,43 @@
+package com.balancesheet.backend.bootstrap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LegacyConstraintCleanupTest {
+
+    @Autowired
+    private LegacyConstraintCleanup cleanup;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dropsOnlyTheSingleColumnUniqueKey() {
+        jdbcTemplate.execute("CREATE TABLE legacy_numbers (id BIGINT PRIMARY KEY, company_id BIGINT, "
+                + "invoice_number VARCHAR(50), CONSTRAINT uk_legacy_number UNIQUE (invoice_number), "
+                + "CONSTRAINT uk_legacy_company_number UNIQUE (company_id, invoice_number))");
+        try {
+            jdbcTemplate.update("INSERT INTO legacy_numbers VALUES (1, 1, 'INV-2026-00001')");
+            assertThrows(DataIntegrityViolationException.class,
+                    () -> jdbcTemplate.update("INSERT INTO legacy_numbers VALUES (2, 2, 'INV-2026-00001')"));
+
+            assertEquals(1, cleanup.dropUniqueKey("legacy_numbers", "invoice_number"));
+            assertEquals(0, cleanup.dropUniqueKey("legacy_numbers", "invoice_number"));
+
+            // The same number in another company is accepted, the per-company key still holds
+            jdbcTemplate.update("INSERT INTO legacy_numbers VALUES (2, 2, 'INV-2026-00001')");
+            assertThrows(DataIntegrityViolationException.class,
+                    () -> jdbcTemplate.update("INSERT INTO legacy_numbers VALUES (3, 2, 'INV-2026-00001')"));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE legacy_numbers");
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.balancesheet.backend.repository;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.service.AccountingService;
+import com.balancesheet.backend.service.BatchPostingService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JournalEntryRepositoryTest {
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private BatchPostingService batchPostingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Company company;
+    private Account cash;
+    private Account revenue;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Journal " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        revenue = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+    }
+
+    @Test
+    void posting_FillsCompanyAndPostingDate() {
+        Transaction tx = accountingService.recordTransaction(sale("12.00", LocalDateTime.of(2024, 5, 3, 23, 59)),
+                company.getId());
+
+        List<JournalEntry> entries = journalEntryRepository.findByTransactionId(tx.getId());
+        assertEquals(2, entries.size());
+        for (JournalEntry entry : entries) {
+            assertEquals(company.getId(), entry.getCompanyId());
+            assertEquals(LocalDate.of(2024, 5, 3), entry.getPostingDate());
+        }
+    }
+
+    @Test
+    void backfill_FillsRowsWrittenWithoutTheColumns() {
+        Transaction tx = accountingService.recordTransaction(sale("7.00", LocalDateTime.of(2023, 2, 1, 8, 0)),
+                company.getId());
+        jdbcTemplate.update("UPDATE journal_entry SET company_id = NULL, posting_date = NULL WHERE transaction_id = ?",
+                tx.getId());
+
+        assertEquals(2, journalEntryRepository.backfillCompanyAndPostingDate());
+
+        List<JournalEntry> ledger = journalEntryRepository.findByAccountAndDateRange(company.getId(), cash.getId(),
+                LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1));
+        assertEquals(1, ledger.size());
+        assertEquals(LocalDate.of(2023, 2, 1), ledger.get(0).getPostingDate());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_DenormalizedVersusJoinedAggregates() {
+        // Large ledger spread over two years, plus a second company sharing the table
+        seed(company, cash, revenue, 20_000);
+        Company other = companyRepository.save(new Company(null, "Noise " + UUID.randomUUID(), "USD"));
+        Account otherCash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null),
+                other.getId());
+        Account otherRevenue = accountingService.createAccount(
+                new Account(null, "Sales", AccountType.REVENUE, null), other.getId());
+        seed(other, otherCash, otherRevenue, 20_000);
+
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = from.plusMonths(3);
+
+        Supplier<List<?>> joined = () -> entityManager.createQuery(
+                "SELECT e.account.id, SUM(e.amount) FROM JournalEntry e "
+                        + "WHERE e.account.company.id = :companyId "
+                        + "AND e.transaction.date >= :from AND e.transaction.date < :to GROUP BY e.account.id")
+                .setParameter("companyId", company.getId())
+                .setParameter("from", from.atStartOfDay())
+                .setParameter("to", to.atStartOfDay())
+                .getResultList();
+        Supplier<List<?>> denormalized = () -> entityManager.createQuery(
+                "SELECT e.account.id, SUM(e.amount) FROM JournalEntry e "
+                        + "WHERE e.companyId = :companyId "
+                        + "AND e.postingDate >= :from AND e.postingDate < :to GROUP BY e.account.id")
+                .setParameter("companyId", company.getId())
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+
+        assertEquals(joined.get().size(), denormalized.get().size());
+        double joinedMillis = time(joined);
+        double denormalizedMillis = time(denormalized);
+
+        System.out.printf("Quarter aggregate over %d entries: joined %.2f ms, denormalized %.2f ms (%.1fx)%n",
+                journalEntryRepository.count(), joinedMillis, denormalizedMillis, joinedMillis / denormalizedMillis);
+    }
+
+    private void seed(Company target, Account debit, Account credit, int count) {
+        List<TransactionRequest> requests = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            TransactionRequest request = transfer(debit, credit, "3.00", start.plusMinutes(i * 53L));
+            requests.add(request);
+        }
+        assertEquals(count, batchPostingService.recordTransactions(requests, target.getId()).getPosted());
+    }
+
+    private double time(Supplier<List<?>> query) {
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        int runs = 50;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - started) / 1_000_000d / runs;
+    }
+
+    private TransactionRequest sale(String amount, LocalDateTime date) {
+        return transfer(cash, revenue, amount, date);
+    }
+
+    private TransactionRequest transfer(Account debitAccount, Account creditAccount, String amount,
+            LocalDateTime date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Sale");
+        request.setDate(date);
+
+        JournalEntryRequest debit = new JournalEntryRequest();
+        debit.setAccountId(debitAccount.getId());
+        debit.setAmount(new BigDecimal(amount));
+
+        JournalEntryRequest credit = new JournalEntryRequest();
+        credit.setAccountId(creditAccount.getId());
+        credit.setAmount(new BigDecimal(amount).negate());
+
+        request.setEntries(new ArrayList<>(List.of(debit, credit)));
+        return request;
+    }
+}
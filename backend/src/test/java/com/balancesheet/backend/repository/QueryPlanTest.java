@@ -0,0 +1,59 @@
+package com.balancesheet.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the declared indexes: the SQL below mirrors the filters of the
+ * repository range queries, and H2's EXPLAIN must show an index seek on them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transactionsByCompanyAndDateRange_UseCompanyDateIndex() {
+        String plan = explain("SELECT t.id FROM transaction t WHERE t.company_id = 1 "
+                + "AND t.date >= TIMESTAMP '2024-01-01 00:00:00' AND t.date < TIMESTAMP '2025-01-01 00:00:00' "
+                + "ORDER BY t.date DESC");
+
+        assertTrue(plan.contains("IDX_TRANSACTION_COMPANY_DATE"), plan);
+    }
+
+    @Test
+    void accountLedger_UsesAccountDateIndex() {
+        String plan = explain("SELECT e.id FROM journal_entry e WHERE e.company_id = 1 AND e.account_id = 1 "
+                + "AND e.posting_date >= DATE '2024-01-01' AND e.posting_date < DATE '2025-01-01'");
+
+        assertTrue(plan.contains("IDX_JOURNAL_ENTRY_COMPANY_ACCOUNT_DATE"), plan);
+        assertFalse(plan.contains("JOIN"), plan);
+    }
+
+    @Test
+    void journalAggregateByCompany_UsesCompanyDateIndex() {
+        String plan = explain("SELECT e.account_id, SUM(e.amount) FROM journal_entry e WHERE e.company_id = 1 "
+                + "GROUP BY e.account_id");
+
+        assertTrue(plan.contains("IDX_JOURNAL_ENTRY_COMPANY_DATE"), plan);
+    }
+
+    @Test
+    void dailyBalancesByCompanyAndDayRange_UseCompanyDayIndex() {
+        String plan = explain("SELECT SUM(d.debit - d.credit) FROM daily_account_balance d WHERE d.company_id = 1 "
+                + "AND d.posting_day >= DATE '2024-01-01' AND d.posting_day < DATE '2025-01-01'");
+
+        assertTrue(plan.contains("IDX_DAILY_BALANCE_COMPANY_DAY"), plan);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toUpperCase();
+    }
+}
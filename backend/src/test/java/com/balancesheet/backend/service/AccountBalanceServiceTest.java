@@ -0,0 +1,165 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BalanceVerification;
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.AccountBalanceRepository;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountBalanceServiceTest {
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private BatchPostingService batchPostingService;
+
+    @Autowired
+    private DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Company company;
+    private Account cash;
+    private Account revenue;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Balances " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        revenue = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+    }
+
+    @Test
+    void postings_KeepBalancesInStepWithJournal() {
+        accountingService.recordTransaction(sale("100.00"), company.getId());
+        batchPostingService.recordTransactions(List.of(sale("20.00"), sale("5.50")), company.getId());
+
+        Map<AccountType, BigDecimal> position = accountingService.getFinancialPosition(company.getId(), null);
+        assertEquals(0, new BigDecimal("125.50").compareTo(position.get(AccountType.ASSET)));
+        assertEquals(0, new BigDecimal("-125.50").compareTo(position.get(AccountType.REVENUE)));
+        assertTrue(accountBalanceService.verify(company.getId(), false).isConsistent());
+    }
+
+    @Test
+    void verify_ReportsAndRepairsDrift() {
+        accountingService.recordTransaction(sale("40.00"), company.getId());
+
+        AccountBalance row = accountBalanceRepository.findById(cash.getId()).orElseThrow();
+        row.setBalance(new BigDecimal("1.00"));
+        accountBalanceRepository.save(row);
+
+        BalanceVerification report = accountBalanceService.verify(company.getId(), false);
+        assertEquals(1, report.getDrifts().size());
+        assertEquals(0, new BigDecimal("39.00").compareTo(report.getDrifts().get(0).getDifference()));
+        assertFalse(report.isRepaired());
+
+        BalanceVerification repaired = accountBalanceService.verify(company.getId(), true);
+        assertTrue(repaired.isRepaired());
+        assertTrue(accountBalanceService.verify(company.getId(), false).isConsistent());
+    }
+
+    @Test
+    void dailyBalances_AnswerDateRangesAndSurviveRebuild() {
+        accountingService.recordTransaction(sale("30.00", LocalDateTime.of(2023, 12, 31, 23, 0)), company.getId());
+        accountingService.recordTransaction(sale("10.00", LocalDateTime.of(2024, 1, 1, 0, 0)), company.getId());
+        accountingService.recordTransaction(sale("15.00", LocalDateTime.of(2024, 1, 1, 18, 30)), company.getId());
+
+        Map<AccountType, BigDecimal> position = accountingService.getFinancialPosition(company.getId(), 2024);
+        assertEquals(0, new BigDecimal("25.00").compareTo(position.get(AccountType.ASSET)));
+        assertEquals(0, new BigDecimal("30.00").compareTo(
+                reportService.getOpeningBalance(company.getId(), cash.getId(), 2024)));
+
+        assertEquals(4, dailyBalanceService.rebuild(company.getId()));
+        assertEquals(position, accountingService.getFinancialPosition(company.getId(), 2024));
+    }
+
+    @Test
+    void accountsThatPredateTheBalanceTables_KeepTheirJournalWhenPostedToBeforeBackfill() {
+        // Accounts with journal entries but no derived rows, as before the tables existed
+        Account oldCash = accountingService.createAccount(new Account(null, "Old Cash", AccountType.ASSET, null),
+                company.getId());
+        Account oldSales = accountingService.createAccount(new Account(null, "Old Sales", AccountType.REVENUE,
+                null), company.getId());
+        accountBalanceRepository.deleteAllById(List.of(oldCash.getId(), oldSales.getId()));
+        long transactionId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1000 FROM transaction",
+                Long.class);
+        jdbcTemplate.update("INSERT INTO transaction (id, date, currency, description, company_id) "
+                + "VALUES (?, ?, 'USD', 'Legacy sale', ?)", transactionId, LocalDateTime.of(2023, 6, 1, 9, 0),
+                company.getId());
+        jdbcTemplate.update("INSERT INTO journal_entry (id, transaction_id, account_id, amount, company_id, "
+                + "posting_date) VALUES (?, ?, ?, 50.00, ?, ?), (?, ?, ?, -50.00, ?, ?)",
+                transactionId, transactionId, oldCash.getId(), company.getId(), LocalDate.of(2023, 6, 1),
+                transactionId + 1, transactionId, oldSales.getId(), company.getId(), LocalDate.of(2023, 6, 1));
+
+        // A posting accepted before the startup backfill ran
+        TransactionRequest request = sale("10.00");
+        request.getEntries().get(0).setAccountId(oldCash.getId());
+        request.getEntries().get(1).setAccountId(oldSales.getId());
+        accountingService.recordTransaction(request, company.getId());
+
+        assertEquals(0, new BigDecimal("60.00").compareTo(
+                accountBalanceRepository.findById(oldCash.getId()).orElseThrow().getBalance()));
+        assertEquals(0, accountBalanceService.backfill(company.getId()));
+        assertTrue(accountBalanceService.verify(company.getId(), false).isConsistent());
+
+        assertEquals(2, dailyBalanceService.backfill(company.getId()));
+        assertEquals(0, dailyBalanceService.backfill(company.getId()));
+        assertEquals(0, new BigDecimal("50.00").compareTo(
+                reportService.getOpeningBalance(company.getId(), oldCash.getId(), 2024)));
+    }
+
+    private TransactionRequest sale(String amount) {
+        return sale(amount, null);
+    }
+
+    private TransactionRequest sale(String amount, LocalDateTime date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Sale");
+        request.setDate(date);
+
+        JournalEntryRequest debit = new JournalEntryRequest();
+        debit.setAccountId(cash.getId());
+        debit.setAmount(new BigDecimal(amount));
+
+        JournalEntryRequest credit = new JournalEntryRequest();
+        credit.setAccountId(revenue.getId());
+        credit.setAmount(new BigDecimal(amount).negate());
+
+        request.setEntries(new ArrayList<>(List.of(debit, credit)));
+        return request;
+    }
+}
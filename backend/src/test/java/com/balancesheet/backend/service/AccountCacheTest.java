@@ -0,0 +1,53 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.Account;
+import com.balancesheet.backend.model.AccountType;
+import com.balancesheet.backend.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AccountCacheTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+
+    @Test
+    void resolve_LoadsOnlyMissingIdsAndRemembersMisses() {
+        Account cash = account(10L, "Cash");
+        Account sales = account(20L, "Sales");
+        when(accountRepository.findByCompanyId(1L)).thenReturn(List.of(cash));
+        when(accountRepository.findByCompanyIdAndIdIn(eq(1L), any())).thenReturn(List.of(sales));
+        AccountCache cache = new AccountCache(accountRepository, Duration.ofMinutes(5), Duration.ofMinutes(1));
+
+        assertEquals(cash, cache.resolve(1L, List.of(10L)).get(10L));
+        // 20 was created elsewhere after the load, 99 does not exist
+        assertEquals(sales, cache.resolve(1L, List.of(10L, 20L, 99L)).get(20L));
+        assertNull(cache.resolve(1L, List.of(99L)).get(99L));
+        assertEquals(cash, cache.resolve(1L, List.of(10L, 20L)).get(10L));
+
+        verify(accountRepository, times(1)).findByCompanyId(1L);
+        verify(accountRepository, times(1)).findByCompanyIdAndIdIn(1L, Set.of(20L, 99L));
+        verifyNoMoreInteractions(accountRepository);
+    }
+
+    @Test
+    void resolve_ReloadsTheChartAfterTheTtl() {
+        when(accountRepository.findByCompanyId(1L)).thenReturn(List.of(account(10L, "Cash")));
+        AccountCache cache = new AccountCache(accountRepository, Duration.ZERO, Duration.ofMinutes(1));
+
+        cache.resolve(1L, List.of(10L));
+        cache.resolve(1L, List.of(10L));
+
+        verify(accountRepository, times(2)).findByCompanyId(1L);
+    }
+
+    private static Account account(Long id, String name) {
+        return new Account(id, name, AccountType.ASSET, null);
+    }
+}
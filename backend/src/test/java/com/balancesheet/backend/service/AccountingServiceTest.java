@@ -18,10 +18,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +41,21 @@ class AccountingServiceTest {
     @Mock
     private CompanyRepository companyRepository;
 
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private AccountBalanceService accountBalanceService;
+
+    @Mock
+    private DailyBalanceService dailyBalanceService;
+
+    @Mock
+    private LedgerColumnStore ledgerColumnStore;
+
+    @Mock
+    private LedgerVersions ledgerVersions;
+
     @InjectMocks
     private AccountingService accountingService;
 
@@ -89,8 +106,7 @@ class AccountingServiceTest {
 
         // Mocks
         when(companyRepository.findById(1L)).thenReturn(Optional.of(testCompany));
-        when(accountRepository.findById(10L)).thenReturn(Optional.of(debitAccount));
-        when(accountRepository.findById(20L)).thenReturn(Optional.of(creditAccount));
+        when(accountCache.resolve(eq(1L), any())).thenReturn(Map.of(10L, debitAccount, 20L, creditAccount));
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -102,6 +118,36 @@ class AccountingServiceTest {
         assertEquals(2, result.getEntries().size());
         assertEquals(testCompany, result.getCompany());
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(accountBalanceService).apply(result.getEntries());
+        verify(dailyBalanceService).apply(result.getEntries());
+        verify(accountRepository, never()).findById(any());
+    }
+
+    @Test
+    void recordTransaction_ForeignAccount_ThrowsException() {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Foreign Account");
+
+        JournalEntryRequest debitEntry = new JournalEntryRequest();
+        debitEntry.setAccountId(99L);
+        debitEntry.setAmount(new BigDecimal("50.00"));
+
+        JournalEntryRequest creditEntry = new JournalEntryRequest();
+        creditEntry.setAccountId(20L);
+        creditEntry.setAmount(new BigDecimal("-50.00"));
+
+        request.setEntries(List.of(debitEntry, creditEntry));
+
+        when(companyRepository.findById(1L)).thenReturn(Optional.of(testCompany));
+        // Account 99 belongs to another company, so the company-scoped lookup does not return it
+        when(accountCache.resolve(eq(1L), any())).thenReturn(Map.of(10L, debitAccount, 20L, creditAccount));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            accountingService.recordTransaction(request, 1L);
+        });
+
+        assertTrue(exception.getMessage().contains("Account not found: 99"));
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
     @Test
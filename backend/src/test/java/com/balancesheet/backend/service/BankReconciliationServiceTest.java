@@ -0,0 +1,143 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import com.balancesheet.backend.service.BankStatementParser.StatementLine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BankReconciliationServiceTest {
+
+    @Autowired
+    private BankReconciliationService bankReconciliationService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcile_PostsMatchedLinesAndLeavesTheRestForReview() {
+        Company company = companyRepository.save(new Company(null, "Bank " + UUID.randomUUID(), "USD"));
+        Long companyId = company.getId();
+        Account cash = accountingService.createAccount(new Account(null, "Bank", AccountType.ASSET, null), companyId);
+        Account receivables = accountingService.createAccount(
+                new Account(null, "Accounts Receivable", AccountType.ASSET, null), companyId);
+        Account sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                companyId);
+        Customer acme = customerRepository.save(new Customer(null, "Acme Ltd", null, null, null, company));
+        Customer globex = customerRepository.save(new Customer(null, "Globex", null, null, null, company));
+
+        Invoice first = approve(acme, "100.00", companyId, sales, receivables);
+        Invoice second = approve(acme, "250.00", companyId, sales, receivables);
+        Invoice third = approve(globex, "75.00", companyId, sales, receivables);
+        Invoice fourth = approve(globex, "75.00", companyId, sales, receivables);
+
+        String statement = String.join("\n",
+                "Date,Amount,Reference,Counterparty",
+                // Both of Acme's invoices by number
+                "2025-07-01,350.00,\"" + first.getInvoiceNumber() + ", " + second.getInvoiceNumber() + "\",ACME LTD",
+                // Globex has two invoices of 75: a suggestion
+                "2025-07-02,75,Thanks,Globex",
+                // The first line already paid this one
+                "2025-07-03,100.00,Invoice " + first.getInvoiceNumber().toLowerCase() + ",Acme Ltd",
+                "2025-07-04,-20.00,Bank fee,",
+                "2025-07-05,12.34,Unknown,Someone");
+
+        Map<String, Object> result = bankReconciliationService.reconcile(companyId, statement, cash.getId(),
+                "Bank Transfer");
+
+        List<Map<String, Object>> matches = (List<Map<String, Object>>) result.get("matches");
+        assertEquals(List.of(BankReconciliationService.Status.MATCHED, BankReconciliationService.Status.SUGGESTED,
+                BankReconciliationService.Status.UNMATCHED, BankReconciliationService.Status.UNMATCHED,
+                BankReconciliationService.Status.UNMATCHED),
+                matches.stream().map(m -> m.get("status")).toList());
+        assertEquals("Invoice " + first.getInvoiceNumber() + " is already allocated by line 2",
+                matches.get(2).get("note"));
+        assertEquals(third.getId(), ((List<Map<String, Object>>) matches.get(1).get("allocations")).get(0)
+                .get("invoiceId"));
+
+        BatchResult posting = (BatchResult) result.get("posting");
+        assertEquals(2, posting.getPosted());
+        assertEquals(InvoiceStatus.PAID, invoiceRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(InvoiceStatus.PAID, invoiceRepository.findById(second.getId()).orElseThrow().getStatus());
+        assertEquals(InvoiceStatus.POSTED, invoiceRepository.findById(fourth.getId()).orElseThrow().getStatus());
+
+        // Paid invoices are no longer open, so the same statement now only has suggestions
+        Map<String, Object> again = bankReconciliationService.match(companyId, statement);
+        assertEquals(0L, again.get("matched"));
+        assertNull(again.get("posting"));
+    }
+
+    @Test
+    void parseCamt_ReadsEntries() {
+        String camt = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <Document xmlns="urn:iso:std:iso:20022:tech:xsd:camt.053.001.02"><BkToCstmrStmt><Stmt>
+                  <Ntry>
+                    <Amt Ccy="EUR">1250.50</Amt><CdtDbtInd>CRDT</CdtDbtInd>
+                    <BookgDt><Dt>2025-07-01</Dt></BookgDt>
+                    <NtryDtls><TxDtls>
+                      <AmtDtls><TxAmt><Amt Ccy="EUR">1250.50</Amt></TxAmt></AmtDtls>
+                      <RltdPties><Dbtr><Nm>Acme Ltd</Nm></Dbtr></RltdPties>
+                      <RmtInf><Ustrd>INV-2025-00042</Ustrd></RmtInf>
+                    </TxDtls></NtryDtls>
+                  </Ntry>
+                  <Ntry>
+                    <Amt Ccy="EUR">9.90</Amt><CdtDbtInd>DBIT</CdtDbtInd>
+                    <BookgDt><DtTm>2025-07-02T10:00:00</DtTm></BookgDt>
+                  </Ntry>
+                </Stmt></BkToCstmrStmt></Document>
+                """;
+
+        List<StatementLine> lines = BankStatementParser.parse(camt);
+
+        assertEquals(List.of(
+                new StatementLine(1, LocalDate.of(2025, 7, 1), new BigDecimal("1250.50"), "INV-2025-00042",
+                        "Acme Ltd"),
+                new StatementLine(2, LocalDate.of(2025, 7, 2), new BigDecimal("-9.90"), null, null)), lines);
+        assertThrows(IllegalArgumentException.class, () -> BankStatementParser.parse("Date,Amount\nyesterday,5"));
+    }
+
+    private Invoice approve(Customer customer, String amount, Long companyId, Account sales, Account receivables) {
+        Invoice invoice = new Invoice();
+        invoice.setCustomer(customer);
+        invoice.setDate(LocalDate.of(2025, 6, 1));
+        invoice.setDueDate(LocalDate.of(2025, 6, 30));
+        invoice.setCurrency("USD");
+        InvoiceItem item = new InvoiceItem();
+        item.setDescription("Consulting");
+        item.setQuantity(BigDecimal.ONE);
+        item.setUnitPrice(new BigDecimal(amount));
+        item.setRevenueAccount(sales);
+        invoice.getItems().add(item);
+        Invoice draft = invoiceService.createInvoice(invoice, companyId);
+        return invoiceService.approveInvoice(draft.getId(), companyId, receivables.getId());
+    }
+}
@@ -0,0 +1,125 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BatchItemResult;
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.AccountRepository;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchPostingServiceTest {
+
+    @Autowired
+    private BatchPostingService batchPostingService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private Company company;
+    private Account cash;
+    private Account revenue;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Batch " + UUID.randomUUID(), "USD"));
+        cash = accountRepository.save(new Account(null, "Cash", AccountType.ASSET, company));
+        revenue = accountRepository.save(new Account(null, "Sales", AccountType.REVENUE, company));
+    }
+
+    @Test
+    void recordTransactions_ReportsEachItem() {
+        List<TransactionRequest> requests = new ArrayList<>();
+        requests.add(sale("Valid sale", new BigDecimal("100.00"), new BigDecimal("-100.00")));
+        requests.add(sale("Unbalanced", new BigDecimal("100.00"), new BigDecimal("-90.00")));
+        requests.add(sale("", new BigDecimal("5.00"), new BigDecimal("-5.00")));
+        requests.add(sale("Another sale", new BigDecimal("42.50"), new BigDecimal("-42.50")));
+
+        BatchResult result = batchPostingService.recordTransactions(requests, company.getId());
+
+        assertEquals(4, result.getTotal());
+        assertEquals(2, result.getPosted());
+        assertEquals(2, result.getFailed());
+        assertEquals(BatchItemResult.Status.POSTED, result.getResults().get(0).getStatus());
+        assertNotNull(result.getResults().get(0).getId());
+        assertTrue(result.getResults().get(1).getError().contains("Transaction must balance"));
+        assertEquals("Description is required", result.getResults().get(2).getError());
+        assertEquals(BatchItemResult.Status.POSTED, result.getResults().get(3).getStatus());
+        assertEquals(2, accountingService.getAllTransactions(company.getId(), null).size());
+    }
+
+    @Test
+    void recordTransactions_RejectsForeignAccounts() {
+        Company other = companyRepository.save(new Company(null, "Other " + UUID.randomUUID(), "USD"));
+        Account foreign = accountRepository.save(new Account(null, "Cash", AccountType.ASSET, other));
+
+        TransactionRequest request = sale("Foreign", new BigDecimal("10.00"), new BigDecimal("-10.00"));
+        request.getEntries().get(0).setAccountId(foreign.getId());
+
+        BatchResult result = batchPostingService.recordTransactions(List.of(request), company.getId());
+
+        assertEquals(1, result.getFailed());
+        assertTrue(accountingService.getAllTransactions(company.getId(), null).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_BatchVersusSinglePosting() {
+        int count = 5_000;
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(sale("Import " + i, new BigDecimal("12.34"), new BigDecimal("-12.34")));
+        }
+
+        long started = System.nanoTime();
+        for (TransactionRequest request : requests) {
+            accountingService.recordTransaction(request, company.getId());
+        }
+        double singlePerSecond = count * 1_000_000_000d / (System.nanoTime() - started);
+
+        BatchResult result = batchPostingService.recordTransactions(requests, company.getId());
+
+        System.out.printf("Posting %d transactions: single %.0f tx/s, batch %.0f tx/s (%.1fx)%n", count,
+                singlePerSecond, result.getItemsPerSecond(), result.getItemsPerSecond() / singlePerSecond);
+        assertEquals(count, result.getPosted());
+    }
+
+    private TransactionRequest sale(String description, BigDecimal debit, BigDecimal credit) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription(description);
+        request.setDate(LocalDateTime.now());
+
+        JournalEntryRequest debitEntry = new JournalEntryRequest();
+        debitEntry.setAccountId(cash.getId());
+        debitEntry.setAmount(debit);
+
+        JournalEntryRequest creditEntry = new JournalEntryRequest();
+        creditEntry.setAccountId(revenue.getId());
+        creditEntry.setAmount(credit);
+
+        request.setEntries(new ArrayList<>(List.of(debitEntry, creditEntry)));
+        return request;
+    }
+}
@@ -0,0 +1,99 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CashFlowServiceTest {
+
+    @Autowired
+    private CashFlowService cashFlowService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    private Company company;
+    private Account cash;
+    private Account revenue;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Cash " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        revenue = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+    }
+
+    @Test
+    void cashBalanceHistory_CarriesOpeningBalanceIntoDailyWindow() {
+        LocalDate today = LocalDate.now();
+        accountingService.recordTransaction(sale("100.00", today.minusDays(45)), company.getId());
+        accountingService.recordTransaction(sale("20.00", today.minusDays(3)), company.getId());
+        accountingService.recordTransaction(sale("5.00", today), company.getId());
+
+        List<Map<String, Object>> history = cashFlowService.getCashBalanceHistory(company.getId());
+
+        assertEquals(30, history.size());
+        assertEquals(today.minusDays(29).toString(), history.get(0).get("date"));
+        assertBalance("100.00", history.get(0));
+        assertBalance("120.00", history.get(26));
+        assertBalance("125.00", history.get(29));
+    }
+
+    @Test
+    void cashBalanceHistory_ClosesEachMonthlyBucket() {
+        LocalDate today = LocalDate.now();
+        accountingService.recordTransaction(sale("50.00", today.minusDays(200)), company.getId());
+
+        List<Map<String, Object>> history = cashFlowService.getCashBalanceHistory(company.getId(), 365,
+                CashFlowService.HistoryBucket.MONTH);
+
+        Map<String, Object> last = history.get(history.size() - 1);
+        assertEquals(today.toString(), last.get("date"));
+        assertBalance("50.00", last);
+        assertTrue(history.size() >= 12 && history.size() <= 13);
+        assertThrows(IllegalArgumentException.class,
+                () -> cashFlowService.getCashBalanceHistory(company.getId(), 45, CashFlowService.HistoryBucket.DAY));
+    }
+
+    private void assertBalance(String expected, Map<String, Object> point) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) point.get("balance")));
+    }
+
+    private TransactionRequest sale(String amount, LocalDate date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Sale");
+        request.setDate(date.atTime(12, 0));
+
+        JournalEntryRequest debit = new JournalEntryRequest();
+        debit.setAccountId(cash.getId());
+        debit.setAmount(new BigDecimal(amount));
+
+        JournalEntryRequest credit = new JournalEntryRequest();
+        credit.setAccountId(revenue.getId());
+        credit.setAmount(new BigDecimal(amount).negate());
+
+        request.setEntries(new ArrayList<>(List.of(debit, credit)));
+        return request;
+    }
+}
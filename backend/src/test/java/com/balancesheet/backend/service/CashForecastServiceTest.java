@@ -0,0 +1,152 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.repository.RecurringTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CashForecastServiceTest {
+
+    @Autowired
+    private CashForecastService cashForecastService;
+
+    @Autowired
+    private CashFlowService cashFlowService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RecurringTransactionRepository recurringRepository;
+
+    private final LocalDate today = LocalDate.now();
+    private Company company;
+
+    // Opening cash of 5000, rent of 1000 a month from in five days, and an
+    // invoice of 500 due in ten days of which 200 is already paid
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Forecast " + UUID.randomUUID(), "USD"));
+        Account cash = account("Cash", AccountType.ASSET);
+        Account receivables = account("Accounts Receivable", AccountType.ASSET);
+        Account equity = account("Common Stock", AccountType.EQUITY);
+        Account sales = account("Sales", AccountType.REVENUE);
+        Account rent = account("Rent", AccountType.EXPENSE);
+
+        TransactionRequest opening = new TransactionRequest();
+        opening.setDescription("Capital");
+        opening.setDate(today.minusDays(1).atStartOfDay());
+        opening.setEntries(new ArrayList<>(List.of(line(cash, "5000.00"), line(equity, "-5000.00"))));
+        accountingService.recordTransaction(opening, company.getId());
+
+        LocalDate firstRent = today.plusDays(5);
+        recurringRepository.save(new RecurringTransaction(null, "HQ", "Rent", new BigDecimal("1000.00"), rent, cash,
+                firstRent.getDayOfMonth(), firstRent, null, null, "BUILDING", company, null));
+
+        Customer customer = customerRepository.save(new Customer(null, "Acme", null, null, null, company));
+        Invoice invoice = new Invoice();
+        invoice.setCustomer(customer);
+        invoice.setDate(today.minusDays(1));
+        invoice.setDueDate(today.plusDays(10));
+        invoice.setCurrency("USD");
+        InvoiceItem item = new InvoiceItem();
+        item.setDescription("Consulting");
+        item.setQuantity(BigDecimal.ONE);
+        item.setUnitPrice(new BigDecimal("500.00"));
+        item.setRevenueAccount(sales);
+        invoice.getItems().add(item);
+        invoice = invoiceService.createInvoice(invoice, company.getId());
+        invoiceService.approveInvoice(invoice.getId(), company.getId(), receivables.getId());
+        paymentService.recordPayment(company.getId(), invoice.getId(), new BigDecimal("200.00"), cash.getId(),
+                today.minusDays(1), "Bank Transfer", null);
+    }
+
+    @Test
+    void project_ExpandsEveryOccurrenceAndCollectsOpenBalances() {
+        Map<String, Object> projection = cashForecastService.project(company.getId(), 90, 7, 0, 1);
+        List<Map<String, Object>> series = series(projection);
+
+        assertAmount("5200.00", projection.get("startingBalance"));
+        assertEquals(3, ((List<?>) projection.get("recurring")).size());
+        assertEquals(90, series.size());
+        assertAmount("5200.00", series.get(4).get("balance"));
+        assertAmount("4200.00", series.get(16).get("balance"));
+        assertAmount("4500.00", series.get(17).get("balance"));
+        assertAmount("2500.00", series.get(89).get("balance"));
+
+        Map<String, Object> forecast = cashFlowService.getForecast(company.getId());
+        assertAmount("300.00", forecast.get("totalInflow"));
+        assertAmount("1000.00", forecast.get("totalOutflow"));
+    }
+
+    @Test
+    void project_SimulatesPaymentDelaysIntoPercentileBands() {
+        Map<String, Object> projection = cashForecastService.project(company.getId(), 90, 7, 500, 42);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> simulation = (Map<String, Object>) projection.get("simulation");
+        assertEquals(500, simulation.get("completed"));
+        for (Map<String, Object> point : series(projection)) {
+            BigDecimal p10 = (BigDecimal) point.get("p10");
+            BigDecimal p50 = (BigDecimal) point.get("p50");
+            BigDecimal p90 = (BigDecimal) point.get("p90");
+            assertTrue(p10.compareTo(p50) <= 0 && p50.compareTo(p90) <= 0, point.toString());
+        }
+        assertAmount("2500.00", series(projection).get(89).get("p50"));
+
+        // Scenarios are seeded individually, so a rerun gives the same bands
+        assertEquals(series(projection), series(cashForecastService.project(company.getId(), 90, 7, 500, 42)));
+        assertThrows(IllegalArgumentException.class,
+                () -> cashForecastService.project(company.getId(), 90, 7, 20_000, 42));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> series(Map<String, Object> projection) {
+        return (List<Map<String, Object>>) projection.get("series");
+    }
+
+    private void assertAmount(String expected, Object actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), String.valueOf(actual));
+    }
+
+    private Account account(String name, AccountType type) {
+        return accountingService.createAccount(new Account(null, name, type, null), company.getId());
+    }
+
+    private JournalEntryRequest line(Account account, String amount) {
+        JournalEntryRequest line = new JournalEntryRequest();
+        line.setAccountId(account.getId());
+        line.setAmount(new BigDecimal(amount));
+        return line;
+    }
+}
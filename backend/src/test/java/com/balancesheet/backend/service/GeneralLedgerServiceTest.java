@@ -0,0 +1,112 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class GeneralLedgerServiceTest {
+
+    @Autowired
+    private GeneralLedgerService generalLedgerService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Company company;
+    private Account cash;
+    private Account sales;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Ledger " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+    }
+
+    @Test
+    void write_StreamsLinesWithRunningBalance() throws Exception {
+        sale("Carried", "70.00", LocalDate.of(2024, 12, 31));
+        sale("First", "100.00", LocalDate.of(2025, 1, 2));
+        sale("Refund", "-30.00", LocalDate.of(2025, 1, 2));
+        sale("Next year", "5.00", LocalDate.of(2026, 1, 1));
+
+        GeneralLedgerService.Ledger ledger = generalLedgerService.open(company.getId(), cash.getId(),
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+        JsonNode json = objectMapper.readTree(write(ledger, GeneralLedgerService.Format.JSON));
+
+        assertEquals(0, new BigDecimal("70.00").compareTo(json.get("openingBalance").decimalValue()));
+        assertEquals(2, json.get("entries").size());
+        assertEquals("First", json.get("entries").get(0).get("description").asString());
+        assertEquals(0, new BigDecimal("170.00").compareTo(json.get("entries").get(0).get("balance").decimalValue()));
+        assertEquals(0, new BigDecimal("140.00").compareTo(json.get("entries").get(1).get("balance").decimalValue()));
+        assertEquals(0, new BigDecimal("140.00").compareTo(json.get("closingBalance").decimalValue()));
+    }
+
+    @Test
+    void write_CsvEscapesDescriptionsAndRejectsForeignAccounts() throws Exception {
+        sale("Consulting, \"phase 1\"", "25.00", LocalDate.of(2025, 3, 1));
+
+        String[] lines = write(generalLedgerService.open(company.getId(), cash.getId(), LocalDate.of(2025, 1, 1),
+                LocalDate.of(2026, 1, 1)), GeneralLedgerService.Format.CSV).split("\n");
+
+        assertEquals(4, lines.length);
+        assertEquals("2025-01-01,,Opening balance,,,0", lines[1]);
+        assertTrue(lines[2].startsWith("2025-03-01,"));
+        assertTrue(lines[2].endsWith(",\"Consulting, \"\"phase 1\"\"\",25.00,,25.00"));
+        assertEquals("2025-12-31,,Closing balance,,,25.00", lines[3]);
+
+        Company other = companyRepository.save(new Company(null, "Other " + UUID.randomUUID(), "USD"));
+        assertThrows(IllegalArgumentException.class, () -> generalLedgerService.open(other.getId(), cash.getId(),
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)));
+    }
+
+    private String write(GeneralLedgerService.Ledger ledger, GeneralLedgerService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generalLedgerService.write(ledger, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void sale(String description, String amount, LocalDate date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription(description);
+        request.setDate(date.atTime(9, 0));
+
+        JournalEntryRequest debit = new JournalEntryRequest();
+        debit.setAccountId(cash.getId());
+        debit.setAmount(new BigDecimal(amount));
+
+        JournalEntryRequest credit = new JournalEntryRequest();
+        credit.setAccountId(sales.getId());
+        credit.setAmount(new BigDecimal(amount).negate());
+
+        request.setEntries(new ArrayList<>(List.of(debit, credit)));
+        accountingService.recordTransaction(request, company.getId());
+    }
+}
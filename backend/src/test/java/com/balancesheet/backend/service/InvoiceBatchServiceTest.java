@@ -0,0 +1,126 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.BatchItemResult;
+import com.balancesheet.backend.dto.BatchResult;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.AccountBalanceRepository;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InvoiceBatchServiceTest {
+
+    @Autowired
+    private InvoiceBatchService invoiceBatchService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private AccountBalanceRepository balanceRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private Company company;
+    private Customer customer;
+    private Account receivables;
+    private Account sales;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Billing " + UUID.randomUUID(), "USD"));
+        customer = customerRepository.save(new Customer(null, "Acme", null, null, null, company));
+        receivables = accountingService.createAccount(new Account(null, "Accounts Receivable", AccountType.ASSET,
+                null), company.getId());
+        sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+    }
+
+    @Test
+    void createAndApproveInvoices_ReportsEachInvoice() {
+        Company other = companyRepository.save(new Company(null, "Other " + UUID.randomUUID(), "USD"));
+        Account foreignSales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                other.getId());
+        Customer unknown = new Customer();
+        unknown.setId(-1L);
+
+        List<Invoice> invoices = new ArrayList<>();
+        invoices.add(invoice(customer, sales, "100.00"));
+        invoices.add(invoice(unknown, sales, "50.00"));
+        invoices.add(invoice(customer, foreignSales, "75.00"));
+        invoices.add(invoice(customer, sales, "250.00"));
+        Invoice withoutItems = invoice(customer, sales, "10.00");
+        withoutItems.setItems(null);
+        invoices.add(withoutItems);
+        Invoice withNullItem = invoice(customer, sales, "20.00");
+        withNullItem.getItems().add(null);
+        invoices.add(withNullItem);
+
+        BatchResult created = invoiceBatchService.createInvoices(invoices, company.getId());
+
+        assertEquals(2, created.getPosted());
+        assertEquals("Customer not found", created.getResults().get(1).getError());
+        assertEquals("Revenue account not found", created.getResults().get(2).getError());
+        assertEquals("Invoice items are required", created.getResults().get(4).getError());
+        assertEquals("Invoice items are required", created.getResults().get(5).getError());
+        Long first = created.getResults().get(0).getId();
+        Long second = created.getResults().get(3).getId();
+        assertEquals(InvoiceStatus.DRAFT, invoiceRepository.findById(first).orElseThrow().getStatus());
+
+        BatchResult approved = invoiceBatchService.approveInvoices(List.of(first, -1L, second, first),
+                company.getId(), receivables.getId());
+
+        assertEquals(List.of(BatchItemResult.Status.POSTED, BatchItemResult.Status.FAILED,
+                BatchItemResult.Status.POSTED, BatchItemResult.Status.FAILED),
+                approved.getResults().stream().map(BatchItemResult::getStatus).toList());
+        assertEquals("Invoice not found", approved.getResults().get(1).getError());
+        assertEquals("Invoice is listed more than once", approved.getResults().get(3).getError());
+        Invoice posted = invoiceRepository.findById(second).orElseThrow();
+        assertEquals(InvoiceStatus.POSTED, posted.getStatus());
+        assertEquals(approved.getResults().get(2).getId(), posted.getTransaction().getId());
+        assertEquals(0, new BigDecimal("350.00").compareTo(
+                balanceRepository.findById(receivables.getId()).orElseThrow().getBalance()));
+        assertTrue(approved.getItemsPerSecond() > 0);
+
+        BatchResult again = invoiceBatchService.approveInvoices(List.of(first), company.getId(),
+                receivables.getId());
+        assertEquals("Invoice is not in DRAFT status", again.getResults().get(0).getError());
+    }
+
+    private static Invoice invoice(Customer customer, Account revenue, String amount) {
+        Invoice invoice = new Invoice();
+        invoice.setCustomer(customer);
+        invoice.setDate(LocalDate.now());
+        invoice.setDueDate(LocalDate.now().plusDays(30));
+        invoice.setCurrency("USD");
+        InvoiceItem item = new InvoiceItem();
+        item.setDescription("Monthly subscription");
+        item.setQuantity(BigDecimal.ONE);
+        item.setUnitPrice(new BigDecimal(amount));
+        item.setRevenueAccount(revenue);
+        invoice.getItems().add(item);
+        return invoice;
+    }
+}
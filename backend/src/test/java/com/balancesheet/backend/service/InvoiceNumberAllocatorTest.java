@@ -0,0 +1,166 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.repository.InvoiceNumberSequenceRepository;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InvoiceNumberAllocatorTest {
+
+    @Autowired
+    private InvoiceNumberAllocator allocator;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private InvoiceNumberSequenceRepository sequenceRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Numbering " + UUID.randomUUID(), "USD"));
+    }
+
+    @Test
+    void concurrentAllocationAcrossInstancesNeverRepeatsANumber() throws Exception {
+        // A second instance with small blocks stands in for another node
+        InvoiceNumberAllocator otherNode = new InvoiceNumberAllocator(sequenceRepository, invoiceRepository,
+                transactionManager, 7, "INV-{year}-{seq:5}");
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<InvoiceNumberAllocator.Allocation>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                InvoiceNumberAllocator node = t % 2 == 0 ? allocator : otherNode;
+                futures.add(executor.submit(() -> {
+                    List<InvoiceNumberAllocator.Allocation> numbers = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        numbers.add(node.next(company, 2026));
+                    }
+                    return numbers;
+                }));
+            }
+
+            Set<String> numbers = new HashSet<>();
+            Set<Long> sequences = new HashSet<>();
+            for (Future<List<InvoiceNumberAllocator.Allocation>> future : futures) {
+                for (InvoiceNumberAllocator.Allocation allocation : future.get(60, TimeUnit.SECONDS)) {
+                    assertTrue(numbers.add(allocation.invoiceNumber()), allocation.invoiceNumber());
+                    sequences.add(allocation.sequence());
+                    assertEquals(String.format("INV-2026-%05d", allocation.sequence()), allocation.invoiceNumber());
+                }
+            }
+            assertEquals(threads * perThread, sequences.size());
+            long reserved = sequenceRepository.findByCompanyIdAndSequenceYear(company.getId(), 2026)
+                    .orElseThrow().getNextValue() - 1;
+            assertTrue(sequences.stream().allMatch(sequence -> sequence >= 1 && sequence <= reserved));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void createInvoiceNumbersPerYearInTheCompanyFormatAndReportsGaps() {
+        company.setInvoiceNumberFormat("{company}/{year}/{seq:3}");
+        company = companyRepository.save(company);
+        Customer customer = customerRepository.save(new Customer(null, "Acme", null, null, null, company));
+        Account sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+
+        Invoice first = invoiceService.createInvoice(invoice(customer, sales, LocalDate.of(2025, 12, 31), null),
+                company.getId());
+        Invoice second = invoiceService.createInvoice(invoice(customer, sales, LocalDate.of(2026, 1, 2), null),
+                company.getId());
+        Invoice manual = invoiceService.createInvoice(invoice(customer, sales, LocalDate.of(2026, 1, 3), "MANUAL-1"),
+                company.getId());
+        // A number handed out but never saved, e.g. by a rolled-back request
+        allocator.next(company, 2026);
+        Invoice third = invoiceService.createInvoice(invoice(customer, sales, LocalDate.of(2026, 1, 4), null),
+                company.getId());
+
+        assertEquals(company.getId() + "/2025/001", first.getInvoiceNumber());
+        assertEquals(company.getId() + "/2026/001", second.getInvoiceNumber());
+        assertEquals("MANUAL-1", manual.getInvoiceNumber());
+        assertNull(manual.getNumberSequence());
+        assertEquals(company.getId() + "/2026/003", third.getInvoiceNumber());
+
+        Map<String, Object> numbering = invoiceService.getNumbering(company.getId(), 2026);
+        assertEquals(2, numbering.get("issued"));
+        assertEquals(3L, numbering.get("highest"));
+        assertEquals(1L, numbering.get("missing"));
+        assertEquals(List.of(Map.of("from", 2L, "to", 2L)), numbering.get("gaps"));
+
+        assertThrows(IllegalArgumentException.class, () -> InvoiceNumberAllocator.validateFormat("INV-{seq}"));
+    }
+
+    @Test
+    void firstInvoicesOfTwoCompaniesShareTheDefaultNumber() {
+        Company other = companyRepository.save(new Company(null, "Numbering " + UUID.randomUUID(), "USD"));
+        List<Invoice> posted = new ArrayList<>();
+        for (Company owner : List.of(company, other)) {
+            Customer customer = customerRepository.save(new Customer(null, "Acme", null, null, null, owner));
+            Account sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                    owner.getId());
+            Account receivable = accountingService.createAccount(
+                    new Account(null, "Receivable", AccountType.ASSET, null), owner.getId());
+            Invoice invoice = invoiceService.createInvoice(invoice(customer, sales, LocalDate.of(2026, 3, 1), null),
+                    owner.getId());
+            posted.add(invoiceService.approveInvoice(invoice.getId(), owner.getId(), receivable.getId()));
+        }
+
+        for (Invoice invoice : posted) {
+            assertEquals("INV-2026-00001", invoice.getInvoiceNumber());
+            assertEquals(InvoiceStatus.POSTED, invoice.getStatus());
+        }
+    }
+
+    private static Invoice invoice(Customer customer, Account revenue, LocalDate date, String number) {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber(number);
+        invoice.setCustomer(customer);
+        invoice.setDate(date);
+        invoice.setDueDate(date.plusDays(30));
+        invoice.setCurrency("USD");
+        InvoiceItem item = new InvoiceItem();
+        item.setDescription("Consulting");
+        item.setQuantity(BigDecimal.ONE);
+        item.setUnitPrice(new BigDecimal("100.00"));
+        item.setRevenueAccount(revenue);
+        invoice.getItems().add(item);
+        return invoice;
+    }
+}
@@ -0,0 +1,209 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.AccountRepository;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Separate in-memory database: this context runs with the columnar engine
+@SpringBootTest(properties = {
+        "ledger.report-engine=columnar",
+        "spring.datasource.url=jdbc:h2:mem:columnar;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class LedgerColumnStoreTest {
+
+    @Autowired
+    private LedgerAggregates ledgerAggregates;
+
+    @Autowired
+    private LedgerColumnStore ledgerColumnStore;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private BatchPostingService batchPostingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerVersions ledgerVersions;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Company company;
+    private Account cash;
+    private Account revenue;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Columns " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        revenue = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+    }
+
+    @Test
+    void columnarEngine_MatchesDatabaseAcrossLoadAndAppends() {
+        accountingService.recordTransaction(sale("100.00", LocalDateTime.of(2024, 12, 31, 22, 0)), company.getId());
+        accountingService.recordTransaction(sale("19.99", LocalDateTime.of(2025, 2, 1, 9, 0)), company.getId());
+        // First query loads the columns; later postings are appended
+        assertConsistent(2025);
+        accountingService.recordTransaction(sale("0.01", LocalDateTime.of(2025, 3, 1, 9, 0)), company.getId());
+
+        Map<AccountType, BigDecimal> position = accountingService.getFinancialPosition(company.getId(), 2025);
+        assertEquals(0, new BigDecimal("20.00").compareTo(position.get(AccountType.ASSET)));
+        assertConsistent(2025);
+        assertConsistent(2024);
+
+        // Month-aligned and arbitrary period boundaries take different database paths
+        for (List<LocalDate> boundaries : List.of(
+                List.of(LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 1)),
+                List.of(LocalDate.of(2024, 12, 31), LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 2)))) {
+            assertEquals(periodTotals(LedgerAggregates.Engine.DATABASE, boundaries),
+                    periodTotals(LedgerAggregates.Engine.COLUMNAR, boundaries));
+        }
+
+        // Comparison dates in either order
+        for (LocalDate[] dates : new LocalDate[][] { { LocalDate.of(2025, 2, 1), LocalDate.of(2024, 6, 1) },
+                { LocalDate.of(2024, 6, 1), LocalDate.of(2025, 2, 1) } }) {
+            assertEquals(balances(LedgerAggregates.Engine.DATABASE, dates),
+                    balances(LedgerAggregates.Engine.COLUMNAR, dates));
+        }
+    }
+
+    private Map<Long, List<BigDecimal>> balances(LedgerAggregates.Engine engine, LocalDate[] dates) {
+        Map<Long, List<BigDecimal>> balances = new java.util.HashMap<>();
+        for (Object[] row : ledgerAggregates.balancesBefore(engine, company.getId(), dates[0], dates[1])) {
+            balances.put((Long) row[0], List.of(((BigDecimal) row[1]).stripTrailingZeros(),
+                    ((BigDecimal) row[2]).stripTrailingZeros()));
+        }
+        return balances;
+    }
+
+    private Map<List<Object>, BigDecimal> periodTotals(LedgerAggregates.Engine engine, List<LocalDate> boundaries) {
+        Map<List<Object>, BigDecimal> totals = new java.util.HashMap<>();
+        for (Object[] row : ledgerAggregates.sumByPeriodAndAccount(engine, company.getId(),
+                java.util.EnumSet.allOf(AccountType.class), boundaries)) {
+            totals.put(List.of(row[0], row[1]), ((BigDecimal) row[2]).stripTrailingZeros());
+        }
+        return totals;
+    }
+
+    @Test
+    void rolledBackPosting_IsNotAppended() {
+        accountingService.recordTransaction(sale("5.00", LocalDateTime.of(2025, 1, 2, 9, 0)), company.getId());
+        assertConsistent(2025);
+
+        org.springframework.transaction.support.TransactionTemplate template = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        template.executeWithoutResult(status -> {
+            accountingService.recordTransaction(sale("7.00", LocalDateTime.of(2025, 1, 3, 9, 0)), company.getId());
+            status.setRollbackOnly();
+        });
+
+        assertConsistent(2025);
+    }
+
+    @Test
+    void postingsOfAnotherInstance_AreSeenThroughTheLedgerVersion() {
+        // Never told about postings, like the column store of another node
+        LedgerColumnStore otherNode = new LedgerColumnStore(accountRepository, dataSource, transactionManager,
+                "columnar", ledgerVersions);
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = from.plusYears(1);
+        accountingService.recordTransaction(sale("5.00", LocalDateTime.of(2025, 1, 2, 9, 0)), company.getId());
+        assertEquals(0, new BigDecimal("5.00").compareTo(
+                otherNode.sumByAccount(company.getId(), from, to).orElseThrow().get(cash.getId())));
+
+        accountingService.recordTransaction(sale("7.00", LocalDateTime.of(2025, 1, 3, 9, 0)), company.getId());
+
+        assertEquals(0, new BigDecimal("12.00").compareTo(
+                otherNode.sumByAccount(company.getId(), from, to).orElseThrow().get(cash.getId())));
+        assertEquals(ledgerColumnStore.sumByAccount(company.getId(), from, to),
+                otherNode.sumByAccount(company.getId(), from, to));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_ColumnarVersusDatabaseAggregates() {
+        List<TransactionRequest> requests = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 20_000; i++) {
+            requests.add(sale("3.15", start.plusMinutes(i * 53L)));
+        }
+        batchPostingService.recordTransactions(requests, company.getId());
+
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = from.plusYears(1);
+        double database = time(LedgerAggregates.Engine.DATABASE, from, to);
+        double columnar = time(LedgerAggregates.Engine.COLUMNAR, from, to);
+
+        System.out.printf("Yearly aggregate over 40000 entries: database %.3f ms, columnar %.3f ms (%.1fx)%n",
+                database, columnar, database / columnar);
+        assertConsistent(2025);
+    }
+
+    private double time(LedgerAggregates.Engine engine, LocalDate from, LocalDate to) {
+        for (int i = 0; i < 20; i++) {
+            ledgerAggregates.sumByAccountTypeBetween(engine, company.getId(), from, to);
+        }
+        int runs = 200;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            ledgerAggregates.sumByAccountTypeBetween(engine, company.getId(), from, to);
+        }
+        return (System.nanoTime() - started) / 1_000_000d / runs;
+    }
+
+    private void assertConsistent(int year) {
+        LocalDate from = LocalDate.of(year, 1, 1);
+        Map<String, Object> comparison = ledgerAggregates.compareEngines(company.getId(), from, from.plusYears(1));
+        assertEquals(Boolean.TRUE, comparison.get("consistent"), comparison.toString());
+    }
+
+    private TransactionRequest sale(String amount, LocalDateTime date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Sale");
+        request.setDate(date);
+
+        JournalEntryRequest debit = new JournalEntryRequest();
+        debit.setAccountId(cash.getId());
+        debit.setAmount(new BigDecimal(amount));
+
+        JournalEntryRequest credit = new JournalEntryRequest();
+        credit.setAccountId(revenue.getId());
+        credit.setAmount(new BigDecimal(amount).negate());
+
+        request.setEntries(new ArrayList<>(List.of(debit, credit)));
+        return request;
+    }
+}
@@ -0,0 +1,80 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LedgerVersionsTest {
+
+    @Autowired
+    private LedgerVersions ledgerVersions;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void postingsBumpTheStoredVersionOncePerCommittedTransaction() {
+        Company company = companyRepository.save(new Company(null, "Versions " + UUID.randomUUID(), "USD"));
+        Account cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null),
+                company.getId());
+        Account revenue = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+        assertEquals(0, ledgerVersions.current(company.getId()));
+
+        accountingService.recordTransaction(sale(cash, revenue), company.getId());
+        assertEquals(1, ledgerVersions.current(company.getId()));
+
+        org.springframework.transaction.support.TransactionTemplate template = new org.springframework.transaction.support.TransactionTemplate(
+                transactionManager);
+        template.executeWithoutResult(status -> {
+            accountingService.recordTransaction(sale(cash, revenue), company.getId());
+            accountingService.recordTransaction(sale(cash, revenue), company.getId());
+        });
+        assertEquals(2, ledgerVersions.current(company.getId()));
+
+        template.executeWithoutResult(status -> {
+            accountingService.recordTransaction(sale(cash, revenue), company.getId());
+            status.setRollbackOnly();
+        });
+        assertEquals(2, ledgerVersions.current(company.getId()));
+    }
+
+    private static TransactionRequest sale(Account cash, Account revenue) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Sale");
+        request.setDate(LocalDateTime.of(2025, 1, 2, 9, 0));
+
+        JournalEntryRequest debit = new JournalEntryRequest();
+        debit.setAccountId(cash.getId());
+        debit.setAmount(new BigDecimal("10.00"));
+
+        JournalEntryRequest credit = new JournalEntryRequest();
+        credit.setAccountId(revenue.getId());
+        credit.setAmount(new BigDecimal("-10.00"));
+
+        request.setEntries(new ArrayList<>(List.of(debit, credit)));
+        return request;
+    }
+}
@@ -0,0 +1,213 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.RemittanceRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.AccountBalanceRepository;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.repository.InvoiceRepository;
+import com.balancesheet.backend.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentServiceTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AccountBalanceRepository balanceRepository;
+
+    private Company company;
+    private Account cash;
+    private Account receivables;
+    private Account sales;
+    private Customer customer;
+    private Invoice invoice;
+
+    // A posted invoice of 500
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Payments " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        receivables = accountingService.createAccount(
+                new Account(null, "Accounts Receivable", AccountType.ASSET, null), company.getId());
+        sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+        customer = customerRepository.save(new Customer(null, "Acme", null, null, null, company));
+        invoice = approve("500.00", receivables);
+    }
+
+    @Test
+    void recordPayment_KeepsPaidAndOpenBalanceOnTheInvoice() {
+        assertEquals(0, new BigDecimal("500.00").compareTo(invoice.getOpenBalance()));
+
+        pay("200.00");
+        Invoice partlyPaid = invoiceRepository.findById(invoice.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("200.00").compareTo(partlyPaid.getAmountPaid()));
+        assertEquals(0, new BigDecimal("300.00").compareTo(partlyPaid.getOpenBalance()));
+        assertEquals(InvoiceStatus.POSTED, partlyPaid.getStatus());
+
+        assertThrows(IllegalArgumentException.class, () -> pay("300.01"));
+        assertThrows(IllegalArgumentException.class, () -> pay("0"));
+
+        pay("300.00");
+        Invoice paid = invoiceRepository.findById(invoice.getId()).orElseThrow();
+        assertEquals(0, paid.getOpenBalance().signum());
+        assertEquals(InvoiceStatus.PAID, paid.getStatus());
+    }
+
+    @Test
+    void recordPayment_CreditsTheStoredArAccount() {
+        assertEquals(receivables.getId(), invoice.getArAccount().getId());
+
+        // Invoices posted before the column existed get it from their posting
+        invoice.setArAccount(null);
+        invoice = invoiceRepository.save(invoice);
+        assertTrue(invoiceRepository.backfillArAccount() >= 1);
+        assertEquals(receivables.getId(),
+                invoiceRepository.findById(invoice.getId()).orElseThrow().getArAccount().getId());
+
+        pay("120.00");
+        assertEquals(0, new BigDecimal("380.00").compareTo(
+                balanceRepository.findById(receivables.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("120.00").compareTo(
+                balanceRepository.findById(cash.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void concurrentPayments_NeverLoseAnUpdate() throws Exception {
+        int payments = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(payments);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < payments; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        pay("10.00");
+                        return true;
+                    } catch (OptimisticLockingFailureException ex) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int recorded = 0;
+            for (Future<Boolean> result : results) {
+                recorded += result.get(60, TimeUnit.SECONDS) ? 1 : 0;
+            }
+
+            // Every committed payment is reflected on the invoice, and only those
+            Invoice after = invoiceRepository.findById(invoice.getId()).orElseThrow();
+            assertEquals(recorded, paymentRepository.findByInvoiceId(invoice.getId()).size());
+            assertEquals(0, new BigDecimal("10.00").multiply(BigDecimal.valueOf(recorded))
+                    .compareTo(after.getAmountPaid()));
+            assertEquals(0, new BigDecimal("500.00").subtract(after.getAmountPaid())
+                    .compareTo(after.getOpenBalance()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void recordRemittance_PostsOneTransactionForAllInvoices() {
+        Account exportReceivables = accountingService.createAccount(
+                new Account(null, "Export Receivables", AccountType.ASSET, null), company.getId());
+        Invoice second = approve("200.00", receivables);
+        Invoice export = approve("300.00", exportReceivables);
+
+        // Nothing is recorded when one allocation is invalid
+        assertThrows(IllegalArgumentException.class, () -> remit(
+                new RemittanceRequest.Allocation(invoice.getId(), new BigDecimal("500.00")),
+                new RemittanceRequest.Allocation(second.getId(), new BigDecimal("200.01"))));
+        assertTrue(paymentRepository.findByInvoiceId(invoice.getId()).isEmpty());
+
+        List<Payment> payments = remit(
+                new RemittanceRequest.Allocation(invoice.getId(), new BigDecimal("500.00")),
+                new RemittanceRequest.Allocation(second.getId(), new BigDecimal("50.00")),
+                new RemittanceRequest.Allocation(export.getId(), new BigDecimal("300.00")));
+
+        assertEquals(3, payments.size());
+        Long transactionId = payments.get(0).getTransaction().getId();
+        assertTrue(payments.stream().allMatch(p -> p.getTransaction().getId().equals(transactionId)));
+        // Cash debit plus one credit per AR account
+        assertEquals(3, payments.get(0).getTransaction().getEntries().size());
+        assertEquals(0, new BigDecimal("850.00").compareTo(
+                balanceRepository.findById(cash.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("150.00").compareTo(
+                balanceRepository.findById(receivables.getId()).orElseThrow().getBalance()));
+        assertEquals(0, balanceRepository.findById(exportReceivables.getId()).orElseThrow().getBalance().signum());
+
+        assertEquals(InvoiceStatus.PAID, invoiceRepository.findById(invoice.getId()).orElseThrow().getStatus());
+        assertEquals(InvoiceStatus.PAID, invoiceRepository.findById(export.getId()).orElseThrow().getStatus());
+        Invoice partlyPaid = invoiceRepository.findById(second.getId()).orElseThrow();
+        assertEquals(InvoiceStatus.POSTED, partlyPaid.getStatus());
+        assertEquals(0, new BigDecimal("150.00").compareTo(partlyPaid.getOpenBalance()));
+    }
+
+    private List<Payment> remit(RemittanceRequest.Allocation... allocations) {
+        RemittanceRequest remittance = new RemittanceRequest();
+        remittance.setCashAccountId(cash.getId());
+        remittance.setPaymentDate(LocalDate.now());
+        remittance.setPaymentMethod("Bank Transfer");
+        remittance.setReference("Remittance advice 42");
+        remittance.setAllocations(List.of(allocations));
+        return paymentService.recordRemittance(company.getId(), remittance);
+    }
+
+    private Invoice approve(String amount, Account arAccount) {
+        Invoice draft = new Invoice();
+        draft.setCustomer(customer);
+        draft.setDate(LocalDate.now());
+        draft.setDueDate(LocalDate.now().plusDays(30));
+        draft.setCurrency("USD");
+        InvoiceItem item = new InvoiceItem();
+        item.setDescription("Consulting");
+        item.setQuantity(BigDecimal.ONE);
+        item.setUnitPrice(new BigDecimal(amount));
+        item.setRevenueAccount(sales);
+        draft.getItems().add(item);
+        draft = invoiceService.createInvoice(draft, company.getId());
+        return invoiceService.approveInvoice(draft.getId(), company.getId(), arAccount.getId());
+    }
+
+    private void pay(String amount) {
+        paymentService.recordPayment(company.getId(), invoice.getId(), new BigDecimal(amount), cash.getId(),
+                LocalDate.now(), "Bank Transfer", null);
+    }
+}
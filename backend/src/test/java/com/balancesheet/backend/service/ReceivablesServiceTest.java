@@ -0,0 +1,123 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.ArOpenItemRepository;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReceivablesServiceTest {
+
+    @Autowired
+    private ReceivablesService receivablesService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ArOpenItemRepository openItemRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aging_FollowsApprovalsAndPayments() {
+        Company company = companyRepository.save(new Company(null, "Receivables " + UUID.randomUUID(), "USD"));
+        Long companyId = company.getId();
+        Account cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), companyId);
+        Account receivables = accountingService.createAccount(
+                new Account(null, "Accounts Receivable", AccountType.ASSET, null), companyId);
+        Account sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                companyId);
+        Customer acme = customerRepository.save(new Customer(null, "Acme", null, null, null, company));
+        Customer globex = customerRepository.save(new Customer(null, "Globex", null, null, null, company));
+        LocalDate asOf = LocalDate.of(2025, 6, 30);
+
+        Invoice notDue = approve(acme, asOf.plusDays(10), "100.00", companyId, sales, receivables);
+        Invoice late = approve(acme, asOf.minusDays(45), "200.00", companyId, sales, receivables);
+        Invoice veryLate = approve(globex, asOf.minusDays(120), "300.00", companyId, sales, receivables);
+        Invoice paidOff = approve(globex, asOf.minusDays(5), "50.00", companyId, sales, receivables);
+        // A draft is not receivable yet
+        invoiceService.createInvoice(invoice(globex, asOf.minusDays(5), "999.00", sales), companyId);
+
+        paymentService.recordPayment(companyId, late.getId(), new BigDecimal("80.00"), cash.getId(), asOf,
+                "Bank Transfer", null);
+        paymentService.recordPayment(companyId, paidOff.getId(), new BigDecimal("50.00"), cash.getId(), asOf,
+                "Bank Transfer", null);
+
+        Map<String, Object> aging = receivablesService.getAging(companyId, asOf);
+        List<Map<String, Object>> customers = (List<Map<String, Object>>) aging.get("customers");
+        assertEquals(List.of("Acme", "Globex"), customers.stream().map(c -> c.get("customer")).toList());
+        assertAmount("100.00", customers.get(0).get("current"));
+        assertAmount("120.00", customers.get(0).get("31-60"));
+        assertAmount("0", customers.get(0).get("90+"));
+        assertAmount("300.00", customers.get(1).get("90+"));
+        assertAmount("0", customers.get(1).get("1-30"));
+        assertAmount("520.00", aging.get("total"));
+
+        List<Map<String, Object>> openItems = receivablesService.getOpenItems(companyId, acme.getId(), asOf);
+        assertEquals(List.of(late.getId(), notDue.getId()), openItems.stream().map(i -> i.get("invoiceId")).toList());
+        assertAmount("120.00", openItems.get(0).get("openAmount"));
+        assertEquals(45L, openItems.get(0).get("daysOverdue"));
+        assertEquals(List.of(veryLate.getId()), receivablesService.getOpenItems(companyId, globex.getId(), asOf)
+                .stream().map(i -> i.get("invoiceId")).toList());
+
+        // Rebuilding from the invoices gives the same report
+        assertEquals(3, receivablesService.rebuild(companyId));
+        assertEquals(aging.toString(), receivablesService.getAging(companyId, asOf).toString());
+
+        // Invoices without a row, as before the table existed, are added next to the rows that exist
+        openItemRepository.deleteAllById(List.of(late.getId(), veryLate.getId()));
+        assertEquals(2, receivablesService.backfill(companyId));
+        assertEquals(0, receivablesService.backfill(companyId));
+        assertEquals(aging.toString(), receivablesService.getAging(companyId, asOf).toString());
+    }
+
+    private Invoice approve(Customer customer, LocalDate dueDate, String amount, Long companyId, Account sales,
+            Account receivables) {
+        Invoice draft = invoiceService.createInvoice(invoice(customer, dueDate, amount, sales), companyId);
+        return invoiceService.approveInvoice(draft.getId(), companyId, receivables.getId());
+    }
+
+    private static Invoice invoice(Customer customer, LocalDate dueDate, String amount, Account sales) {
+        Invoice invoice = new Invoice();
+        invoice.setCustomer(customer);
+        invoice.setDate(dueDate.minusDays(30));
+        invoice.setDueDate(dueDate);
+        invoice.setCurrency("USD");
+        InvoiceItem item = new InvoiceItem();
+        item.setDescription("Consulting");
+        item.setQuantity(BigDecimal.ONE);
+        item.setUnitPrice(new BigDecimal(amount));
+        item.setRevenueAccount(sales);
+        invoice.getItems().add(item);
+        return invoice;
+    }
+
+    private static void assertAmount(String expected, Object actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), () -> expected + " != " + actual);
+    }
+}
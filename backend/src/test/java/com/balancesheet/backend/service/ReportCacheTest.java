@@ -0,0 +1,58 @@
+package com.balancesheet.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportCacheTest {
+
+    private LedgerVersions ledgerVersions;
+    private ReportCache reportCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        ledgerVersions = mock(LedgerVersions.class);
+        reportCache = new ReportCache(ledgerVersions, new SimpleMeterRegistry(), true, 10, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_ServesUnchangedLedgerFromCacheUntilVersionBumps() {
+        assertEquals("report-1", load(1L, 2025));
+        assertEquals("report-1", load(1L, 2025));
+        assertEquals(1, loads.get());
+
+        when(ledgerVersions.current(1L)).thenReturn(1L);
+
+        assertEquals("report-2", load(1L, 2025));
+        assertEquals(1.0, reportCache.stats().get("hits"));
+        assertEquals(2.0, reportCache.stats().get("misses"));
+        assertEquals(1.0, reportCache.stats().get("staleEvictions"));
+    }
+
+    @Test
+    void get_KeysByCompanyAndParametersAndEvictsByWeight() {
+        load(1L, 2024);
+        load(1L, 2025);
+        load(2L, 2025);
+        assertEquals(3, loads.get());
+
+        // Weight 11 (list of ten elements) alone exceeds the limit of 10
+        reportCache.get(3L, "big", List.of(), () -> List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+
+        assertEquals(0.0, reportCache.stats().get("entries"));
+        assertEquals(4.0, reportCache.stats().get("sizeEvictions"));
+    }
+
+    private String load(Long companyId, int year) {
+        return reportCache.get(companyId, "pnl", List.of(year), () -> "report-" + loads.incrementAndGet());
+    }
+}
@@ -0,0 +1,153 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReportServiceTest {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    private Company company;
+    private Account cash;
+    private Account sales;
+    private Account rent;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Reports " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+        rent = accountingService.createAccount(new Account(null, "Rent", AccountType.EXPENSE, null),
+                company.getId());
+    }
+
+    @Test
+    void getProfitAndLossByPeriod_BuildsMonthlyTrendWithAccountLines() {
+        post(sales, "-500.00", LocalDate.of(2024, 1, 31));
+        post(rent, "200.00", LocalDate.of(2024, 2, 1));
+        post(sales, "-300.00", LocalDate.of(2025, 12, 31));
+
+        List<Map<String, Object>> periods = periods(ReportService.PeriodInterval.MONTH, 0, 24,
+                LocalDate.of(2025, 12, 15));
+
+        assertEquals(24, periods.size());
+        assertEquals(LocalDate.of(2024, 1, 1), periods.get(0).get("from"));
+        assertEquals(LocalDate.of(2026, 1, 1), periods.get(23).get("to"));
+        assertAmount("500.00", periods.get(0).get("revenue"));
+        assertAmount("-200.00", periods.get(1).get("netIncome"));
+        assertAmount("300.00", periods.get(23).get("revenue"));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> lines = (List<Map<String, Object>>) periods.get(1).get("accounts");
+        assertEquals(1, lines.size());
+        assertEquals("Rent", lines.get(0).get("name"));
+
+        Map<String, Object> annual = reportService.getProfitAndLoss(company.getId(), 2025);
+        @SuppressWarnings("unchecked")
+        Map<String, BigDecimal> previous = (Map<String, BigDecimal>) annual.get("previous");
+        assertAmount("300.00", previous.get("netIncome"));
+    }
+
+    @Test
+    void getProfitAndLossByPeriod_SupportsQuartersAndCustomIntervals() {
+        post(sales, "-100.00", LocalDate.of(2025, 3, 31));
+        post(sales, "-40.00", LocalDate.of(2025, 4, 1));
+
+        List<Map<String, Object>> quarters = periods(ReportService.PeriodInterval.QUARTER, 0, 4,
+                LocalDate.of(2025, 6, 30));
+        assertAmount("100.00", quarters.get(2).get("revenue"));
+        assertAmount("40.00", quarters.get(3).get("revenue"));
+
+        // Two 14-day periods ending on April 10th: [Mar 14, Mar 28) and [Mar 28, Apr 11)
+        List<Map<String, Object>> fortnights = periods(ReportService.PeriodInterval.DAYS, 14, 2,
+                LocalDate.of(2025, 4, 10));
+        assertEquals(LocalDate.of(2025, 3, 14), fortnights.get(0).get("from"));
+        assertAmount("0", fortnights.get(0).get("revenue"));
+        assertAmount("140.00", fortnights.get(1).get("revenue"));
+
+        assertThrows(IllegalArgumentException.class, () -> periods(ReportService.PeriodInterval.MONTH, 0, 61,
+                LocalDate.of(2025, 1, 1)));
+    }
+
+    @Test
+    void getTrialBalanceAsOf_BalancesAndComparesDates() {
+        post(sales, "-500.00", LocalDate.of(2025, 1, 31));
+        post(rent, "200.00", LocalDate.of(2025, 2, 1));
+        post(sales, "-50.00", LocalDate.of(2025, 3, 1));
+
+        Map<String, Object> report = reportService.getTrialBalanceAsOf(company.getId(), LocalDate.of(2025, 2, 1),
+                LocalDate.of(2025, 1, 31));
+
+        assertEquals(Boolean.TRUE, report.get("balanced"));
+        assertAmount("500.00", report.get("totalDebit"));
+        assertAmount("500.00", report.get("totalCredit"));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> lines = (List<Map<String, Object>>) report.get("accounts");
+        assertEquals(List.of("Cash", "Sales", "Rent"), lines.stream().map(line -> line.get("account")).toList());
+        assertAmount("300.00", lines.get(0).get("debit"));
+        assertAmount("500.00", lines.get(0).get("compareBalance"));
+        assertAmount("-200.00", lines.get(0).get("delta"));
+        assertAmount("0", lines.get(1).get("delta"));
+        assertAmount("200.00", lines.get(2).get("delta"));
+
+        Map<String, Object> current = reportService.getTrialBalanceAsOf(company.getId(), LocalDate.of(2025, 1, 30),
+                null);
+        assertTrue(((List<?>) current.get("accounts")).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> periods(ReportService.PeriodInterval interval, int days, int count,
+            LocalDate end) {
+        return (List<Map<String, Object>>) reportService
+                .getProfitAndLossByPeriod(company.getId(), interval, days, count, end).get("periods");
+    }
+
+    private void assertAmount(String expected, Object actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), String.valueOf(actual));
+    }
+
+    // Books the amount on the P&L account against cash
+    private void post(Account account, String amount, LocalDate date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Entry");
+        request.setDate(date.atTime(10, 0));
+
+        JournalEntryRequest line = new JournalEntryRequest();
+        line.setAccountId(account.getId());
+        line.setAmount(new BigDecimal(amount));
+
+        JournalEntryRequest offset = new JournalEntryRequest();
+        offset.setAccountId(cash.getId());
+        offset.setAmount(new BigDecimal(amount).negate());
+
+        request.setEntries(new ArrayList<>(List.of(line, offset)));
+        accountingService.recordTransaction(request, company.getId());
+    }
+}
@@ -0,0 +1,166 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.RecurringTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SchedulerServiceTest {
+
+    @Autowired
+    private SchedulerService schedulerService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private RecurringTransactionRepository recurringRepository;
+
+    @Autowired
+    private RecurringQueue recurringQueue;
+
+    private final LocalDate today = LocalDate.now();
+    private Company company;
+    private Account cash;
+    private Account rent;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Scheduler " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        rent = accountingService.createAccount(new Account(null, "Rent", AccountType.EXPENSE, null),
+                company.getId());
+    }
+
+    @Test
+    void processRecurringTransactions_PostsEachDueItemOnceAcrossInstances() {
+        List<RecurringTransaction> items = List.of(due("A", "Rent"), due("B", "Rent"), due("C", "Rent"),
+                due("D", "Rent"), due("E", "Rent"));
+
+        // Two schedulers running at the same time, as on two replicas
+        CompletableFuture.allOf(CompletableFuture.runAsync(schedulerService::processRecurringTransactions),
+                CompletableFuture.runAsync(schedulerService::processRecurringTransactions)).join();
+
+        assertEquals(items.size(), accountingService.getAllTransactions(company.getId(), null).size());
+        for (RecurringTransaction item : items) {
+            assertEquals(today.plusMonths(1), recurringRepository.findById(item.getId()).orElseThrow()
+                    .getNextRunDate());
+        }
+    }
+
+    @Test
+    void processRecurringTransactions_IsolatesFailingItem() {
+        RecurringTransaction good = due("Good", "Rent");
+        // The generated transaction description does not fit its column
+        RecurringTransaction bad = due("Bad", "x".repeat(250));
+        RecurringTransaction other = due("Other", "Rent");
+
+        schedulerService.processRecurringTransactions();
+
+        assertEquals(2, accountingService.getAllTransactions(company.getId(), null).size());
+        assertEquals(today.plusMonths(1), recurringRepository.findById(good.getId()).orElseThrow().getNextRunDate());
+        assertEquals(today.plusMonths(1), recurringRepository.findById(other.getId()).orElseThrow().getNextRunDate());
+        assertEquals(today, recurringRepository.findById(bad.getId()).orElseThrow().getNextRunDate());
+        recurringRepository.delete(bad);
+    }
+
+    @Test
+    void processRecurringTransactions_CatchesUpMissedRunsOnTheirDates() {
+        LocalDate firstMissed = today.minusMonths(3).withDayOfMonth(1);
+        RecurringTransaction item = recurringRepository.save(new RecurringTransaction(null, "HQ", "Rent",
+                new BigDecimal("100.00"), rent, cash, 1, firstMissed, null, null, "BUILDING", company, null));
+
+        schedulerService.processRecurringTransactions();
+
+        List<LocalDate> posted = accountingService.getAllTransactions(company.getId(), null).stream()
+                .map(tx -> tx.getDate().toLocalDate())
+                .sorted()
+                .toList();
+        assertEquals(List.of(firstMissed, firstMissed.plusMonths(1), firstMissed.plusMonths(2),
+                firstMissed.plusMonths(3)), posted);
+        assertEquals(today.withDayOfMonth(1).plusMonths(1),
+                recurringRepository.findById(item.getId()).orElseThrow().getNextRunDate());
+    }
+
+    @Test
+    void previewDue_ListsClampedRunsWithinActiveDates() {
+        int year = today.getYear() + 1;
+        recurringRepository.save(new RecurringTransaction(null, "HQ", "Rent", new BigDecimal("100.00"), rent, cash,
+                31, LocalDate.of(year, 1, 31), LocalDate.of(year, 2, 1), LocalDate.of(year, 4, 30), "BUILDING",
+                company, RecurrenceFrequency.MONTHLY));
+
+        List<Map<String, Object>> preview = schedulerService.previewDue(company.getId(), LocalDate.of(year, 5, 15));
+
+        assertEquals(List.of(YearMonth.of(year, 2).atEndOfMonth(), LocalDate.of(year, 3, 31),
+                LocalDate.of(year, 4, 30)), preview.stream().map(run -> run.get("date")).toList());
+        assertEquals("Auto: Rent (HQ)", preview.get(0).get("description"));
+        assertTrue(accountingService.getAllTransactions(company.getId(), null).isEmpty());
+    }
+
+    @Test
+    void previewDue_ExpandsWeeklyQuarterlyAndYearlyItems() {
+        LocalDate start = LocalDate.of(today.getYear() + 1, 1, 31);
+        for (RecurrenceFrequency frequency : List.of(RecurrenceFrequency.WEEKLY, RecurrenceFrequency.QUARTERLY,
+                RecurrenceFrequency.YEARLY)) {
+            recurringRepository.save(new RecurringTransaction(null, frequency.name(), "Fee", new BigDecimal("10.00"),
+                    rent, cash, 31, start, null, null, "OTHER", company, frequency));
+        }
+
+        List<Map<String, Object>> preview = schedulerService.previewDue(company.getId(), start.plusYears(1));
+
+        assertEquals(53, preview.stream().filter(run -> run.get("name").equals("WEEKLY")).count());
+        assertEquals(List.of(start, YearMonth.of(start.getYear(), 4).atEndOfMonth(), start.withMonth(7),
+                start.withMonth(10), start.plusYears(1)), dates(preview, "QUARTERLY"));
+        assertEquals(List.of(start, start.plusYears(1)), dates(preview, "YEARLY"));
+    }
+
+    @Test
+    void recurringQueue_FiresWhenItemIsDue() throws InterruptedException {
+        RecurringTransaction item = due("Queued", "Rent");
+
+        recurringQueue.schedule(item.getId(), item.getNextRunDate());
+
+        // The run commits before the item is queued again for its next date
+        Instant next = today.plusMonths(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        for (int i = 0; i < 100 && !recurringQueue.scheduledAt(item.getId()).equals(Optional.of(next)); i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(today.plusMonths(1), recurringRepository.findById(item.getId()).orElseThrow().getNextRunDate());
+        assertEquals(1, accountingService.getAllTransactions(company.getId(), null).size());
+        assertEquals(next, recurringQueue.scheduledAt(item.getId()).orElseThrow());
+
+        recurringQueue.remove(item.getId());
+        assertTrue(recurringQueue.scheduledAt(item.getId()).isEmpty());
+    }
+
+    private static List<Object> dates(List<Map<String, Object>> preview, String name) {
+        return preview.stream().filter(run -> run.get("name").equals(name)).map(run -> run.get("date")).toList();
+    }
+
+    private RecurringTransaction due(String name, String description) {
+        return recurringRepository.save(new RecurringTransaction(null, name, description, new BigDecimal("100.00"),
+                rent, cash, today.getDayOfMonth(), today, null, null, "OTHER", company, null));
+    }
+}
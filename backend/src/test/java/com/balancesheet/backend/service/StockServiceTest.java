@@ -0,0 +1,150 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import com.balancesheet.backend.repository.CustomerRepository;
+import com.balancesheet.backend.repository.ProductRepository;
+import com.balancesheet.backend.repository.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StockServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceBatchService invoiceBatchService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private Company company;
+    private Product product;
+
+    // A product starting with 100 units
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Stock " + UUID.randomUUID(), "USD"));
+        Product draft = new Product();
+        draft.setName("Hoppy IPA");
+        draft.setSellingPrice(new BigDecimal("45.00"));
+        draft.setQuantityOnHand(100);
+        product = productService.createProduct(company.getId(), draft);
+    }
+
+    @Test
+    void concurrentAdjustments_NeverLoseAMovement() throws Exception {
+        int threads = 8;
+        int perThread = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        productService.updateStock(company.getId(), product.getId(), -1, "Breakage");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(20, productRepository.findById(product.getId()).orElseThrow().getQuantityOnHand());
+        assertEquals(20, movementRepository.sumQuantity(product.getId()));
+        assertEquals(1 + threads * perThread,
+                productService.getMovements(company.getId(), product.getId()).size());
+    }
+
+    @Test
+    void postingAnInvoice_TakesItsProductLinesFromStock() {
+        Account receivables = accountingService.createAccount(
+                new Account(null, "Accounts Receivable", AccountType.ASSET, null), company.getId());
+        Account sales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+        Customer customer = customerRepository.save(new Customer(null, "Acme", null, null, null, company));
+
+        Invoice draft = invoiceService.createInvoice(invoice(customer, sales, "3"), company.getId());
+        assertEquals(100, productRepository.findById(product.getId()).orElseThrow().getQuantityOnHand());
+
+        Invoice posted = invoiceService.approveInvoice(draft.getId(), company.getId(), receivables.getId());
+
+        assertEquals(97, productRepository.findById(product.getId()).orElseThrow().getQuantityOnHand());
+        StockMovement sale = productService.getMovements(company.getId(), product.getId()).get(0);
+        assertEquals(StockMovementType.SALE, sale.getType());
+        assertEquals(-3, sale.getQuantity());
+        assertEquals(posted.getId(), sale.getInvoiceId());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> invoiceService.createInvoice(invoice(customer, sales, "1.5"), company.getId()));
+    }
+
+    @Test
+    void invoicesOfAnotherCompany_CannotTakeTheProductsStock() {
+        Company other = companyRepository.save(new Company(null, "Stock " + UUID.randomUUID(), "USD"));
+        Account otherSales = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                other.getId());
+        Customer otherCustomer = customerRepository.save(new Customer(null, "Acme", null, null, null, other));
+
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+                () -> invoiceService.createInvoice(invoice(otherCustomer, otherSales, "2"), other.getId()));
+        assertEquals("Product not found", rejected.getMessage());
+        assertEquals("Product not found", invoiceBatchService
+                .createInvoices(List.of(invoice(otherCustomer, otherSales, "2")), other.getId())
+                .getResults().get(0).getError());
+        assertEquals(100, productRepository.findById(product.getId()).orElseThrow().getQuantityOnHand());
+    }
+
+    private Invoice invoice(Customer customer, Account sales, String quantity) {
+        Invoice invoice = new Invoice();
+        invoice.setCustomer(customer);
+        invoice.setDate(LocalDate.now());
+        invoice.setDueDate(LocalDate.now().plusDays(30));
+        invoice.setCurrency("USD");
+        InvoiceItem item = new InvoiceItem();
+        item.setDescription("Hoppy IPA");
+        item.setProduct(product);
+        item.setQuantity(new BigDecimal(quantity));
+        item.setUnitPrice(new BigDecimal("45.00"));
+        item.setRevenueAccount(sales);
+        invoice.getItems().add(item);
+        return invoice;
+    }
+}
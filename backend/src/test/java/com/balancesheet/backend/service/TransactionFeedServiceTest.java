@@ -0,0 +1,120 @@
+package com.balancesheet.backend.service;
+
+import com.balancesheet.backend.dto.JournalEntryRequest;
+import com.balancesheet.backend.dto.TransactionFeedItem;
+import com.balancesheet.backend.dto.TransactionFeedPage;
+import com.balancesheet.backend.dto.TransactionFeedQuery;
+import com.balancesheet.backend.dto.TransactionRequest;
+import com.balancesheet.backend.model.*;
+import com.balancesheet.backend.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionFeedServiceTest {
+
+    @Autowired
+    private TransactionFeedService transactionFeedService;
+
+    @Autowired
+    private AccountingService accountingService;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    private Company company;
+    private Account cash;
+    private Account bank;
+    private Account revenue;
+
+    @BeforeEach
+    void setUp() {
+        company = companyRepository.save(new Company(null, "Feed " + UUID.randomUUID(), "USD"));
+        cash = accountingService.createAccount(new Account(null, "Cash", AccountType.ASSET, null), company.getId());
+        bank = accountingService.createAccount(new Account(null, "Bank", AccountType.ASSET, null), company.getId());
+        revenue = accountingService.createAccount(new Account(null, "Sales", AccountType.REVENUE, null),
+                company.getId());
+    }
+
+    @Test
+    void getFeed_WalksPagesWithoutGapsOrRepeats() {
+        // Several transactions share a timestamp, so the id must break ties
+        LocalDateTime noon = LocalDateTime.of(2024, 4, 1, 12, 0);
+        List<Long> posted = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            posted.add(post(cash, "10.00", noon.plusDays(i / 3)).getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        TransactionFeedQuery query = new TransactionFeedQuery();
+        query.setLimit(3);
+        int pages = 0;
+        do {
+            TransactionFeedPage page = transactionFeedService.getFeed(company.getId(), query);
+            page.getItems().forEach(item -> seen.add(item.getId()));
+            query.setCursor(page.getNextCursor());
+            pages++;
+        } while (query.getCursor() != null);
+
+        assertEquals(3, pages);
+        assertEquals(7, seen.size());
+        assertTrue(seen.containsAll(posted));
+        assertEquals(posted.get(6), seen.get(0));
+    }
+
+    @Test
+    void getFeed_FiltersAndReturnsSlimEntries() {
+        post(cash, "10.00", LocalDateTime.of(2024, 1, 5, 9, 0));
+        post(bank, "250.00", LocalDateTime.of(2024, 2, 5, 9, 0));
+        post(bank, "40.00", LocalDateTime.of(2024, 3, 5, 9, 0));
+
+        TransactionFeedQuery query = new TransactionFeedQuery();
+        query.setAccountId(bank.getId());
+        query.setFrom(LocalDate.of(2024, 2, 1));
+        query.setTo(LocalDate.of(2024, 3, 5));
+        query.setMinAmount(new BigDecimal("100"));
+
+        TransactionFeedPage page = transactionFeedService.getFeed(company.getId(), query);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        TransactionFeedItem item = page.getItems().get(0);
+        assertEquals(0, new BigDecimal("250.00").compareTo(item.getAmount()));
+        assertEquals(2, item.getEntries().size());
+        assertEquals("Bank", item.getEntries().get(0).getAccountName());
+
+        TransactionFeedQuery invalid = new TransactionFeedQuery();
+        invalid.setCursor("not-a-cursor");
+        assertThrows(IllegalArgumentException.class, () -> transactionFeedService.getFeed(company.getId(), invalid));
+    }
+
+    private Transaction post(Account debitAccount, String amount, LocalDateTime date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription("Sale");
+        request.setDate(date);
+
+        JournalEntryRequest debit = new JournalEntryRequest();
+        debit.setAccountId(debitAccount.getId());
+        debit.setAmount(new BigDecimal(amount));
+
+        JournalEntryRequest credit = new JournalEntryRequest();
+        credit.setAccountId(revenue.getId());
+        credit.setAmount(new BigDecimal(amount).negate());
+
+        request.setEntries(new ArrayList<>(List.of(debit, credit)));
+        return accountingService.recordTransaction(request, company.getId());
+    }
+}
@@ -4,9 +4,19 @@ import { formatCurrency } from '../utils/currency';
 
 const AuditTrail = () => {
     const [transactions, setTransactions] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+
+    const loadPage = (cursor) => {
+        const companyId = localStorage.getItem('companyId') || 1;
+        api.get('/transactions/feed', { headers: { 'X-Company-ID': companyId }, params: { cursor } })
+            .then(res => {
+                setTransactions(prev => cursor ? [...prev, ...res.data.items] : res.data.items);
+                setNextCursor(res.data.nextCursor);
+            });
+    };
 
     useEffect(() => {
-        api.get('/transactions').then(res => setTransactions(res.data));
+        loadPage(null);
     }, []);
 
     return (
@@ -21,9 +31,9 @@ const AuditTrail = () => {
                             <span style={{ color: 'var(--text-secondary)' }}>{new Date(tx.date).toLocaleString()}</span>
                         </div>
                         <div style={{ background: 'rgba(0,0,0,0.2)', padding: '0.5rem', borderRadius: '8px' }}>
-                            {tx.entries.map(entry => (
-                                <div key={entry.id} style={{ display: 'flex', justifyContent: 'space-between', fontSize: '0.9rem', padding: '0.25rem 0' }}>
-                                    <span>{entry.account ? entry.account.name : 'Unknown Account'}</span>
+                            {tx.entries.map((entry, index) => (
+                                <div key={index} style={{ display: 'flex', justifyContent: 'space-between', fontSize: '0.9rem', padding: '0.25rem 0' }}>
+                                    <span>{entry.accountName || 'Unknown Account'}</span>
                                     <span style={{
                                         color: entry.amount > 0 ? '#ef4444' : '#10b981', // Red for debit, green for credit
                                         fontWeight: '600',
@@ -40,6 +50,9 @@ const AuditTrail = () => {
                         </div>
                     </div>
                 ))}
+                {nextCursor && (
+                    <button className="btn btn-primary" onClick={() => loadPage(nextCursor)}>Load More</button>
+                )}
             </div>
         </div>
     );
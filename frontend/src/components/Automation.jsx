@@ -12,6 +12,7 @@ const Automation = () => {
         name: '',
         amount: '',
         dayOfMonth: 1,
+        frequency: 'MONTHLY',
         expenseAccountId: ''
     });
 
@@ -49,6 +50,7 @@ const Automation = () => {
             description: wizardType === 'TEAM' ? `Monthly Salary for ${formData.name}` : (wizardType === 'BUILDING' ? `Monthly Rent for ${formData.name}` : `Maintenance for ${formData.name}`),
             amount: formData.amount,
             dayOfMonth: formData.dayOfMonth,
+            frequency: formData.frequency,
             category: wizardType,
             debitAccountId: debitAccount.id,
             creditAccountId: creditAccount.id,
@@ -59,7 +61,7 @@ const Automation = () => {
         try {
             await api.post('/recurring', payload);
             setShowWizard(false);
-            setFormData({ name: '', amount: '', dayOfMonth: 1 });
+            setFormData({ name: '', amount: '', dayOfMonth: 1, frequency: 'MONTHLY' });
             fetchData();
         } catch (err) {
             console.error(err);
@@ -67,6 +69,10 @@ const Automation = () => {
         }
     };
 
+    const schedule = (item) => item.frequency === 'WEEKLY'
+        ? `weekly, next on ${item.nextRunDate}`
+        : `${(item.frequency || 'MONTHLY').toLowerCase()} on day ${item.dayOfMonth}`;
+
     const handleDelete = async (id) => {
         if (confirm('Stop this automation?')) {
             await api.delete(`/recurring/${id}`);
@@ -100,7 +106,7 @@ const Automation = () => {
                             <div key={item.id} style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center', padding: '1rem', borderBottom: '1px solid var(--glass-border)' }}>
                                 <div>
                                     <div style={{ fontWeight: 'bold' }}>{item.name}</div>
-                                    <div style={{ fontSize: '0.8rem', color: 'var(--text-secondary)' }}>Pays ${item.amount} on day {item.dayOfMonth}</div>
+                                    <div style={{ fontSize: '0.8rem', color: 'var(--text-secondary)' }}>Pays ${item.amount} {schedule(item)}</div>
                                 </div>
                                 <button className="btn" style={{ padding: '0.25rem 0.5rem', background: 'var(--danger)', fontSize: '0.8rem', color: 'white' }} onClick={() => handleDelete(item.id)}>Remove</button>
                             </div>
@@ -115,7 +121,7 @@ const Automation = () => {
                             <div key={item.id} style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center', padding: '1rem', borderBottom: '1px solid var(--glass-border)' }}>
                                 <div>
                                     <div style={{ fontWeight: 'bold' }}>{item.name}</div>
-                                    <div style={{ fontSize: '0.8rem', color: 'var(--text-secondary)' }}>Pays ${item.amount} on day {item.dayOfMonth}</div>
+                                    <div style={{ fontSize: '0.8rem', color: 'var(--text-secondary)' }}>Pays ${item.amount} {schedule(item)}</div>
                                 </div>
                                 <button className="btn" style={{ padding: '0.25rem 0.5rem', background: 'var(--danger)', fontSize: '0.8rem', color: 'white' }} onClick={() => handleDelete(item.id)}>Remove</button>
                             </div>
@@ -130,7 +136,7 @@ const Automation = () => {
                             <div key={item.id} style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center', padding: '1rem', borderBottom: '1px solid var(--glass-border)' }}>
                                 <div>
                                     <div style={{ fontWeight: 'bold' }}>{item.name}</div>
-                                    <div style={{ fontSize: '0.8rem', color: 'var(--text-secondary)' }}>Pays ${item.amount} on day {item.dayOfMonth}</div>
+                                    <div style={{ fontSize: '0.8rem', color: 'var(--text-secondary)' }}>Pays ${item.amount} {schedule(item)}</div>
                                 </div>
                                 <button className="btn" style={{ padding: '0.25rem 0.5rem', background: 'var(--danger)', fontSize: '0.8rem', color: 'white' }} onClick={() => handleDelete(item.id)}>Remove</button>
                             </div>
@@ -154,6 +160,15 @@ const Automation = () => {
                                 <label className="stat-label">{wizardType === 'TEAM' ? 'Monthly Salary' : (wizardType === 'BUILDING' ? 'Monthly Rent' : 'Monthly Maintenance')} ($)</label>
                                 <input type="number" placeholder="0.00" value={formData.amount} onChange={e => setFormData({ ...formData, amount: e.target.value })} required />
                             </div>
+                            <div>
+                                <label className="stat-label">Frequency</label>
+                                <select value={formData.frequency} onChange={e => setFormData({ ...formData, frequency: e.target.value })}>
+                                    <option value="WEEKLY">Weekly</option>
+                                    <option value="MONTHLY">Monthly</option>
+                                    <option value="QUARTERLY">Quarterly</option>
+                                    <option value="YEARLY">Yearly</option>
+                                </select>
+                            </div>
                             <div>
                                 <label className="stat-label">Day of Month to Pay</label>
                                 <input type="number" min="1" max="28" value={formData.dayOfMonth} onChange={e => setFormData({ ...formData, dayOfMonth: e.target.value })} required />
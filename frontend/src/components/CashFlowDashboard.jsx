@@ -2,8 +2,15 @@ import { useEffect, useState } from 'react';
 import { AreaChart, Area, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer } from 'recharts';
 import api from '../api/api';
 
+const HISTORY_WINDOWS = [
+    { label: 'Last 30 Days', days: 30, bucket: 'day' },
+    { label: 'Last 90 Days', days: 90, bucket: 'week' },
+    { label: 'Last 12 Months', days: 365, bucket: 'month' },
+];
+
 const CashFlowDashboard = () => {
     const [history, setHistory] = useState([]);
+    const [historyWindow, setHistoryWindow] = useState(HISTORY_WINDOWS[0]);
     const [forecast, setForecast] = useState(null);
     const [currency, setCurrency] = useState('USD');
 
@@ -11,7 +18,15 @@ const CashFlowDashboard = () => {
         const companyId = localStorage.getItem('companyId') || 1;
         api.get(`/companies/${companyId}`).then(res => setCurrency(res.data.currency));
 
-        api.get('/cash-flow/history', { headers: { 'X-Company-ID': companyId } })
+        api.get('/cash-flow/forecast', { headers: { 'X-Company-ID': companyId } })
+            .then(res => setForecast(res.data));
+    }, []);
+
+    useEffect(() => {
+        const companyId = localStorage.getItem('companyId') || 1;
+        const params = { days: historyWindow.days, bucket: historyWindow.bucket };
+
+        api.get('/cash-flow/history', { headers: { 'X-Company-ID': companyId }, params })
             .then(res => {
                 // Parse dates for chart
                 const formatted = res.data.map(d => ({
@@ -20,10 +35,7 @@ const CashFlowDashboard = () => {
                 }));
                 setHistory(formatted);
             });
-
-        api.get('/cash-flow/forecast', { headers: { 'X-Company-ID': companyId } })
-            .then(res => setForecast(res.data));
-    }, []);
+    }, [historyWindow]);
 
     const formatCurrency = (val) => new Intl.NumberFormat('en-US', { style: 'currency', currency }).format(val || 0);
 
@@ -58,7 +70,15 @@ const CashFlowDashboard = () => {
             <div className="dashboard-grid" style={{ gridTemplateColumns: '2fr 1fr', marginTop: '2rem' }}>
                 {/* Main Chart */}
                 <div className="glass-panel" style={{ minHeight: '400px' }}>
-                    <h3>Cash Balance Trend (Last 30 Days)</h3>
+                    <div style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center' }}>
+                        <h3>Cash Balance Trend ({historyWindow.label})</h3>
+                        <select
+                            value={historyWindow.days}
+                            onChange={e => setHistoryWindow(HISTORY_WINDOWS.find(w => w.days === Number(e.target.value)))}
+                        >
+                            {HISTORY_WINDOWS.map(w => <option key={w.days} value={w.days}>{w.label}</option>)}
+                        </select>
+                    </div>
                     {history.length > 0 ? (
                         <ResponsiveContainer width="100%" height={300}>
                             <AreaChart data={history}>
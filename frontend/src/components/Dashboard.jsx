@@ -71,11 +71,8 @@ const Dashboard = () => {
         setRevenueData(mockRevenueData);
 
         // Fetch recent transactions
-        api.get('/transactions', { headers: { 'X-Company-ID': companyId } })
-            .then(res => {
-                const sorted = res.data.sort((a, b) => new Date(b.date) - new Date(a.date));
-                setRecentTransactions(sorted.slice(0, 5));
-            })
+        api.get('/transactions/feed', { headers: { 'X-Company-ID': companyId }, params: { limit: 5 } })
+            .then(res => setRecentTransactions(res.data.items))
             .catch(err => console.error(err));
 
         // Fetch recent invoices
@@ -5,7 +5,7 @@ const GeneralLedger = () => {
     const [accounts, setAccounts] = useState([]);
     const [selectedAccount, setSelectedAccount] = useState('');
     const [year, setYear] = useState(new Date().getFullYear());
-    const [entries, setEntries] = useState([]);
+    const [ledger, setLedger] = useState({ openingBalance: 0, entries: [], closingBalance: 0 });
     const [currency, setCurrency] = useState('USD');
 
     useEffect(() => {
@@ -19,11 +19,14 @@ const GeneralLedger = () => {
         if (!selectedAccount) return;
 
         const companyId = localStorage.getItem('companyId') || 1;
-        api.get(`/reports/general-ledger/${selectedAccount}?year=${year}`, { headers: { 'X-Company-ID': companyId } })
-            .then(res => setEntries(res.data))
+        api.get(`/reports/general-ledger/${selectedAccount}/stream?year=${year}`, { headers: { 'X-Company-ID': companyId } })
+            .then(res => setLedger(res.data))
             .catch(err => console.error(err));
     }, [selectedAccount, year]);
 
+    const entries = ledger.entries;
+    const formatMoney = value => new Intl.NumberFormat('en-US', { style: 'currency', currency }).format(value);
+
     return (
         <div className="glass-panel">
             <h2>General Ledger</h2>
@@ -62,21 +65,26 @@ const GeneralLedger = () => {
                             <th style={{ textAlign: 'left', padding: '1rem' }}>Description</th>
                             <th style={{ textAlign: 'right', padding: '1rem' }}>Debit</th>
                             <th style={{ textAlign: 'right', padding: '1rem' }}>Credit</th>
+                            <th style={{ textAlign: 'right', padding: '1rem' }}>Balance</th>
                         </tr>
                     </thead>
                     <tbody>
+                        <tr style={{ borderBottom: '1px solid rgba(255,255,255,0.05)' }}>
+                            <td colSpan={4} style={{ padding: '0.75rem 1rem', color: 'var(--text-secondary)' }}>Opening balance</td>
+                            <td style={{ padding: '0.75rem 1rem', textAlign: 'right' }}>{formatMoney(ledger.openingBalance)}</td>
+                        </tr>
                         {entries.length === 0 && (
-                            <tr><td colSpan={4} style={{ padding: '2rem', textAlign: 'center', color: 'var(--text-secondary)' }}>No transactions found for this period.</td></tr>
+                            <tr><td colSpan={5} style={{ padding: '2rem', textAlign: 'center', color: 'var(--text-secondary)' }}>No transactions found for this period.</td></tr>
                         )}
                         {entries.map(entry => {
                             const isDebit = entry.amount > 0;
                             return (
                                 <tr key={entry.id} style={{ borderBottom: '1px solid rgba(255,255,255,0.05)' }}>
                                     <td style={{ padding: '0.75rem 1rem', color: 'var(--text-secondary)' }}>
-                                        {entry.transaction ? new Date(entry.transaction.date).toLocaleDateString() : 'N/A'}
+                                        {new Date(entry.date).toLocaleDateString()}
                                     </td>
                                     <td style={{ padding: '0.75rem 1rem' }}>
-                                        {entry.transaction ? entry.transaction.description : 'N/A'}
+                                        {entry.description}
                                     </td>
                                     <td style={{
                                         padding: '0.75rem 1rem',
@@ -84,7 +92,7 @@ const GeneralLedger = () => {
                                         color: isDebit ? '#ef4444' : 'var(--text-secondary)',
                                         fontWeight: isDebit ? '600' : 'normal'
                                     }}>
-                                        {isDebit ? new Intl.NumberFormat('en-US', { style: 'currency', currency }).format(entry.amount) : '-'}
+                                        {isDebit ? formatMoney(entry.amount) : '-'}
                                     </td>
                                     <td style={{
                                         padding: '0.75rem 1rem',
@@ -92,7 +100,10 @@ const GeneralLedger = () => {
                                         color: !isDebit ? '#10b981' : 'var(--text-secondary)',
                                         fontWeight: !isDebit ? '600' : 'normal'
                                     }}>
-                                        {!isDebit ? new Intl.NumberFormat('en-US', { style: 'currency', currency }).format(Math.abs(entry.amount)) : '-'}
+                                        {!isDebit ? formatMoney(Math.abs(entry.amount)) : '-'}
+                                    </td>
+                                    <td style={{ padding: '0.75rem 1rem', textAlign: 'right' }}>
+                                        {formatMoney(entry.balance)}
                                     </td>
                                 </tr>
                             );
@@ -2,30 +2,45 @@ import { useEffect, useState } from 'react';
 import api from '../../api/api';
 
 const TrialBalance = () => {
-    const [data, setData] = useState([]);
+    const [report, setReport] = useState({ accounts: [], totalDebit: 0, totalCredit: 0, difference: 0, balanced: true });
     const [currency, setCurrency] = useState('USD');
+    const [asOf, setAsOf] = useState(new Date().toISOString().slice(0, 10));
+    const [compareTo, setCompareTo] = useState('');
 
     useEffect(() => {
         const companyId = localStorage.getItem('companyId') || 1;
         api.get(`/companies/${companyId}`).then(res => setCurrency(res.data.currency));
+    }, []);
 
-        api.get('/reports/trial-balance', { headers: { 'X-Company-ID': companyId } })
-            .then(res => {
-                // Sort by account type then name
-                const sorted = res.data.sort((a, b) => a.account.localeCompare(b.account));
-                setData(sorted);
-            })
+    useEffect(() => {
+        const companyId = localStorage.getItem('companyId') || 1;
+        const params = new URLSearchParams({ date: asOf });
+        if (compareTo) params.set('compareTo', compareTo);
+
+        api.get(`/reports/trial-balance/as-of?${params}`, { headers: { 'X-Company-ID': companyId } })
+            .then(res => setReport(res.data))
             .catch(err => console.error(err));
-    }, []);
+    }, [asOf, compareTo]);
 
     const formatCurrency = (val) => new Intl.NumberFormat('en-US', { style: 'currency', currency }).format(val || 0);
-
-    const totalDebit = data.reduce((sum, item) => sum + item.debit, 0);
-    const totalCredit = data.reduce((sum, item) => sum + item.credit, 0);
+    const comparing = Boolean(report.compareTo);
+    const inputStyle = { width: '100%', padding: '0.8rem', borderRadius: '8px', background: 'var(--bg-secondary)', color: 'var(--text-primary)', border: '1px solid var(--glass-border)' };
 
     return (
         <div className="glass-panel">
             <h2>Trial Balance</h2>
+
+            <div style={{ display: 'grid', gridTemplateColumns: '1fr 1fr', gap: '1rem', marginBottom: '2rem' }}>
+                <div>
+                    <label className="stat-label">As of</label>
+                    <input type="date" value={asOf} onChange={e => setAsOf(e.target.value)} style={inputStyle} />
+                </div>
+                <div>
+                    <label className="stat-label">Compare to (optional)</label>
+                    <input type="date" value={compareTo} onChange={e => setCompareTo(e.target.value)} style={inputStyle} />
+                </div>
+            </div>
+
             <table style={{ width: '100%', borderCollapse: 'collapse' }}>
                 <thead>
                     <tr style={{ borderBottom: '1px solid var(--glass-border)' }}>
@@ -33,27 +48,30 @@ const TrialBalance = () => {
                         <th style={{ textAlign: 'left', padding: '1rem' }}>Type</th>
                         <th style={{ textAlign: 'right', padding: '1rem' }}>Debit</th>
                         <th style={{ textAlign: 'right', padding: '1rem' }}>Credit</th>
+                        {comparing && <th style={{ textAlign: 'right', padding: '1rem' }}>Change</th>}
                     </tr>
                 </thead>
                 <tbody>
-                    {data.map((item, idx) => (
-                        <tr key={idx} style={{ borderBottom: '1px solid rgba(255,255,255,0.05)' }}>
+                    {report.accounts.map(item => (
+                        <tr key={item.id} style={{ borderBottom: '1px solid rgba(255,255,255,0.05)' }}>
                             <td style={{ padding: '0.75rem 1rem' }}>{item.account}</td>
                             <td style={{ padding: '0.75rem 1rem', fontSize: '0.85rem', color: 'var(--text-secondary)' }}>{item.type}</td>
                             <td style={{ padding: '0.75rem 1rem', textAlign: 'right' }}>{item.debit > 0 ? formatCurrency(item.debit) : '-'}</td>
                             <td style={{ padding: '0.75rem 1rem', textAlign: 'right' }}>{item.credit > 0 ? formatCurrency(item.credit) : '-'}</td>
+                            {comparing && <td style={{ padding: '0.75rem 1rem', textAlign: 'right' }}>{item.delta !== 0 ? formatCurrency(item.delta) : '-'}</td>}
                         </tr>
                     ))}
                     <tr style={{ borderTop: '2px solid var(--text-primary)', fontWeight: 'bold' }}>
                         <td style={{ padding: '1rem' }} colSpan={2}>Total</td>
-                        <td style={{ padding: '1rem', textAlign: 'right' }}>{formatCurrency(totalDebit)}</td>
-                        <td style={{ padding: '1rem', textAlign: 'right' }}>{formatCurrency(totalCredit)}</td>
+                        <td style={{ padding: '1rem', textAlign: 'right' }}>{formatCurrency(report.totalDebit)}</td>
+                        <td style={{ padding: '1rem', textAlign: 'right' }}>{formatCurrency(report.totalCredit)}</td>
+                        {comparing && <td />}
                     </tr>
                 </tbody>
             </table>
-            {totalDebit !== totalCredit && (
+            {!report.balanced && (
                 <div style={{ marginTop: '1rem', color: 'var(--danger)', fontWeight: 'bold' }}>
-                    Warning: Trial Balance is out of balance! Variance: {formatCurrency(Math.abs(totalDebit - totalCredit))}
+                    Warning: Trial Balance is out of balance! Variance: {formatCurrency(Math.abs(report.difference))}
                 </div>
             )}
         </div>
@@ -23,7 +23,7 @@ resource "aws_ecs_task_definition" "backend" {
       environment = [
         {
           name  = "SPRING_DATASOURCE_URL"
-          value = "jdbc:postgresql://${module.db.db_instance_address}:5432/balancesheet"
+          value = "jdbc:postgresql://${module.db.db_instance_address}:5432/balancesheet?reWriteBatchedInserts=true"
         },
         {
           name  = "SPRING_DATASOURCE_USERNAME"